@@ -2,10 +2,13 @@ package com.ai_chatbot;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.web.reactive.function.client.WebClient;
 
-@SpringBootApplication
+// the R2DBC pool is created by R2dbcConfig only in reactive persistence mode; a ConnectionFactory bean would
+// also switch off the JDBC DataSource that JPA and ingestion rely on
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 public class AiChatbotApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,60 @@
+package com.ai_chatbot.aiclient;
+
+import com.ai_chatbot.util.SingleFlight;
+import com.ai_chatbot.util.StreamSingleFlight;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Shares one upstream generation among concurrent identical chat requests, keyed on the model and the messages
+ * array with whitespace-normalized contents. Applied by
+ * {@link com.ai_chatbot.aiclient.implementation.RoutingAIClient} before a backend is chosen, so only the shared
+ * generation takes a backend slot. Streaming callers that join late are replayed the chunks emitted so far.
+ * Joined calls are counted as {@code ai.chat.coalesced} ({@code mode=chat|stream}). Disabled with
+ * {@code ai.chat.coalescing.enabled=false}.
+ */
+@Component
+public class ChatCoalescer {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final boolean enabled;
+    private final SingleFlight<Key, String> chats = new SingleFlight<>();
+    private final StreamSingleFlight<Key, String> streams = new StreamSingleFlight<>();
+
+    public ChatCoalescer(@Value("${ai.chat.coalescing.enabled:true}") boolean enabled, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        FunctionCounter.builder("ai.chat.coalesced", chats, SingleFlight::joinedCount).tag("mode", "chat")
+                .register(meterRegistry);
+        FunctionCounter.builder("ai.chat.coalesced", streams, StreamSingleFlight::joinedCount).tag("mode", "stream")
+                .register(meterRegistry);
+    }
+
+    public Mono<String> chat(String model, List<PromptMessage> messages, Supplier<Mono<String>> call) {
+        return enabled ? chats.execute(Key.of(model, messages), call) : call.get();
+    }
+
+    public Flux<String> stream(String model, List<PromptMessage> messages, Supplier<Flux<String>> call) {
+        return enabled ? streams.execute(Key.of(model, messages), call) : call.get();
+    }
+
+    record Key(String model, List<String> messages) {
+        static Key of(String model, List<PromptMessage> messages) {
+            List<String> normalized = new ArrayList<>(messages.size() * 2);
+            for (PromptMessage m : messages) {
+                normalized.add(m.role());
+                normalized.add(WHITESPACE.matcher(m.content().strip()).replaceAll(" "));
+            }
+            return new Key(model == null ? "" : model, normalized);
+        }
+    }
+}
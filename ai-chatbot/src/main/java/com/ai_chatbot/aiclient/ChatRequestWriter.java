@@ -0,0 +1,136 @@
+package com.ai_chatbot.aiclient;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes chat request bodies ({@code {"model":..,"messages":[..],"stream":..}}) with a {@link JsonGenerator}
+ * straight into the outgoing {@link DataBuffer}, without building maps for Jackson to serialize.
+ * <p>
+ * The JSON-escaped UTF-8 content of persisted messages ({@link PromptMessage#messageId()}) is cached by message
+ * id, so a turn only encodes what is new: the user message, the system prompt and the summary. The cache is
+ * bounded by {@code ai.chat.request-cache.max-bytes} ({@code 0} disables it) and evicts least recently used entries. Meters:
+ * {@code ai.chat.request.cache.requests} ({@code result=hit|miss}) and {@code ai.chat.request.cache.bytes}.
+ */
+@Component
+public class ChatRequestWriter {
+
+    private static final JsonFactory JSON = new JsonFactory();
+    // the cached array, its key and the map node
+    private static final int ENTRY_OVERHEAD_BYTES = 80;
+
+    private final long maxBytes;
+    private final LinkedHashMap<Long, byte[]> encoded = new LinkedHashMap<>(256, 0.75f, true);
+    private long currentBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Autowired
+    public ChatRequestWriter(@Value("${ai.chat.request-cache.max-bytes:33554432}") long maxBytes,
+                             MeterRegistry meterRegistry) {
+        this(maxBytes);
+        FunctionCounter.builder("ai.chat.request.cache.requests", hits, AtomicLong::get).tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("ai.chat.request.cache.requests", misses, AtomicLong::get).tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("ai.chat.request.cache.bytes", this, ChatRequestWriter::bytes).baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    ChatRequestWriter(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * The body, written on subscription. {@code temperature} is left out when {@code null}.
+     */
+    public Mono<DataBuffer> body(String model, List<PromptMessage> messages, boolean stream, Double temperature) {
+        return Mono.fromSupplier(() -> write(model, messages, stream, temperature));
+    }
+
+    DataBuffer write(String model, List<PromptMessage> messages, boolean stream, Double temperature) {
+        int estimate = 128;
+        for (PromptMessage m : messages) estimate += 32 + m.content().length();
+        DataBuffer buffer = DefaultDataBufferFactory.sharedInstance.allocateBuffer(estimate);
+        try (OutputStream out = buffer.asOutputStream(); JsonGenerator g = JSON.createGenerator(out)) {
+            g.writeStartObject();
+            g.writeStringField("model", model);
+            g.writeArrayFieldStart("messages");
+            for (PromptMessage m : messages) {
+                g.writeStartObject();
+                g.writeStringField("role", m.role());
+                g.writeFieldName("content");
+                if (m.messageId() == null) {
+                    g.writeString(m.content());
+                } else {
+                    byte[] content = encoded(m);
+                    g.writeRawUTF8String(content, 0, content.length);
+                }
+                g.writeEndObject();
+            }
+            g.writeEndArray();
+            g.writeBooleanField("stream", stream);
+            if (temperature != null) g.writeNumberField("temperature", temperature);
+            g.writeEndObject();
+        } catch (IOException e) {
+            DataBufferUtils.release(buffer);
+            throw new UncheckedIOException("Failed to write chat request", e);
+        }
+        return buffer;
+    }
+
+    private byte[] encoded(PromptMessage m) {
+        synchronized (encoded) {
+            byte[] cached = encoded.get(m.messageId());
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+        misses.incrementAndGet();
+        byte[] bytes = JsonStringEncoder.getInstance().quoteAsUTF8(m.content());
+        long weight = bytes.length + ENTRY_OVERHEAD_BYTES;
+        if (weight > maxBytes) return bytes;
+        synchronized (encoded) {
+            byte[] previous = encoded.put(m.messageId(), bytes);
+            currentBytes += weight - (previous == null ? 0 : previous.length + ENTRY_OVERHEAD_BYTES);
+            Iterator<Map.Entry<Long, byte[]>> it = encoded.entrySet().iterator();
+            while (currentBytes > maxBytes && it.hasNext()) {
+                currentBytes -= it.next().getValue().length + ENTRY_OVERHEAD_BYTES;
+                it.remove();
+            }
+        }
+        return bytes;
+    }
+
+    long bytes() {
+        synchronized (encoded) {
+            return currentBytes;
+        }
+    }
+
+    long hitCount() {
+        return hits.get();
+    }
+}
@@ -0,0 +1,112 @@
+package com.ai_chatbot.aiclient;
+
+import com.ai_chatbot.entity.Conversation;
+import com.ai_chatbot.entity.Message;
+import com.ai_chatbot.util.TokenEstimator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Builds the {@code messages} array of a chat request within {@code ai.context.max-tokens}, counted with
+ * {@link TokenEstimator} plus {@code ai.context.message-overhead-tokens} per message:
+ * <ol>
+ *   <li>the new user message is always sent (once, even if the caller already appended it to the history);</li>
+ *   <li>the system prompt of the current turn (the last system message after the last assistant reply, i.e.
+ *   the RAG context) comes next, truncated to what is left; system messages of earlier turns are stale and
+ *   dropped;</li>
+ *   <li>if a {@link HistorySummaryCache} has a summary for the conversation and it fits, it replaces the
+ *   messages it covers;</li>
+ *   <li>the remaining budget is filled with the most recent user/assistant messages, whole messages only.</li>
+ * </ol>
+ */
+@Component
+public class ContextWindowBuilder {
+
+    static final String SUMMARY_PREFIX = "Summary of the earlier conversation:\n";
+
+    private final int maxTokens;
+    private final int messageOverhead;
+    private final ObjectProvider<HistorySummaryCache> summaries;
+
+    public ContextWindowBuilder(@Value("${ai.context.max-tokens:4096}") int maxTokens,
+                                @Value("${ai.context.message-overhead-tokens:4}") int messageOverhead,
+                                ObjectProvider<HistorySummaryCache> summaries) {
+        this.maxTokens = maxTokens;
+        this.messageOverhead = messageOverhead;
+        this.summaries = summaries;
+    }
+
+    /**
+     * The messages to send for {@code userMessage}, marking the persisted messages sent unchanged.
+     */
+    public List<PromptMessage> buildPrompt(Conversation conv, String userMessage) {
+        List<Message> history = conv.getMessages() == null ? List.of() : conv.getMessages();
+        int end = history.size();
+        if (end > 0 && "user".equals(history.get(end - 1).getRole())
+                && Objects.equals(history.get(end - 1).getContent(), userMessage)) {
+            end--;
+        }
+
+        int budget = maxTokens - cost(userMessage);
+        String system = null;
+        for (int i = end - 1; i >= 0; i--) {
+            String role = history.get(i).getRole();
+            if ("assistant".equals(role)) break;
+            if ("system".equals(role)) {
+                system = history.get(i).getContent();
+                break;
+            }
+        }
+        if (system != null) {
+            int room = budget - messageOverhead;
+            if (room <= 0) {
+                system = null;
+            } else {
+                system = system.substring(0, TokenEstimator.fitPrefix(system, room));
+                budget -= cost(system);
+            }
+        }
+
+        HistorySummary summary = null;
+        HistorySummaryCache cache = conv.getId() == null ? null : summaries.getIfAvailable();
+        if (cache != null) {
+            summary = cache.find(conv.getId()).orElse(null);
+            if (summary != null) {
+                int summaryCost = cost(SUMMARY_PREFIX) + TokenEstimator.estimate(summary.text());
+                if (summaryCost <= budget) budget -= summaryCost;
+                else summary = null;
+            }
+        }
+
+        Deque<Message> turns = new ArrayDeque<>();
+        for (int i = end - 1; i >= 0; i--) {
+            Message m = history.get(i);
+            if ("system".equals(m.getRole())) continue;
+            if (summary != null && m.getId() != null && m.getId() <= summary.throughMessageId()) break;
+            int c = cost(m.getContent());
+            if (c > budget) break;
+            budget -= c;
+            turns.addFirst(m);
+        }
+
+        List<PromptMessage> messages = new ArrayList<>(turns.size() + 3);
+        if (system != null) messages.add(PromptMessage.of("system", system));
+        if (summary != null) messages.add(PromptMessage.of("system", SUMMARY_PREFIX + summary.text()));
+        for (Message m : turns) {
+            messages.add(new PromptMessage(m.getId(), m.getRole(), m.getContent() == null ? "" : m.getContent()));
+        }
+        messages.add(PromptMessage.of("user", userMessage));
+        return messages;
+    }
+
+    private int cost(String content) {
+        return messageOverhead + TokenEstimator.estimate(content);
+    }
+}
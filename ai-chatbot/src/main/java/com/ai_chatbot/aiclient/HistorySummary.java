@@ -0,0 +1,7 @@
+package com.ai_chatbot.aiclient;
+
+/**
+ * Summary of a conversation's messages up to and including {@code throughMessageId}.
+ */
+public record HistorySummary(long throughMessageId, String text) {
+}
@@ -0,0 +1,12 @@
+package com.ai_chatbot.aiclient;
+
+import java.util.Optional;
+
+/**
+ * Source of already computed {@link HistorySummary summaries} for {@link ContextWindowBuilder}. Lookups must be
+ * cheap and non-blocking; a conversation without a ready summary simply gets none.
+ */
+public interface HistorySummaryCache {
+
+    Optional<HistorySummary> find(String conversationId);
+}
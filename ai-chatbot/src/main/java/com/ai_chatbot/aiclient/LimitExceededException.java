@@ -0,0 +1,22 @@
+package com.ai_chatbot.aiclient;
+
+import java.time.Duration;
+
+/**
+ * A model call was rejected because its backend is saturated: the wait queue was full or the call waited
+ * longer than allowed. Maps to {@code 429 Too Many Requests} with {@code Retry-After}, or to a {@code busy} event
+ * carrying the same delay on a stream that has already started.
+ */
+public class LimitExceededException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public LimitExceededException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
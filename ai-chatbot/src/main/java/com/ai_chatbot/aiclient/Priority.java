@@ -0,0 +1,25 @@
+package com.ai_chatbot.aiclient;
+
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * Scheduling class of a model call while it waits for a backend slot; lower ordinals are served first.
+ * Callers set it with {@code .contextWrite(Priority.BATCH.context())}; without it streams count as
+ * {@link #INTERACTIVE} and single answers as {@link #STANDARD}.
+ */
+public enum Priority {
+    INTERACTIVE,
+    STANDARD,
+    BATCH;
+
+    private static final String KEY = Priority.class.getName();
+
+    public Context context() {
+        return Context.of(KEY, this);
+    }
+
+    public static Priority from(ContextView context, Priority fallback) {
+        return context.getOrDefault(KEY, fallback);
+    }
+}
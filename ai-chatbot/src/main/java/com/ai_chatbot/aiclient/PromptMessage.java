@@ -0,0 +1,13 @@
+package com.ai_chatbot.aiclient;
+
+/**
+ * One entry of the {@code messages} array of a chat request. {@code messageId} is set when the entry is a
+ * persisted message sent unchanged; messages are never updated, so its encoded content can be reused
+ * ({@link ChatRequestWriter}).
+ */
+public record PromptMessage(Long messageId, String role, String content) {
+
+    public static PromptMessage of(String role, String content) {
+        return new PromptMessage(null, role, content == null ? "" : content);
+    }
+}
@@ -0,0 +1,21 @@
+package com.ai_chatbot.aiclient.implementation;
+
+import com.ai_chatbot.aiclient.AIClient;
+import com.ai_chatbot.aiclient.PromptMessage;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * {@link AIClient} of a single backend that can also send a prompt built beforehand, so that
+ * {@link RoutingAIClient} builds and coalesces the prompt once before choosing a backend.
+ */
+public interface BackendClient extends AIClient {
+
+    /** @param model the model, or {@code null} for the backend's default */
+    Mono<String> chat(String model, List<PromptMessage> messages);
+
+    /** @param model the model, or {@code null} for the backend's default */
+    Flux<String> streamChat(String model, List<PromptMessage> messages);
+}
@@ -0,0 +1,112 @@
+package com.ai_chatbot.aiclient.implementation;
+
+import com.ai_chatbot.config.RoutingProperties;
+import lombok.Getter;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One backend of a {@link RoutingAIClient} with its load and health state: requests in flight, a latency
+ * EWMA decaying over wall-clock time, the active health check result and passive outlier ejection.
+ */
+public class BackendEndpoint {
+
+    @Getter
+    private final String name;
+    @Getter
+    private final BackendClient client;
+    @Getter
+    private final Mono<?> healthProbe;
+    private final Set<String> models;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private int consecutiveFailures;
+    private double ewmaNanos;
+    private long ewmaUpdatedAt;
+    private boolean hasLatency;
+    private int ejections;
+    private volatile boolean ejected;
+    private volatile long ejectedUntil;
+    private volatile boolean healthy = true;
+
+    /**
+     * @param healthProbe request that completes normally when the backend is up
+     */
+    public BackendEndpoint(String name, BackendClient client, Mono<?> healthProbe, Set<String> models) {
+        this.name = name;
+        this.client = client;
+        this.healthProbe = healthProbe;
+        this.models = models;
+    }
+
+    public boolean serves(String model) {
+        return model == null || models.isEmpty() || models.contains(model);
+    }
+
+    /** Healthy and not ejected; an ejected backend gets traffic again once its ejection time has passed. */
+    public boolean isAvailable(long nowNanos) {
+        return healthy && (!ejected || nowNanos - ejectedUntil >= 0);
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    void setHealthy(boolean healthy) {
+        this.healthy = healthy;
+    }
+
+    public int outstanding() {
+        return outstanding.get();
+    }
+
+    void acquire() {
+        outstanding.incrementAndGet();
+    }
+
+    void release() {
+        outstanding.decrementAndGet();
+    }
+
+    public synchronized double ewmaMillis() {
+        return ewmaNanos / 1e6;
+    }
+
+    /**
+     * Load used to compare backends: requests in flight, or for {@code EWMA} the latency EWMA scaled by the
+     * requests in flight (plus one), so a fast but busy backend is not piled on.
+     */
+    synchronized double load(RoutingProperties.Strategy strategy) {
+        int inFlight = outstanding.get();
+        return strategy == RoutingProperties.Strategy.EWMA ? ewmaNanos * (inFlight + 1) : inFlight;
+    }
+
+    synchronized void recordLatency(long latencyNanos, long nowNanos, long decayNanos) {
+        if (!hasLatency) {
+            ewmaNanos = latencyNanos;
+            hasLatency = true;
+        } else {
+            double w = Math.exp(-(double) Math.max(0, nowNanos - ewmaUpdatedAt) / decayNanos);
+            ewmaNanos = ewmaNanos * w + latencyNanos * (1 - w);
+        }
+        ewmaUpdatedAt = nowNanos;
+    }
+
+    synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        ejections = 0;
+    }
+
+    /** Returns whether this failure ejected the backend. */
+    synchronized boolean recordFailure(long nowNanos, RoutingProperties.Ejection ejection) {
+        if (++consecutiveFailures < ejection.consecutiveFailures()) return false;
+        consecutiveFailures = 0;
+        ejections++;
+        long duration = Math.min(ejection.baseTime().toNanos() * ejections, ejection.maxTime().toNanos());
+        ejectedUntil = nowNanos + duration;
+        ejected = true;
+        return true;
+    }
+}
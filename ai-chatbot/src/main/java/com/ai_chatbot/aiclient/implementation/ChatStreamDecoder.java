@@ -0,0 +1,253 @@
+package com.ai_chatbot.aiclient.implementation;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Incremental decoder for streamed chat responses, fed the raw {@link DataBuffer}s of the response body. It
+ * splits them into lines (a line may span buffers) and feeds each line to one non-blocking Jackson parser kept
+ * for the whole stream, which picks out only the content delta, the done flag and the token counts and skips
+ * everything else without building a tree. Understands two formats:
+ * <ul>
+ *   <li>{@link Format#NDJSON}, Ollama {@code /api/chat}: {@code message.content}, {@code done},
+ *   {@code prompt_eval_count} and {@code eval_count}.</li>
+ *   <li>{@link Format#SSE}, OpenAI {@code /chat/completions}: {@code data:} lines with
+ *   {@code choices[].delta.content} and {@code usage}, ending with {@code data: [DONE]}.</li>
+ * </ul>
+ * Lines that are not valid JSON are skipped. One instance decodes one stream and is not thread-safe.
+ */
+@Slf4j
+public final class ChatStreamDecoder {
+
+    public enum Format { NDJSON, SSE }
+
+    /**
+     * One decoded line: the content delta ({@code null} when the line has none), whether the generation is
+     * finished and the token counts reported with it ({@code -1} when absent).
+     */
+    public record Chunk(String content, boolean done, int promptTokens, int completionTokens) {
+    }
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final byte[] DATA = {'d', 'a', 't', 'a', ':'};
+    private static final byte[] DONE_MARKER = {'[', 'D', 'O', 'N', 'E', ']'};
+    private static final int MAX_LINE_BYTES = 1 << 20;
+
+    private final Format format;
+    private byte[] line = new byte[512];
+    private int length;
+    private JsonParser parser;
+
+    public ChatStreamDecoder(Format format) {
+        this.format = format;
+    }
+
+    /**
+     * Decodes {@code body}, releasing its buffers, and completes after the chunk that finishes the generation.
+     */
+    public static Flux<Chunk> decode(Flux<DataBuffer> body, Format format) {
+        return Flux.defer(() -> {
+            ChatStreamDecoder decoder = new ChatStreamDecoder(format);
+            return body.concatMapIterable(decoder::feed)
+                    .concatWith(Flux.defer(() -> Flux.fromIterable(decoder.finish())))
+                    .takeUntil(Chunk::done);
+        });
+    }
+
+    /**
+     * The non-empty content deltas of {@code body}.
+     */
+    public static Flux<String> contents(Flux<DataBuffer> body, Format format) {
+        return decode(body, format)
+                .doOnNext(chunk -> {
+                    if (chunk.done() || chunk.completionTokens() >= 0) {
+                        log.debug("Stream reported {} prompt and {} completion tokens",
+                                chunk.promptTokens(), chunk.completionTokens());
+                    }
+                })
+                .mapNotNull(Chunk::content)
+                .filter(content -> !content.isEmpty());
+    }
+
+    /**
+     * The chunks of the lines completed by {@code buffer}, which is released.
+     */
+    public List<Chunk> feed(DataBuffer buffer) {
+        List<Chunk> chunks = List.of();
+        try {
+            int readable = buffer.readableByteCount();
+            ensureCapacity(length + readable);
+            buffer.read(line, length, readable);
+            int start = 0;
+            int end = length + readable;
+            for (int i = length; i < end; i++) {
+                if (line[i] != '\n') continue;
+                Chunk chunk = decodeLine(start, i);
+                if (chunk != null) {
+                    if (chunks.isEmpty()) chunks = new ArrayList<>(2);
+                    chunks.add(chunk);
+                }
+                start = i + 1;
+            }
+            length = end - start;
+            if (start > 0 && length > 0) System.arraycopy(line, start, line, 0, length);
+            return chunks;
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    /**
+     * The chunk of a last line without a trailing newline, if any.
+     */
+    public List<Chunk> finish() {
+        Chunk chunk = length == 0 ? null : decodeLine(0, length);
+        length = 0;
+        return chunk == null ? List.of() : List.of(chunk);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= line.length) return;
+        if (capacity > MAX_LINE_BYTES) {
+            throw new IllegalStateException("Streamed line longer than " + MAX_LINE_BYTES + " bytes");
+        }
+        line = Arrays.copyOf(line, Math.min(MAX_LINE_BYTES, Math.max(capacity, line.length * 2)));
+    }
+
+    // decodes line[start, end), without the '\n'
+    private Chunk decodeLine(int start, int end) {
+        if (end > start && line[end - 1] == '\r') end--;
+        while (start < end && line[start] == ' ') start++;
+        if (start == end) return null;
+        if (format == Format.SSE) {
+            if (!startsWith(start, end, DATA)) return null; // event:, id:, comments
+            start += DATA.length;
+            while (start < end && line[start] == ' ') start++;
+            if (startsWith(start, end, DONE_MARKER)) return new Chunk(null, true, -1, -1);
+        }
+        try {
+            if (parser == null) parser = JSON.createNonBlockingByteArrayParser();
+            ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).feedInput(line, start, end);
+            Chunk chunk = null;
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                chunk = format == Format.NDJSON ? readOllama(parser) : readOpenAi(parser);
+            } else {
+                parser.skipChildren();
+            }
+            // the line must be used up before the buffer is refilled
+            while (parser.nextToken() != JsonToken.NOT_AVAILABLE) parser.skipChildren();
+            return chunk;
+        } catch (JsonProcessingException e) {
+            // a malformed or truncated line leaves the parser in an unknown state
+            parser = null;
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean startsWith(int start, int end, byte[] prefix) {
+        if (end - start < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (line[start + i] != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    // {"model":"..","message":{"role":"assistant","content":".."},"done":false}; the last line adds the counts
+    private static Chunk readOllama(JsonParser parser) throws IOException {
+        String content = null;
+        boolean done = false;
+        int promptTokens = -1;
+        int completionTokens = -1;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "message" -> {
+                    if (value != JsonToken.START_OBJECT) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String inner = parser.currentName();
+                        JsonToken innerValue = parser.nextToken();
+                        if ("content".equals(inner) && innerValue == JsonToken.VALUE_STRING) content = parser.getText();
+                        else parser.skipChildren();
+                    }
+                }
+                case "done" -> done = value == JsonToken.VALUE_TRUE;
+                case "prompt_eval_count" -> promptTokens = intValue(parser, value);
+                case "eval_count" -> completionTokens = intValue(parser, value);
+                default -> parser.skipChildren();
+            }
+        }
+        return new Chunk(content, done, promptTokens, completionTokens);
+    }
+
+    // {"choices":[{"index":0,"delta":{"content":".."},"finish_reason":null}],"usage":{..}}
+    private static Chunk readOpenAi(JsonParser parser) throws IOException {
+        String content = null;
+        int promptTokens = -1;
+        int completionTokens = -1;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("choices".equals(field) && value == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String choiceField = parser.currentName();
+                        JsonToken choiceValue = parser.nextToken();
+                        if ("delta".equals(choiceField) && choiceValue == JsonToken.START_OBJECT) {
+                            String delta = readDeltaContent(parser);
+                            if (delta != null) content = content == null ? delta : content + delta;
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+            } else if ("usage".equals(field) && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String usageField = parser.currentName();
+                    JsonToken usageValue = parser.nextToken();
+                    if ("prompt_tokens".equals(usageField)) promptTokens = intValue(parser, usageValue);
+                    else if ("completion_tokens".equals(usageField)) completionTokens = intValue(parser, usageValue);
+                    else parser.skipChildren();
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new Chunk(content, false, promptTokens, completionTokens);
+    }
+
+    private static String readDeltaContent(JsonParser parser) throws IOException {
+        String content = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("content".equals(field) && value == JsonToken.VALUE_STRING) content = parser.getText();
+            else parser.skipChildren();
+        }
+        return content;
+    }
+
+    private static int intValue(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT) return parser.getIntValue();
+        parser.skipChildren();
+        return -1;
+    }
+}
@@ -0,0 +1,243 @@
+package com.ai_chatbot.aiclient.implementation;
+
+import com.ai_chatbot.aiclient.LimitExceededException;
+import com.ai_chatbot.aiclient.Priority;
+import com.ai_chatbot.config.RoutingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Adaptive concurrency limit for one backend ({@link RoutingProperties.Limiter}). {@link #acquire} hands out a
+ * {@link Permit} immediately while fewer than {@code limit} calls are in flight; otherwise the caller waits in a
+ * queue ordered by {@link Priority}, then arrival. A full queue turns away the newcomer, or the
+ * lowest-priority waiter if the newcomer outranks it; a waiter that is not served within {@code maxWait} is
+ * rejected. Rejections are {@link LimitExceededException}s.
+ * <p>
+ * Meters, tagged with the backend: {@code ai.limiter.limit}, {@code ai.limiter.inflight},
+ * {@code ai.limiter.queue}, {@code ai.limiter.wait} and {@code ai.limiter.rejected} ({@code reason=queue-full|timeout}).
+ */
+public class ConcurrencyLimiter {
+
+    private final RoutingProperties.Limiter config;
+    private final Scheduler timer;
+    private final Timer waitTimer;
+    private final Counter rejectedFull;
+    private final Counter rejectedTimeout;
+
+    private final PriorityQueue<Waiter> queue = new PriorityQueue<>(
+            Comparator.comparing((Waiter w) -> w.priority).thenComparingLong(w -> w.seq));
+    private double limit;
+    private int inFlight;
+    private long seq;
+    private double longRttNanos;
+
+    public ConcurrencyLimiter(String backend, RoutingProperties.Limiter config, MeterRegistry meterRegistry) {
+        this(backend, config, meterRegistry, Schedulers.parallel());
+    }
+
+    ConcurrencyLimiter(String backend, RoutingProperties.Limiter config, MeterRegistry meterRegistry, Scheduler timer) {
+        this.config = config;
+        this.timer = timer;
+        this.limit = config.initialLimit();
+        Gauge.builder("ai.limiter.limit", this, ConcurrencyLimiter::limit).tag("backend", backend).register(meterRegistry);
+        Gauge.builder("ai.limiter.inflight", this, ConcurrencyLimiter::inFlight).tag("backend", backend).register(meterRegistry);
+        Gauge.builder("ai.limiter.queue", this, ConcurrencyLimiter::queued).tag("backend", backend).register(meterRegistry);
+        this.waitTimer = Timer.builder("ai.limiter.wait").tag("backend", backend)
+                .description("Time model calls wait for a backend slot")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejectedFull = Counter.builder("ai.limiter.rejected").tag("backend", backend).tag("reason", "queue-full")
+                .register(meterRegistry);
+        this.rejectedTimeout = Counter.builder("ai.limiter.rejected").tag("backend", backend).tag("reason", "timeout")
+                .register(meterRegistry);
+    }
+
+    public Mono<Permit> acquire(Priority priority) {
+        return Mono.create(sink -> {
+            long start = System.nanoTime();
+            Waiter evicted = null;
+            Waiter waiter;
+            synchronized (this) {
+                if (inFlight < (int) limit && queue.isEmpty()) {
+                    inFlight++;
+                    waitTimer.record(0, TimeUnit.NANOSECONDS);
+                    sink.success(new Permit());
+                    return;
+                }
+                if (queue.size() >= config.maxQueue()) {
+                    Waiter worst = worst();
+                    if (worst == null || worst.priority.compareTo(priority) <= 0) {
+                        rejectedFull.increment();
+                        sink.error(rejection("queue full"));
+                        return;
+                    }
+                    queue.remove(worst);
+                    evicted = worst;
+                }
+                waiter = new Waiter(priority, seq++, start, sink);
+                queue.add(waiter);
+            }
+            if (evicted != null) {
+                evicted.cancelTimeout();
+                rejectedFull.increment();
+                evicted.sink.error(rejection("queue full"));
+            }
+            waiter.timeout = timer.schedule(() -> expire(waiter), config.maxWait().toMillis(), TimeUnit.MILLISECONDS);
+            sink.onCancel(() -> {
+                Permit unused;
+                synchronized (this) {
+                    unused = queue.remove(waiter) ? null : waiter.permit;
+                }
+                waiter.cancelTimeout();
+                // granted concurrently with the cancellation: nobody will use the slot
+                if (unused != null) unused.ignore();
+            });
+        });
+    }
+
+    private void expire(Waiter waiter) {
+        synchronized (this) {
+            if (!queue.remove(waiter)) return;
+        }
+        rejectedTimeout.increment();
+        waiter.sink.error(rejection("waited " + config.maxWait().toMillis() + " ms"));
+    }
+
+    private LimitExceededException rejection(String reason) {
+        return new LimitExceededException("Model backend saturated: " + reason, config.retryAfter());
+    }
+
+    // caller holds the lock
+    private Waiter worst() {
+        Waiter worst = null;
+        for (Waiter w : queue) {
+            if (worst == null || w.priority.compareTo(worst.priority) > 0
+                    || (w.priority == worst.priority && w.seq > worst.seq)) {
+                worst = w;
+            }
+        }
+        return worst;
+    }
+
+    private void release(Long latencyNanos, boolean dropped) {
+        List<Waiter> granted = new ArrayList<>(1);
+        synchronized (this) {
+            if (latencyNanos != null || dropped) adjust(latencyNanos, dropped);
+            inFlight--;
+            while (inFlight < (int) limit && !queue.isEmpty()) {
+                Waiter next = queue.poll();
+                next.permit = new Permit();
+                inFlight++;
+                granted.add(next);
+            }
+        }
+        long now = System.nanoTime();
+        for (Waiter w : granted) {
+            w.cancelTimeout();
+            waitTimer.record(now - w.enqueuedAt, TimeUnit.NANOSECONDS);
+            w.sink.success(w.permit);
+        }
+    }
+
+    // caller holds the lock
+    private void adjust(Long latencyNanos, boolean dropped) {
+        switch (config.algorithm()) {
+            case FIXED -> {
+            }
+            case AIMD -> {
+                if (dropped || latencyNanos > config.latencyThreshold().toNanos()) {
+                    limit = limit * config.backoffRatio();
+                } else if (inFlight * 2 >= limit) {
+                    limit = limit + 1;
+                }
+            }
+            case GRADIENT -> {
+                if (dropped) {
+                    limit = limit * config.backoffRatio();
+                } else {
+                    longRttNanos = longRttNanos == 0 ? latencyNanos : longRttNanos * 0.99 + latencyNanos * 0.01;
+                    // recover quickly once latency drops well below the long-term average
+                    if (longRttNanos / latencyNanos > 2) longRttNanos *= 0.95;
+                    double gradient = Math.max(0.5, Math.min(1.0, longRttNanos / latencyNanos));
+                    double target = limit * gradient + Math.sqrt(limit);
+                    // an app-limited backend says nothing about what it could take
+                    if (target <= limit || inFlight * 2 >= limit) {
+                        limit = limit * (1 - config.smoothing()) + target * config.smoothing();
+                    }
+                }
+            }
+        }
+        limit = Math.max(config.minLimit(), Math.min(config.maxLimit(), limit));
+    }
+
+    public synchronized double limit() {
+        return limit;
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    public synchronized int queued() {
+        return queue.size();
+    }
+
+    /**
+     * A slot on the backend; release it exactly once with the outcome of the call. Only the first call has an
+     * effect.
+     */
+    public final class Permit {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        /** The call succeeded; {@code latencyNanos} feeds the limit. */
+        public void success(long latencyNanos) {
+            if (released.compareAndSet(false, true)) release(latencyNanos, false);
+        }
+
+        /** The call failed or timed out at the backend; the limit backs off. */
+        public void dropped() {
+            if (released.compareAndSet(false, true)) release(null, true);
+        }
+
+        /** The call ended without telling anything about the backend, e.g. the client cancelled it. */
+        public void ignore() {
+            if (released.compareAndSet(false, true)) release(null, false);
+        }
+    }
+
+    private static final class Waiter {
+        final Priority priority;
+        final long seq;
+        final long enqueuedAt;
+        final MonoSink<Permit> sink;
+        volatile Disposable timeout;
+        Permit permit; // guarded by the limiter's lock
+
+        Waiter(Priority priority, long seq, long enqueuedAt, MonoSink<Permit> sink) {
+            this.priority = priority;
+            this.seq = seq;
+            this.enqueuedAt = enqueuedAt;
+            this.sink = sink;
+        }
+
+        void cancelTimeout() {
+            Disposable t = timeout;
+            if (t != null) t.dispose();
+        }
+    }
+}
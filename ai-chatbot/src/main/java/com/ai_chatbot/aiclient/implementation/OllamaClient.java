@@ -2,35 +2,46 @@
 package com.ai_chatbot.aiclient.implementation;
 
 import com.ai_chatbot.aiclient.AIClient;
+import com.ai_chatbot.aiclient.ChatRequestWriter;
+import com.ai_chatbot.aiclient.ContextWindowBuilder;
+import com.ai_chatbot.aiclient.PromptMessage;
 import com.ai_chatbot.entity.ChatMessage;
 import com.ai_chatbot.entity.Conversation;
-import com.ai_chatbot.entity.Message;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.MediaType;
-import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
-@Component
-@RequiredArgsConstructor
-public class OllamaClient implements AIClient {
+/**
+ * {@link AIClient} for one Ollama host ({@code /api/chat}). Instances are created per backend by
+ * {@link com.ai_chatbot.config.RoutingConfig} and used through {@link RoutingAIClient}.
+ */
+public class OllamaClient implements BackendClient {
 
-    private final WebClient webClient;
-    @Value("${ai.provider.chat-model}")
-    private String defaultModel;
+    private final WebClient chatClient;
+    private final WebClient streamClient;
+    private final ContextWindowBuilder contextWindow;
+    private final ChatRequestWriter requestWriter;
+    private final String defaultModel;
 
     private final ObjectMapper mapper = new ObjectMapper();
 
+    public OllamaClient(WebClient chatClient, WebClient streamClient, ContextWindowBuilder contextWindow,
+                        ChatRequestWriter requestWriter, String defaultModel) {
+        this.chatClient = chatClient;
+        this.streamClient = streamClient;
+        this.contextWindow = contextWindow;
+        this.requestWriter = requestWriter;
+        this.defaultModel = defaultModel;
+    }
+
     @Override
     public Flux<String> streamChat(List<ChatMessage> messageList) {
         Map<String, Object> body = Map.of(
@@ -40,41 +51,29 @@ public class OllamaClient implements AIClient {
                         .map(m -> Map.of("role", m.getRole(), "content", m.getContent()))
                         .collect(Collectors.toList())
         );
-        return webClient.post()
+        return streamClient.post()
                 .uri("/api/chat")
                 .contentType(MediaType.APPLICATION_JSON)
                 .bodyValue(body)
                 .retrieve()
-                .bodyToFlux(String.class)
-                .flatMap(this::parseStreamLine);
+                .bodyToFlux(DataBuffer.class)
+                .as(chunks -> ChatStreamDecoder.contents(chunks, ChatStreamDecoder.Format.NDJSON));
     }
 
     // sync chat
     @Override
     public Mono<String> chat(Conversation conv, String userMessage, String model, boolean useRag) {
+        return chat(model, contextWindow.buildPrompt(conv, userMessage));
+    }
 
-        List<Map<String, String>> messages = new ArrayList<>();
-
-        for (var m : conv.getMessages()) {
-            messages.add(Map.of(
-                    "role", m.getRole(),
-                    "content", m.getContent()
-            ));
-        }
-        messages.add(Map.of(
-                "role", "user",
-                "content", userMessage
-        ));
-
-        Map<String, Object> body = new HashMap<>();
-        body.put("model", model != null ? model : defaultModel);
-        body.put("messages", messages);
-        body.put("stream", false);
+    @Override
+    public Mono<String> chat(String model, List<PromptMessage> messages) {
+        String resolvedModel = model != null ? model : defaultModel;
 
-        return webClient.post()
+        return chatClient.post()
                 .uri("/api/chat")
                 .contentType(MediaType.APPLICATION_JSON)
-                .bodyValue(body)
+                .body(requestWriter.body(resolvedModel, messages, false, null), DataBuffer.class)
                 .retrieve()
                 .onStatus(status -> !status.is2xxSuccessful(),
                         resp -> resp.bodyToMono(String.class)
@@ -109,57 +108,19 @@ public class OllamaClient implements AIClient {
     // streaming chat
     @Override
     public Flux<String> streamChat(Conversation conv, String userMessage, String model) {
-        List<Map<String, String>> messages = conv.getMessages().stream()
-                .map(m -> Map.of(
-                        "role", m.getRole(),
-                        "content", m.getContent()
-                ))
-                .toList();
-        List<Map<String, String>> mutableList = new ArrayList<>(messages);
-        mutableList.add(Map.of("role", "user", "content", userMessage));
+        return streamChat(model, contextWindow.buildPrompt(conv, userMessage));
+    }
 
-        Map<String, Object> body = Map.of(
-                "model", model != null ? model : defaultModel,
-                "messages", mutableList,
-                "stream", true
-        );
+    @Override
+    public Flux<String> streamChat(String model, List<PromptMessage> messages) {
+        String resolvedModel = model != null ? model : defaultModel;
 
-        return webClient.post()
+        return streamClient.post()
                 .uri("/api/chat")
-                .bodyValue(body)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(requestWriter.body(resolvedModel, messages, true, null), DataBuffer.class)
                 .retrieve()
-                .bodyToFlux(JsonNode.class)
-                .map(json -> json.path("message").path("content").asText())
-                .filter(text -> !text.isBlank());
-    }
-
-    // crude parser for provider stream format
-    private Flux<String> parseStreamLine(String line) {
-        if (line == null || line.isBlank()) return Flux.empty();
-        return Flux.fromArray(line.split("\\r?\\n"))
-                .map(String::trim)
-                .filter(l -> l.startsWith("data:"))
-                .map(l -> l.substring("data:".length()).trim())
-                .takeUntil(s -> s.equals("[DONE]"))
-                .flatMap(s -> {
-                    if (s.equals("[DONE]")) return Flux.empty();
-                    try {
-                        JsonNode json = mapper.readTree(s);
-                        JsonNode choices = json.get("choices");
-                        StringBuilder out = new StringBuilder();
-                        if (choices != null && choices.isArray()) {
-                            for (JsonNode choice : choices) {
-                                JsonNode delta = choice.get("delta");
-                                if (delta != null && delta.has("content")) {
-                                    out.append(delta.get("content").asText());
-                                }
-                            }
-                        }
-                        if (!out.isEmpty()) return Flux.just(out.toString());
-                    } catch (Exception e) {
-                        // ignore parse issues
-                    }
-                    return Flux.empty();
-                });
+                .bodyToFlux(DataBuffer.class)
+                .as(chunks -> ChatStreamDecoder.contents(chunks, ChatStreamDecoder.Format.NDJSON));
     }
 }
@@ -3,12 +3,14 @@ package com.ai_chatbot.aiclient.implementation;
 import com.ai_chatbot.entity.ChatMessage;
 import com.ai_chatbot.entity.Conversation;
 import com.ai_chatbot.aiclient.AIClient;
+import com.ai_chatbot.aiclient.ChatRequestWriter;
+import com.ai_chatbot.aiclient.ContextWindowBuilder;
+import com.ai_chatbot.aiclient.PromptMessage;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.MediaType;
-import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -16,37 +18,49 @@ import reactor.core.publisher.Mono;
 import java.util.*;
 import java.util.stream.Collectors;
 
-@Component
-public class OpenAIClient implements AIClient {
+/**
+ * {@link AIClient} for one OpenAI-compatible server ({@code /chat/completions}). Instances are created per
+ * backend by {@link com.ai_chatbot.config.RoutingConfig} and used through {@link RoutingAIClient}.
+ */
+public class OpenAIClient implements BackendClient {
 
-    private final WebClient webClient;
+    private final WebClient chatClient;
+    private final WebClient streamClient;
     private final String apiKey;
+    private final ContextWindowBuilder contextWindow;
+    private final ChatRequestWriter requestWriter;
+    private final String defaultModel;
 
     private final ObjectMapper mapper = new ObjectMapper();
 
-    public OpenAIClient(WebClient webClient, @Value("${ai.provider.api-key}") String apiKey) {
-        this.webClient = webClient;
+    public OpenAIClient(WebClient chatClient, WebClient streamClient, String apiKey, ContextWindowBuilder contextWindow,
+                        ChatRequestWriter requestWriter, String defaultModel) {
+        this.chatClient = chatClient;
+        this.streamClient = streamClient;
         this.apiKey = apiKey;
+        this.contextWindow = contextWindow;
+        this.requestWriter = requestWriter;
+        this.defaultModel = defaultModel;
     }
 
     // Implement AIClient's existing streamChat for List<ChatMessage>
     @Override
     public Flux<String> streamChat(List<ChatMessage> messageList) {
         Map<String, Object> body = Map.of(
-                "model", "gpt-4o-mini",
+                "model", defaultModel,
                 "stream", true,
                 "messages", messageList.stream()
                         .map(m -> Map.of("role", m.getRole(), "content", m.getContent()))
                         .collect(Collectors.toList())
         );
-        return webClient.post()
+        return streamClient.post()
                 .uri("/chat/completions")
                 .headers(h -> h.setBearerAuth(apiKey))
                 .contentType(MediaType.APPLICATION_JSON)
                 .bodyValue(body)
                 .retrieve()
-                .bodyToFlux(String.class)
-                .flatMap(this::parseStreamLine);
+                .bodyToFlux(DataBuffer.class)
+                .as(chunks -> ChatStreamDecoder.contents(chunks, ChatStreamDecoder.Format.SSE));
     }
 
     // sync chat
@@ -57,20 +71,18 @@ public class OpenAIClient implements AIClient {
             // no-op; conversation already built by caller when RAG was used or not
         }
 
-        List<Map<String, String>> messages = conv.getMessages().stream()
-                .map(m -> Map.of("role", m.getRole(), "content", m.getContent()))
-                .collect(Collectors.toList());
-        messages.add(Map.of("role", "user", "content", userMessage));
+        return chat(model, contextWindow.buildPrompt(conv, userMessage));
+    }
 
-        Map<String, Object> body = new HashMap<>();
-        body.put("model", model);
-        body.put("messages", messages);
-        body.put("temperature", 0.2);
+    @Override
+    public Mono<String> chat(String model, List<PromptMessage> messages) {
+        String resolvedModel = model != null ? model : defaultModel;
 
-        return webClient.post()
+        return chatClient.post()
                 .uri("/chat/completions")
                 .headers(h -> h.setBearerAuth(apiKey))
-                .bodyValue(body)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(requestWriter.body(resolvedModel, messages, false, 0.2), DataBuffer.class)
                 .retrieve()
                 .bodyToMono(JsonNode.class)
                 .map(json -> {
@@ -95,53 +107,20 @@ public class OpenAIClient implements AIClient {
     // streaming chat
     @Override
     public Flux<String> streamChat(Conversation conv, String userMessage, String model) {
-        List<Map<String, String>> messages = conv.getMessages().stream()
-                .map(m -> Map.of("role", m.getRole(), "content", m.getContent()))
-                .collect(Collectors.toList());
-        messages.add(Map.of("role", "user", "content", userMessage));
+        return streamChat(model, contextWindow.buildPrompt(conv, userMessage));
+    }
 
-        Map<String, Object> body = new HashMap<>();
-        body.put("model", model);
-        body.put("messages", messages);
-        body.put("stream", true);
+    @Override
+    public Flux<String> streamChat(String model, List<PromptMessage> messages) {
+        String resolvedModel = model != null ? model : defaultModel;
 
-        return webClient.post()
+        return streamClient.post()
                 .uri("/chat/completions")
                 .headers(h -> h.setBearerAuth(apiKey))
                 .contentType(MediaType.APPLICATION_JSON)
-                .bodyValue(body)
+                .body(requestWriter.body(resolvedModel, messages, true, null), DataBuffer.class)
                 .retrieve()
-                .bodyToFlux(String.class)
-                .flatMap(this::parseStreamLine);
-    }
-
-    // crude parser for provider stream format
-    private Flux<String> parseStreamLine(String line) {
-        if (line == null || line.isBlank()) return Flux.empty();
-        return Flux.fromArray(line.split("\\r?\\n"))
-                .map(String::trim)
-                .filter(l -> l.startsWith("data:"))
-                .map(l -> l.substring("data:".length()).trim())
-                .takeUntil(s -> s.equals("[DONE]"))
-                .flatMap(s -> {
-                    if (s.equals("[DONE]")) return Flux.empty();
-                    try {
-                        JsonNode json = mapper.readTree(s);
-                        JsonNode choices = json.get("choices");
-                        StringBuilder out = new StringBuilder();
-                        if (choices != null && choices.isArray()) {
-                            for (JsonNode choice : choices) {
-                                JsonNode delta = choice.get("delta");
-                                if (delta != null && delta.has("content")) {
-                                    out.append(delta.get("content").asText());
-                                }
-                            }
-                        }
-                        if (!out.isEmpty()) return Flux.just(out.toString());
-                    } catch (Exception e) {
-                        // ignore parse issues
-                    }
-                    return Flux.empty();
-                });
+                .bodyToFlux(DataBuffer.class)
+                .as(chunks -> ChatStreamDecoder.contents(chunks, ChatStreamDecoder.Format.SSE));
     }
 }
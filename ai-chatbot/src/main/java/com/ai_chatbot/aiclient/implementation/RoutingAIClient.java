@@ -0,0 +1,222 @@
+package com.ai_chatbot.aiclient.implementation;
+
+import com.ai_chatbot.aiclient.AIClient;
+import com.ai_chatbot.aiclient.ChatCoalescer;
+import com.ai_chatbot.aiclient.ContextWindowBuilder;
+import com.ai_chatbot.aiclient.Priority;
+import com.ai_chatbot.aiclient.PromptMessage;
+import com.ai_chatbot.config.RoutingProperties;
+import com.ai_chatbot.entity.ChatMessage;
+import com.ai_chatbot.entity.Conversation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * {@link AIClient} spreading requests over a pool of {@link BackendEndpoint backends} (Ollama hosts and
+ * OpenAI-compatible servers).
+ * <p>
+ * For each request the candidates are the backends serving the requested model that are healthy and not
+ * ejected; two of them are drawn at random and the one with the lower load wins ("power of two choices"),
+ * load being requests in flight or, with {@code ai.routing.strategy=ewma}, the latency EWMA weighted by them.
+ * Latency is time to the answer for {@code chat} and to the first chunk for streams. If every backend for the
+ * model is down, requests still go to one of them rather than failing outright.
+ * <p>
+ * The prompt is built once with {@link ContextWindowBuilder} and identical concurrent requests are joined by
+ * {@link ChatCoalescer} before any of this, so a burst of one question is routed, admitted and measured once.
+ * <p>
+ * Each backend has a {@link ConcurrencyLimiter}; a call holds one of its slots until the answer or the stream
+ * is complete and queues by {@link Priority} while none is free. Queued calls count as in flight for routing,
+ * so a backend with a queue is avoided while another has room.
+ * <p>
+ * Health: every backend is probed each {@code ai.routing.health-check-interval}; independently, a backend
+ * whose requests fail {@code ai.routing.ejection.consecutive-failures} times in a row is ejected for a growing
+ * period. Meters per backend: {@code ai.backend.outstanding}, {@code ai.backend.latency.ewma},
+ * {@code ai.backend.available}, {@code ai.backend.requests} and {@code ai.backend.ejections}.
+ */
+@Slf4j
+public class RoutingAIClient implements AIClient {
+
+    private final List<BackendEndpoint> backends;
+    private final RoutingProperties properties;
+    private final ContextWindowBuilder contextWindow;
+    private final ChatCoalescer coalescer;
+    private final long decayNanos;
+    private final Map<BackendEndpoint, Counter> ejections;
+    private final Map<BackendEndpoint, Counter> requests;
+    private final Map<BackendEndpoint, ConcurrencyLimiter> limiters;
+    private Disposable healthChecks;
+
+    public RoutingAIClient(List<BackendEndpoint> backends, RoutingProperties properties,
+                           ContextWindowBuilder contextWindow, ChatCoalescer coalescer, MeterRegistry meterRegistry) {
+        if (backends.isEmpty()) throw new IllegalArgumentException("At least one backend is required");
+        this.backends = List.copyOf(backends);
+        this.properties = properties;
+        this.contextWindow = contextWindow;
+        this.coalescer = coalescer;
+        this.decayNanos = properties.ewmaDecay().toNanos();
+        for (BackendEndpoint b : backends) {
+            Gauge.builder("ai.backend.outstanding", b, BackendEndpoint::outstanding).tag("backend", b.getName())
+                    .register(meterRegistry);
+            Gauge.builder("ai.backend.latency.ewma", b, BackendEndpoint::ewmaMillis).tag("backend", b.getName())
+                    .baseUnit("milliseconds").register(meterRegistry);
+            Gauge.builder("ai.backend.available", b, e -> e.isAvailable(System.nanoTime()) ? 1 : 0)
+                    .tag("backend", b.getName()).register(meterRegistry);
+        }
+        this.ejections = backends.stream().collect(Collectors.toMap(Function.identity(),
+                b -> Counter.builder("ai.backend.ejections").tag("backend", b.getName()).register(meterRegistry)));
+        this.requests = backends.stream().collect(Collectors.toMap(Function.identity(),
+                b -> Counter.builder("ai.backend.requests").tag("backend", b.getName()).register(meterRegistry)));
+        this.limiters = backends.stream().collect(Collectors.toMap(Function.identity(),
+                b -> new ConcurrencyLimiter(b.getName(), properties.limiter(), meterRegistry)));
+    }
+
+    @PostConstruct
+    void startHealthChecks() {
+        healthChecks = Flux.interval(properties.healthCheckInterval(), Schedulers.parallel())
+                .onBackpressureDrop()
+                .concatMap(tick -> Flux.fromIterable(backends).flatMap(this::probe))
+                .subscribe();
+    }
+
+    @PreDestroy
+    void stopHealthChecks() {
+        if (healthChecks != null) healthChecks.dispose();
+    }
+
+    private Mono<Void> probe(BackendEndpoint backend) {
+        return backend.getHealthProbe()
+                .timeout(properties.healthCheckTimeout())
+                .then(Mono.just(true))
+                .onErrorReturn(false)
+                .doOnNext(up -> {
+                    if (up != backend.isHealthy()) {
+                        log.info("Backend {} is {}", backend.getName(), up ? "up" : "down");
+                    }
+                    backend.setHealthy(up);
+                })
+                .then();
+    }
+
+    @Override
+    public Flux<String> streamChat(List<ChatMessage> messageList) {
+        return routeMany(null, b -> b.getClient().streamChat(messageList));
+    }
+
+    @Override
+    public Mono<String> chat(Conversation conv, String userMessage, String model, boolean useRag) {
+        List<PromptMessage> messages = contextWindow.buildPrompt(conv, userMessage);
+        return coalescer.chat(model, messages, () -> route(model, b -> b.getClient().chat(model, messages)));
+    }
+
+    @Override
+    public Flux<String> streamChat(Conversation conv, String userMessage, String model) {
+        List<PromptMessage> messages = contextWindow.buildPrompt(conv, userMessage);
+        return coalescer.stream(model, messages,
+                () -> routeMany(model, b -> b.getClient().streamChat(model, messages)));
+    }
+
+    private Mono<String> route(String model, Function<BackendEndpoint, Mono<String>> call) {
+        return Mono.deferContextual(ctx -> {
+            BackendEndpoint backend = select(model);
+            backend.acquire();
+            return limiters.get(backend).acquire(Priority.from(ctx, Priority.STANDARD))
+                    .flatMap(permit -> {
+                        long start = System.nanoTime();
+                        requests.get(backend).increment();
+                        return call.apply(backend)
+                                .doOnSuccess(answer -> {
+                                    long now = System.nanoTime();
+                                    backend.recordLatency(now - start, now, decayNanos);
+                                    backend.recordSuccess();
+                                    permit.success(now - start);
+                                })
+                                .doOnError(e -> {
+                                    failed(backend, e);
+                                    permit.dropped();
+                                })
+                                .doOnCancel(permit::ignore);
+                    })
+                    .doFinally(signal -> backend.release());
+        });
+    }
+
+    private Flux<String> routeMany(String model, Function<BackendEndpoint, Flux<String>> call) {
+        return Flux.deferContextual(ctx -> {
+            BackendEndpoint backend = select(model);
+            backend.acquire();
+            return limiters.get(backend).acquire(Priority.from(ctx, Priority.INTERACTIVE))
+                    .flatMapMany(permit -> {
+                        long start = System.nanoTime();
+                        AtomicLong firstChunk = new AtomicLong(-1);
+                        requests.get(backend).increment();
+                        return call.apply(backend)
+                                .doOnNext(chunk -> {
+                                    if (firstChunk.compareAndSet(-1, System.nanoTime() - start)) {
+                                        backend.recordLatency(firstChunk.get(), System.nanoTime(), decayNanos);
+                                    }
+                                })
+                                .doOnComplete(() -> {
+                                    backend.recordSuccess();
+                                    long ttft = firstChunk.get();
+                                    permit.success(ttft >= 0 ? ttft : System.nanoTime() - start);
+                                })
+                                .doOnError(e -> {
+                                    failed(backend, e);
+                                    permit.dropped();
+                                })
+                                .doOnCancel(permit::ignore);
+                    })
+                    .doFinally(signal -> backend.release());
+        });
+    }
+
+    private void failed(BackendEndpoint backend, Throwable e) {
+        if (backend.recordFailure(System.nanoTime(), properties.ejection())) {
+            ejections.get(backend).increment();
+            log.warn("Ejecting backend {} after {} consecutive failures, last: {}", backend.getName(),
+                    properties.ejection().consecutiveFailures(), e.toString());
+        }
+    }
+
+    BackendEndpoint select(String model) {
+        long now = System.nanoTime();
+        List<BackendEndpoint> serving = new ArrayList<>(backends.size());
+        List<BackendEndpoint> available = new ArrayList<>(backends.size());
+        for (BackendEndpoint b : backends) {
+            if (!b.serves(model)) continue;
+            serving.add(b);
+            if (b.isAvailable(now)) available.add(b);
+        }
+        if (serving.isEmpty()) throw new IllegalStateException("No backend serves model " + model);
+        List<BackendEndpoint> candidates = available.isEmpty() ? serving : available;
+        if (candidates.size() == 1) return candidates.get(0);
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int i = random.nextInt(candidates.size());
+        int j = random.nextInt(candidates.size() - 1);
+        if (j >= i) j++;
+        BackendEndpoint a = candidates.get(i);
+        BackendEndpoint b = candidates.get(j);
+        return a.load(properties.strategy()) <= b.load(properties.strategy()) ? a : b;
+    }
+
+    public List<BackendEndpoint> backends() {
+        return backends;
+    }
+}
@@ -0,0 +1,77 @@
+package com.ai_chatbot.config;
+
+import com.ai_chatbot.util.PermitExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The scheduler blocking JPA/JDBC calls on the request path are offloaded to ({@code ai.persistence.blocking.executor}):
+ * <ul>
+ *   <li>{@code bounded-elastic}: a dedicated boundedElastic pool sized like Reactor's default (10 threads per
+ *   core, then queued).</li>
+ *   <li>{@code virtual}: one virtual thread per call (JDK 21+), with at most
+ *   {@code spring.datasource.hikari.maximum-pool-size} calls running at once so the rest wait on a cheap parked
+ *   thread instead of inside Hikari. On Java 17 it falls back to a platform pool of that size with the same
+ *   limit and metrics.</li>
+ * </ul>
+ * In {@code virtual} mode {@code db.scheduler.queue} records how long calls wait for a connection slot, next to
+ * Hikari's own {@code hikaricp.connections.acquire}.
+ */
+@Slf4j
+@Configuration
+public class DbSchedulerConfig {
+
+    public enum Mode { BOUNDED_ELASTIC, VIRTUAL }
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler dbScheduler(@Value("${ai.persistence.blocking.executor:bounded-elastic}") String mode,
+                                 @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                                 MeterRegistry meterRegistry) {
+        Mode parsed = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        if (parsed == Mode.BOUNDED_ELASTIC) {
+            return Schedulers.newBoundedElastic(Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE,
+                    Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "db");
+        }
+        ExecutorService threads = virtualThreadExecutor();
+        if (threads == null) {
+            log.warn("Virtual threads need JDK 21+ (running {}); using a platform pool of {} threads for blocking DB calls",
+                    Runtime.version(), poolSize);
+            threads = Executors.newFixedThreadPool(poolSize, platformThreads());
+        } else {
+            log.info("Blocking DB calls run on virtual threads, at most {} at a time", poolSize);
+        }
+        return Schedulers.fromExecutorService(new PermitExecutor(threads, poolSize, "db.scheduler", meterRegistry), "db");
+    }
+
+    /**
+     * {@code Executors.newVirtualThreadPerTaskExecutor()} when the runtime has it; the build targets Java 17, so
+     * it is looked up reflectively.
+     */
+    static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory platformThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "db-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
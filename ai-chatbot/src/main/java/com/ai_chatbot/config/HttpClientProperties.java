@@ -0,0 +1,44 @@
+package com.ai_chatbot.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * HTTP clients for model traffic ({@code ai.http}), one connection pool per kind of traffic so that long
+ * streams cannot starve short chat or embedding calls of connections. See {@link ModelWebClients}.
+ */
+@ConfigurationProperties("ai.http")
+public record HttpClientProperties(@DefaultValue("16MB") DataSize maxInMemorySize,
+                                   @DefaultValue Pool streaming,
+                                   @DefaultValue Pool chat,
+                                   @DefaultValue Pool embedding) {
+
+    /**
+     * {@code auto} negotiates HTTP/2 over TLS (ALPN) and uses HTTP/1.1 in clear text; {@code h2c} also tries
+     * an HTTP/2 upgrade in clear text, for backends known to accept it; {@code http11} never uses HTTP/2.
+     */
+    public enum Protocol { AUTO, HTTP11, H2C }
+
+    /**
+     * Pool and timeouts of one kind of traffic. At most {@code maxConnections} per backend host, then up to
+     * {@code pendingAcquireMaxCount} callers wait at most {@code pendingAcquireTimeout} for one. Idle
+     * connections are closed after {@code maxIdleTime}, all of them after {@code maxLifeTime}, checked every
+     * {@code evictionInterval}. {@code responseTimeout} bounds the wait for the response headers,
+     * {@code readTimeout} the gap between two reads, e.g. two streamed tokens.
+     */
+    public record Pool(@DefaultValue("100") int maxConnections,
+                       @DefaultValue("500") int pendingAcquireMaxCount,
+                       @DefaultValue("5s") Duration pendingAcquireTimeout,
+                       @DefaultValue("30s") Duration maxIdleTime,
+                       @DefaultValue("10m") Duration maxLifeTime,
+                       @DefaultValue("30s") Duration evictionInterval,
+                       @DefaultValue("2s") Duration connectTimeout,
+                       @DefaultValue("60s") Duration responseTimeout,
+                       @DefaultValue("60s") Duration readTimeout,
+                       @DefaultValue("true") boolean compression,
+                       @DefaultValue("auto") Protocol protocol) {
+    }
+}
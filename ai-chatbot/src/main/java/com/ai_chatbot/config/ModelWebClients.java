@@ -0,0 +1,87 @@
+package com.ai_chatbot.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Creates the {@link WebClient}s that talk to model backends, configured per {@link Traffic} by
+ * {@link HttpClientProperties}. Each kind of traffic has its own Reactor Netty connection pool, shared by all
+ * clients of that kind; pools and requests report {@code reactor.netty.connection.provider.*} and
+ * {@code reactor.netty.http.client.*} metrics, tagged with the pool name {@code ai-<traffic>}.
+ */
+public class ModelWebClients {
+
+    public enum Traffic { STREAMING, CHAT, EMBEDDING }
+
+    private final WebClient.Builder base;
+    private final HttpClientProperties properties;
+    private final Map<Traffic, ConnectionProvider> providers = new EnumMap<>(Traffic.class);
+
+    public ModelWebClients(WebClient.Builder base, HttpClientProperties properties) {
+        this.base = base;
+        this.properties = properties;
+        for (Traffic traffic : Traffic.values()) {
+            HttpClientProperties.Pool pool = pool(traffic);
+            providers.put(traffic, ConnectionProvider.builder("ai-" + traffic.name().toLowerCase(Locale.ROOT))
+                    .maxConnections(pool.maxConnections())
+                    .pendingAcquireMaxCount(pool.pendingAcquireMaxCount())
+                    .pendingAcquireTimeout(pool.pendingAcquireTimeout())
+                    .maxIdleTime(pool.maxIdleTime())
+                    .maxLifeTime(pool.maxLifeTime())
+                    .evictInBackground(pool.evictionInterval())
+                    .metrics(true)
+                    .build());
+        }
+    }
+
+    /** A client for {@code traffic} against {@code baseUrl}. */
+    public WebClient create(Traffic traffic, String baseUrl) {
+        HttpClientProperties.Pool pool = pool(traffic);
+        HttpClient http = HttpClient.create(providers.get(traffic))
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Math.toIntExact(pool.connectTimeout().toMillis()))
+                .responseTimeout(pool.readTimeout())
+                .compress(pool.compression())
+                .protocol(protocols(pool.protocol(), baseUrl))
+                .metrics(true, Function.identity());
+        int maxInMemory = Math.toIntExact(properties.maxInMemorySize().toBytes());
+        return base.clone()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(http))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(maxInMemory))
+                .filter((request, next) -> next.exchange(request).timeout(pool.responseTimeout()))
+                .build();
+    }
+
+    public void dispose() {
+        providers.values().forEach(ConnectionProvider::dispose);
+    }
+
+    static HttpProtocol[] protocols(HttpClientProperties.Protocol protocol, String baseUrl) {
+        boolean secure = "https".equalsIgnoreCase(UriComponentsBuilder.fromUriString(baseUrl).build().getScheme());
+        return switch (protocol) {
+            case HTTP11 -> new HttpProtocol[]{HttpProtocol.HTTP11};
+            case AUTO -> secure ? new HttpProtocol[]{HttpProtocol.H2, HttpProtocol.HTTP11}
+                    : new HttpProtocol[]{HttpProtocol.HTTP11};
+            case H2C -> secure ? new HttpProtocol[]{HttpProtocol.H2, HttpProtocol.HTTP11}
+                    : new HttpProtocol[]{HttpProtocol.H2C, HttpProtocol.HTTP11};
+        };
+    }
+
+    private HttpClientProperties.Pool pool(Traffic traffic) {
+        return switch (traffic) {
+            case STREAMING -> properties.streaming();
+            case CHAT -> properties.chat();
+            case EMBEDDING -> properties.embedding();
+        };
+    }
+}
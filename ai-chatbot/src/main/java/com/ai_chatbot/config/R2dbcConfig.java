@@ -0,0 +1,56 @@
+package com.ai_chatbot.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.time.Duration;
+
+/**
+ * Reactive database access for the chat path, enabled with {@code ai.persistence.mode=reactive}.
+ * <p>
+ * The pool is deliberately not registered as an {@link io.r2dbc.spi.ConnectionFactory} bean: Spring Boot's
+ * DataSource auto-configuration backs off as soon as one exists, and JPA, ingestion and index management still
+ * run on JDBC. Only the {@link DatabaseClient} is exposed.
+ */
+@Configuration
+@ConditionalOnProperty(name = "ai.persistence.mode", havingValue = "reactive")
+public class R2dbcConfig implements DisposableBean {
+
+    private final ConnectionPool pool;
+
+    public R2dbcConfig(@Value("${ai.r2dbc.url}") String url,
+                       @Value("${spring.datasource.username}") String username,
+                       @Value("${spring.datasource.password}") String password,
+                       @Value("${ai.r2dbc.pool.initial-size:10}") int initialSize,
+                       @Value("${ai.r2dbc.pool.max-size:20}") int maxSize,
+                       @Value("${ai.r2dbc.pool.max-acquire-time:5s}") Duration maxAcquireTime) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        this.pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .name("chat-r2dbc")
+                .initialSize(initialSize)
+                .maxSize(maxSize)
+                .maxAcquireTime(maxAcquireTime)
+                .build());
+    }
+
+    @Bean
+    public DatabaseClient reactiveDatabaseClient() {
+        return DatabaseClient.create(pool);
+    }
+
+    @Override
+    public void destroy() {
+        pool.dispose();
+    }
+}
@@ -0,0 +1,67 @@
+package com.ai_chatbot.config;
+
+import com.ai_chatbot.aiclient.AIClient;
+import com.ai_chatbot.aiclient.ChatCoalescer;
+import com.ai_chatbot.aiclient.ChatRequestWriter;
+import com.ai_chatbot.aiclient.ContextWindowBuilder;
+import com.ai_chatbot.aiclient.implementation.BackendEndpoint;
+import com.ai_chatbot.aiclient.implementation.OllamaClient;
+import com.ai_chatbot.aiclient.implementation.OpenAIClient;
+import com.ai_chatbot.aiclient.implementation.RoutingAIClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Builds the {@link AIClient} the application talks to: a {@link RoutingAIClient} over the backends of
+ * {@code ai.routing.backends}, or over the single backend of {@code ai.provider.*} when none are listed.
+ */
+@Configuration
+@EnableConfigurationProperties(RoutingProperties.class)
+public class RoutingConfig {
+
+    @Bean
+    public RoutingAIClient aiClient(RoutingProperties properties,
+                                    ModelWebClients webClients,
+                                    ContextWindowBuilder contextWindow,
+                                    ChatCoalescer coalescer,
+                                    ChatRequestWriter requestWriter,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${ai.provider.type:ollama}") String providerType,
+                                    @Value("${ai.provider.base-url:http://localhost:11434}") String providerUrl,
+                                    @Value("${ai.provider.api-key:}") String providerKey,
+                                    @Value("${ai.provider.chat-model}") String chatModel) {
+        List<RoutingProperties.Backend> configured = properties.backends() == null || properties.backends().isEmpty()
+                ? List.of(new RoutingProperties.Backend(providerType, providerType, providerUrl, providerKey, chatModel, List.of()))
+                : properties.backends();
+
+        List<BackendEndpoint> backends = new ArrayList<>(configured.size());
+        for (RoutingProperties.Backend b : configured) {
+            String name = b.name() != null ? b.name() : b.baseUrl();
+            String defaultModel = b.defaultModel() != null ? b.defaultModel() : chatModel;
+            String apiKey = b.apiKey() != null ? b.apiKey() : "";
+            WebClient chatClient = webClients.create(ModelWebClients.Traffic.CHAT, b.baseUrl());
+            WebClient streamClient = webClients.create(ModelWebClients.Traffic.STREAMING, b.baseUrl());
+            Set<String> models = b.models() == null ? Set.of() : Set.copyOf(b.models());
+            switch (b.type().toLowerCase(Locale.ROOT)) {
+                case "ollama" -> backends.add(new BackendEndpoint(name,
+                        new OllamaClient(chatClient, streamClient, contextWindow, requestWriter, defaultModel),
+                        chatClient.get().uri("/api/tags").retrieve().toBodilessEntity(), models));
+                case "openai" -> backends.add(new BackendEndpoint(name,
+                        new OpenAIClient(chatClient, streamClient, apiKey, contextWindow, requestWriter, defaultModel),
+                        chatClient.get().uri("/models").headers(h -> h.setBearerAuth(apiKey))
+                                .retrieve().toBodilessEntity(), models));
+                default -> throw new IllegalArgumentException("Unknown backend type " + b.type() + " for " + name);
+            }
+        }
+        return new RoutingAIClient(backends, properties, contextWindow, coalescer, meterRegistry);
+    }
+}
@@ -0,0 +1,71 @@
+package com.ai_chatbot.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Backend pool for {@link com.ai_chatbot.aiclient.implementation.RoutingAIClient} ({@code ai.routing}). Bound
+ * as properties rather than {@code @Value}s because the backends are a list of structured entries. Without any
+ * backend the pool is the single one described by {@code ai.provider.*}.
+ */
+@ConfigurationProperties("ai.routing")
+public record RoutingProperties(@DefaultValue("least-outstanding") Strategy strategy,
+                                @DefaultValue("10s") Duration ewmaDecay,
+                                @DefaultValue("10s") Duration healthCheckInterval,
+                                @DefaultValue("2s") Duration healthCheckTimeout,
+                                @DefaultValue Ejection ejection,
+                                @DefaultValue Limiter limiter,
+                                List<Backend> backends) {
+
+    public enum Strategy { LEAST_OUTSTANDING, EWMA }
+
+    public enum LimitAlgorithm { AIMD, GRADIENT, FIXED }
+
+    /**
+     * A backend is ejected for {@code baseTime} times the number of its ejections (at most {@code maxTime})
+     * after {@code consecutiveFailures} failed requests in a row.
+     */
+    public record Ejection(@DefaultValue("5") int consecutiveFailures,
+                           @DefaultValue("30s") Duration baseTime,
+                           @DefaultValue("5m") Duration maxTime) {
+    }
+
+    /**
+     * Per-backend adaptive concurrency limit. Calls over the limit wait in a priority queue of at most
+     * {@code maxQueue} entries for at most {@code maxWait}; beyond that they are rejected with
+     * {@code retryAfter}.
+     * <ul>
+     *   <li>{@code aimd}: +1 per successful call while at least half the limit is in use, times
+     *   {@code backoffRatio} on a failure or a latency above {@code latencyThreshold}.</li>
+     *   <li>{@code gradient}: scales the limit by {@code longRtt / rtt} (clamped to [0.5, 1]) plus a headroom
+     *   of sqrt(limit), smoothed by {@code smoothing}; {@code longRtt} is a slow EWMA of latencies.</li>
+     *   <li>{@code fixed}: stays at {@code initialLimit}.</li>
+     * </ul>
+     */
+    public record Limiter(@DefaultValue("aimd") LimitAlgorithm algorithm,
+                          @DefaultValue("4") int initialLimit,
+                          @DefaultValue("1") int minLimit,
+                          @DefaultValue("64") int maxLimit,
+                          @DefaultValue("100") int maxQueue,
+                          @DefaultValue("10s") Duration maxWait,
+                          @DefaultValue("2s") Duration retryAfter,
+                          @DefaultValue("0.9") double backoffRatio,
+                          @DefaultValue("30s") Duration latencyThreshold,
+                          @DefaultValue("0.2") double smoothing) {
+    }
+
+    /**
+     * One endpoint. {@code type} is {@code ollama} or {@code openai}; {@code models} lists the models it serves
+     * (empty: any), {@code defaultModel} is used for requests that name none.
+     */
+    public record Backend(String name,
+                          @DefaultValue("ollama") String type,
+                          String baseUrl,
+                          String apiKey,
+                          String defaultModel,
+                          List<String> models) {
+    }
+}
@@ -1,16 +1,24 @@
 package com.ai_chatbot.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.reactive.function.client.WebClient;
 
 @Configuration
+@EnableConfigurationProperties(HttpClientProperties.class)
 public class WebClientConfig {
 
+    @Bean(destroyMethod = "dispose")
+    public ModelWebClients modelWebClients(WebClient.Builder webClientBuilder, HttpClientProperties properties) {
+        return new ModelWebClients(webClientBuilder, properties);
+    }
+
+    // the embedding endpoint of ai.provider; chat clients are created per backend by RoutingConfig
     @Bean
-    public WebClient webClient() {
-        return WebClient.builder()
-                .baseUrl("http://localhost:11434")
-                .build();
+    public WebClient webClient(ModelWebClients webClients,
+                               @Value("${ai.provider.base-url:http://localhost:11434}") String baseUrl) {
+        return webClients.create(ModelWebClients.Traffic.EMBEDDING, baseUrl);
     }
 }
@@ -1,24 +1,42 @@
 package com.ai_chatbot.controller;
 
-import com.ai_chatbot.aiclient.implementation.OllamaClient;
+import com.ai_chatbot.aiclient.AIClient;
+import com.ai_chatbot.aiclient.LimitExceededException;
 import com.ai_chatbot.entity.ChatRequest;
 import com.ai_chatbot.entity.Conversation;
+import com.ai_chatbot.entity.ConversationSummary;
+import com.ai_chatbot.entity.CursorPage;
 import com.ai_chatbot.entity.Message;
+import com.ai_chatbot.entity.MessageView;
 import com.ai_chatbot.repository.ConversationRepository;
+import com.ai_chatbot.repository.ConversationStore;
+import com.ai_chatbot.service.ConversationQueryService;
+import com.ai_chatbot.service.ConversationSummarizer;
+import com.ai_chatbot.service.EmbeddingService;
 import com.ai_chatbot.service.RagService;
+import com.ai_chatbot.service.ResumableStreams;
+import com.ai_chatbot.service.SemanticResponseCache;
+import com.ai_chatbot.service.StreamLimits;
+import com.ai_chatbot.util.TokenCoalescer;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
-import reactor.core.scheduler.Schedulers;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/v1")
 @CrossOrigin(origins = "*")
@@ -26,38 +44,65 @@ import reactor.core.scheduler.Schedulers;
 public class ChatController {
 
     private final ConversationRepository convRepo;
-    private final OllamaClient aiClient;
+    private final ConversationStore conversationStore;
+    private final AIClient aiClient;
     private final RagService ragService;
+    private final ConversationQueryService conversationQueryService;
+    private final ConversationSummarizer conversationSummarizer;
+    private final SemanticResponseCache responseCache;
+    private final EmbeddingService embeddingService;
+    private final ResumableStreams resumableStreams;
+    private final StreamLimits streamLimits;
+
+    @Value("${ai.stream.frame-chars:24}")
+    private int frameChars;
+    @Value("${ai.stream.frame-delay:50ms}")
+    private Duration frameDelay;
 
     @PostMapping("/chat")
     public Mono<ResponseEntity<Map<String, String>>> chat(@RequestBody ChatRequest req) {
-        return Mono.fromCallable(() -> getOrCreateConversation(req))
-                .subscribeOn(Schedulers.boundedElastic())
+        return conversationStore.findOrCreate(req.getConversationId(), req.getModel())
                 .flatMap(conv -> {
+                    // the RAG path persists the user message up front, the plain one together with the answer
                     if (req.isUseRag()) {
-                        return ragService.answerWithRag(conv.getId(), req.getMessage(), req.getK(), req.getModel())
-                                .flatMap(answer -> persistAndBuildResponse(answer, conv))
+                        return ragService.answerWithRag(conv, req.getMessage(), req.getK(), req.getModel(), req.isUseCache())
+                                .flatMap(answer -> persistAndBuildResponse(answer, conv, List.of()))
                                 .defaultIfEmpty(buildError(conv.getId(), "Empty RAG response"))
-                                .onErrorResume(ex -> Mono.just(buildError(conv.getId(), ex.getMessage())));
+                                .onErrorResume(ex -> Mono.just(buildError(conv.getId(), ex)));
                     } else {
-                        return aiClient.chat(conv, req.getMessage(), req.getModel(), false)
-                                .flatMap(answer -> persistAndBuildResponse(answer, conv))
+                        return plainChat(conv, req.getMessage(), req.getModel(), req.isUseCache())
+                                .flatMap(answer -> persistAndBuildResponse(answer, conv,
+                                        List.of(userMessage(req.getMessage()))))
                                 .defaultIfEmpty(buildError(conv.getId(), "Empty AI response"))
-                                .onErrorResume(ex -> Mono.just(buildError(conv.getId(), ex.getMessage())));
+                                .onErrorResume(ex -> Mono.just(buildError(conv.getId(), ex)));
                     }
                 })
-                .onErrorResume(ex -> Mono.just(buildError(null, ex.getMessage())));
+                .onErrorResume(ex -> Mono.just(buildError(null, ex)));
+    }
+
+    private Mono<String> plainChat(Conversation conv, String message, String model, boolean useCache) {
+        if (!responseCache.isCacheable(conv, useCache)) return aiClient.chat(conv, message, model, false);
+        return embeddingService.embedText(message)
+                .flatMap(vector -> responseCache.get(model, "", vector, () -> aiClient.chat(conv, message, model, false)));
+    }
+
+    private Flux<String> plainStream(Conversation conv, String message, String model, boolean useCache) {
+        if (!responseCache.isCacheable(conv, useCache)) return aiClient.streamChat(conv, message, model);
+        return embeddingService.embedText(message)
+                .flatMapMany(vector -> responseCache.stream(model, "", vector, () -> aiClient.streamChat(conv, message, model)));
     }
 
-    private Conversation getOrCreateConversation(ChatRequest req) {
-        if (req.getConversationId() == null || !convRepo.existsById(req.getConversationId())) {
-            Conversation conv = new Conversation();
-            if (req.getModel() != null) conv.setModel(req.getModel());
-            return convRepo.save(conv);
+    private ResponseEntity<Map<String, String>> buildError(String convId, Throwable ex) {
+        if (ex instanceof LimitExceededException limited) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds(limited))
+                    .body(Map.of("conversationId", convId != null ? convId : "", "message", limited.getMessage()));
         }
-        Conversation conv = convRepo.findById(req.getConversationId()).get();
-        if (req.getModel() != null) conv.setModel(req.getModel());
-        return conv;
+        return buildError(convId, ex.getMessage());
+    }
+
+    private static String retryAfterSeconds(LimitExceededException ex) {
+        return String.valueOf(Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000));
     }
 
     private ResponseEntity<Map<String, String>> buildError(String convId, String msg) {
@@ -65,38 +110,132 @@ public class ChatController {
                 .body(Map.of("conversationId", convId != null ? convId : "", "message", msg));
     }
 
-    private Mono<ResponseEntity<Map<String, String>>> persistAndBuildResponse(String answer, Conversation conv) {
+    /**
+     * Appends {@code userTurn} and the answer to the conversation in one batch.
+     */
+    private Mono<ResponseEntity<Map<String, String>>> persistAndBuildResponse(String answer, Conversation conv,
+                                                                              List<Message> userTurn) {
         if (answer == null || answer.isBlank()) return Mono.just(buildError(conv.getId(), "Empty answer"));
         Message aiMsg = new Message();
         aiMsg.setRole("assistant");
         aiMsg.setContent(answer);
-        return Mono.fromCallable(() -> {
-                    conv.addMessage(aiMsg);
-                    convRepo.save(conv);
-                    return ResponseEntity.ok(Map.of("conversationId", conv.getId(), "message", answer));
-                })
-                .subscribeOn(Schedulers.boundedElastic())
+        List<Message> turn = new ArrayList<>(userTurn);
+        turn.add(aiMsg);
+        return conversationStore.appendMessages(conv, turn)
+                .doOnNext(conversationSummarizer::onTurnCompleted)
+                .map(saved -> ResponseEntity.ok(Map.of("conversationId", saved.getId(), "message", answer)))
                 .onErrorResume(ex -> Mono.just(buildError(conv.getId(), ex.getMessage())));
     }
 
+    /**
+     * Streams the answer as {@code message} events, then a {@code done} event ({@code failed} with the error
+     * message instead when the generation fails, {@code busy} with the seconds to wait when the model backend is
+     * saturated). A reconnect with {@code Last-Event-ID} resumes the running
+     * generation ({@link ResumableStreams}); one that cannot be resumed gets a single {@code gone} event.
+     */
     @GetMapping(value = "/stream/{conversationId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     public Flux<ServerSentEvent<String>> stream(@PathVariable String conversationId,
                                                 @RequestParam String message,
                                                 @RequestParam(required = false) String model,
-                                                @RequestParam(defaultValue = "false") boolean useRag) {
-        Conversation conv = convRepo.findById(conversationId).orElseGet(() -> convRepo.save(new Conversation()));
-        Flux<String> flux = useRag ?
-                ragService.answerWithRagStream(conversationId, message, 3, model) :
-                aiClient.streamChat(conv, message, model);
-        return flux.map(chunk -> ServerSentEvent.builder(chunk)
-                .event("message")
-                .id(String.valueOf(System.currentTimeMillis()))
-                .build());
+                                                @RequestParam(defaultValue = "false") boolean useRag,
+                                                @RequestParam(defaultValue = "true") boolean useCache,
+                                                @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        if (lastEventId != null) {
+            return resumableStreams.resume(conversationId, lastEventId)
+                    .map(this::toEvents)
+                    .orElseGet(() -> Flux.just(ServerSentEvent.<String>builder().event("gone").data("").build()));
+        }
+        return conversationStore.findOrCreate(conversationId, null)
+                .flatMapMany(conv -> {
+                    // the RAG path persists the user message up front, the plain one together with the answer
+                    Flux<String> tokens = useRag
+                            ? persistStreamed(conv, List.of(),
+                                    streamLimits.apply(ragService.answerWithRagStream(conv, message, 3, model, useCache)))
+                            : persistStreamed(conv, List.of(userMessage(message)),
+                                    streamLimits.apply(plainStream(conv, message, model, useCache)));
+                    return toEvents(resumableStreams.start(conversationId,
+                            TokenCoalescer.coalesce(tokens, frameChars, frameDelay, Schedulers.parallel())));
+                });
+    }
+
+    private Flux<ServerSentEvent<String>> toEvents(Flux<ResumableStreams.Frame> frames) {
+        return frames.map(frame -> ServerSentEvent.builder(frame.data())
+                        .event("message")
+                        .id(frame.id())
+                        .build())
+                .concatWith(Mono.just(ServerSentEvent.<String>builder().event("done").data("").build()))
+                .onErrorResume(ex -> Mono.just(failedEvent(ex)));
+    }
+
+    /**
+     * The response is already committed when the generation fails, so a saturated backend is reported as a
+     * {@code busy} event carrying the {@code Retry-After} seconds (also as the SSE {@code retry} field) instead of
+     * a 429.
+     */
+    private static ServerSentEvent<String> failedEvent(Throwable ex) {
+        if (ex instanceof LimitExceededException limited) {
+            return ServerSentEvent.<String>builder()
+                    .event("busy")
+                    .retry(limited.getRetryAfter())
+                    .data(retryAfterSeconds(limited))
+                    .build();
+        }
+        return ServerSentEvent.<String>builder()
+                .event("failed")
+                .data(ex.getMessage() != null ? ex.getMessage() : ex.toString())
+                .build();
+    }
+
+    /**
+     * Accumulates the streamed answer and appends it to the conversation, after {@code userTurn}, once the stream
+     * completes, fails or is cancelled; a partial answer is kept. The write runs on the store's scheduler and
+     * never delays the stream.
+     */
+    private Flux<String> persistStreamed(Conversation conv, List<Message> userTurn, Flux<String> tokens) {
+        return Flux.defer(() -> {
+            // on cancel doFinally may run on another thread than the last onNext; the lock orders the two
+            StringBuilder answer = new StringBuilder(1024);
+            return tokens.doOnNext(token -> {
+                        synchronized (answer) {
+                            answer.append(token);
+                        }
+                    })
+                    .doFinally(signal -> {
+                        String text;
+                        synchronized (answer) {
+                            text = answer.toString();
+                        }
+                        if (text.isBlank()) return;
+                        Message aiMsg = new Message();
+                        aiMsg.setRole("assistant");
+                        aiMsg.setContent(text);
+                        List<Message> turn = new ArrayList<>(userTurn);
+                        turn.add(aiMsg);
+                        conversationStore.appendMessages(conv, turn)
+                                .subscribe(conversationSummarizer::onTurnCompleted,
+                                        ex -> log.warn("Failed to persist streamed answer of {}: {}", conv.getId(), ex.toString()));
+                    });
+        });
+    }
+
+    private static Message userMessage(String content) {
+        Message msg = new Message();
+        msg.setRole("user");
+        msg.setContent(content);
+        return msg;
     }
 
     @GetMapping("/conversations")
-    public List<Conversation> listConversations() {
-        return convRepo.findAll();
+    public CursorPage<ConversationSummary> listConversations(@RequestParam(required = false) String cursor,
+                                                             @RequestParam(defaultValue = "50") int limit) {
+        return conversationQueryService.listConversations(cursor, limit);
+    }
+
+    @GetMapping("/conversations/{id}/messages")
+    public CursorPage<MessageView> listMessages(@PathVariable String id,
+                                                @RequestParam(required = false) String cursor,
+                                                @RequestParam(defaultValue = "100") int limit) {
+        return conversationQueryService.listMessages(id, cursor, limit);
     }
 
     @GetMapping("/conversations/{id}")
@@ -105,4 +244,16 @@ public class ChatController {
                 .map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
+
+    @ExceptionHandler(LimitExceededException.class)
+    public ResponseEntity<Map<String, String>> tooManyRequests(LimitExceededException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds(ex))
+                .body(Map.of("message", ex.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body(Map.of("message", ex.getMessage()));
+    }
 }
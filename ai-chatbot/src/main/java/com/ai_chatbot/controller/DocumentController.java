@@ -0,0 +1,96 @@
+package com.ai_chatbot.controller;
+
+import com.ai_chatbot.entity.FileIngestRequest;
+import com.ai_chatbot.entity.IngestDocument;
+import com.ai_chatbot.entity.IngestProgress;
+import com.ai_chatbot.service.BulkIngestionService;
+import com.ai_chatbot.service.FileIngestionService;
+import com.ai_chatbot.service.VectorIndexManager;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/documents")
+@CrossOrigin(origins = "*")
+@RequiredArgsConstructor
+public class DocumentController {
+
+    private final BulkIngestionService bulkIngestionService;
+    private final FileIngestionService fileIngestionService;
+    private final VectorIndexManager vectorIndexManager;
+    private final ObjectMapper mapper;
+
+    /**
+     * Bulk ingestion. The body is read incrementally, either as NDJSON (one document per line) or as a single
+     * JSON array, so arbitrarily large uploads never sit in memory as a whole. Progress is streamed back as
+     * NDJSON, one line per written batch.
+     */
+    @PostMapping(value = "/bulk",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<IngestProgress> bulkIngest(HttpServletRequest request) {
+        Flux<IngestDocument> documents = Flux.using(
+                        () -> mapper.readerFor(IngestDocument.class).<IngestDocument>readValues(request.getInputStream()),
+                        it -> Flux.fromIterable(() -> it),
+                        this::closeQuietly)
+                // servlet input stream reads block
+                .subscribeOn(Schedulers.boundedElastic());
+        return bulkIngestionService.ingest(documents);
+    }
+
+    /**
+     * Chunk, embed and index text/markdown files that live under {@code ai.ingest.root-dir} on the server.
+     */
+    @PostMapping(value = "/files", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<IngestProgress> ingestFiles(@RequestBody FileIngestRequest req) {
+        return fileIngestionService.ingestFiles(req.getPaths());
+    }
+
+    @GetMapping("/indexes")
+    public List<VectorIndexManager.IndexInfo> listIndexes() {
+        return vectorIndexManager.listIndexes();
+    }
+
+    /**
+     * Rebuild the ANN index without blocking writers, e.g. after a bulk load into an IVFFlat-indexed table.
+     */
+    @PostMapping("/indexes/rebuild")
+    public Mono<List<VectorIndexManager.IndexInfo>> rebuildIndex() {
+        return Mono.fromCallable(() -> {
+                    vectorIndexManager.rebuildIndex();
+                    return vectorIndexManager.listIndexes();
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body(Map.of("message", ex.getMessage()));
+    }
+
+    private void closeQuietly(MappingIterator<IngestDocument> it) {
+        try {
+            it.close();
+        } catch (IOException e) {
+            // client already gone
+        }
+    }
+}
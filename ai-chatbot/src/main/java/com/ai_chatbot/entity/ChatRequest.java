@@ -9,4 +9,5 @@ public class ChatRequest {
     private String model;
     private boolean useRag = false;
     private int k = 3; // number of retrieved docs
+    private boolean useCache = true; // false bypasses the semantic response cache
 }
@@ -10,7 +10,7 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "conversation")
+@Table(name = "conversation", indexes = @Index(name = "conversation_updated_at_idx", columnList = "updated_at, id"))
 @Data
 public class Conversation {
     @Id
@@ -19,7 +19,7 @@ public class Conversation {
     private String model;
     private Instant createdAt = Instant.now();
     private Instant updatedAt = Instant.now();
-    @OneToMany(mappedBy = "conversation", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "conversation", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @JsonManagedReference
     private List<Message> messages = new ArrayList<>();
 
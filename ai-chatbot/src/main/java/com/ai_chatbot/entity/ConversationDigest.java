@@ -0,0 +1,25 @@
+package com.ai_chatbot.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Rolling summary of a conversation's older messages, up to and including {@code throughMessageId}.
+ */
+@Entity
+@Table(name = "conversation_digest")
+@Data
+public class ConversationDigest {
+
+    @Id
+    private String conversationId;
+    private long throughMessageId;
+    @Column(columnDefinition = "text")
+    private String content;
+    private Instant updatedAt = Instant.now();
+}
@@ -0,0 +1,14 @@
+package com.ai_chatbot.entity;
+
+import java.time.Instant;
+
+/**
+ * List view of a {@link Conversation}: no message bodies, only the count and a short preview of the latest one.
+ */
+public record ConversationSummary(String id,
+                                  String model,
+                                  Instant createdAt,
+                                  Instant updatedAt,
+                                  long messageCount,
+                                  String lastMessagePreview) {
+}
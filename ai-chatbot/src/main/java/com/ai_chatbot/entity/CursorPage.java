@@ -0,0 +1,10 @@
+package com.ai_chatbot.entity;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextCursor} is opaque; pass it back as {@code cursor} to get
+ * the following page. It is {@code null} on the last page.
+ */
+public record CursorPage<T>(List<T> items, String nextCursor) {
+}
@@ -0,0 +1,11 @@
+package com.ai_chatbot.entity;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class FileIngestRequest {
+    private List<String> paths = new ArrayList<>(); // relative to ai.ingest.root-dir
+}
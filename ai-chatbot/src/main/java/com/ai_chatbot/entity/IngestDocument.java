@@ -0,0 +1,13 @@
+package com.ai_chatbot.entity;
+
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+public class IngestDocument {
+    private String id; // optional; a random UUID is assigned when missing
+    private String title;
+    private String content;
+    private Map<String, Object> metadata;
+}
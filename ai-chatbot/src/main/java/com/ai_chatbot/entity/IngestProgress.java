@@ -0,0 +1,13 @@
+package com.ai_chatbot.entity;
+
+/**
+ * Progress report emitted after every written batch of a bulk ingestion. Throughput figures are documents per
+ * second of time actually spent in that stage, so a slow embedder and a slow database are told apart.
+ */
+public record IngestProgress(long documentsEmbedded,
+                             long documentsWritten,
+                             long elapsedMillis,
+                             double embedDocsPerSecond,
+                             double writeDocsPerSecond,
+                             boolean done) {
+}
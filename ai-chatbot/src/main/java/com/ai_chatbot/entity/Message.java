@@ -7,7 +7,7 @@ import lombok.Data;
 import java.time.Instant;
 
 @Entity
-@Table(name = "message")
+@Table(name = "message", indexes = @Index(name = "message_conversation_id_idx", columnList = "conversation_id, id"))
 @Data
 public class Message {
 
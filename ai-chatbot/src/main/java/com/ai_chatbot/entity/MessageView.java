@@ -0,0 +1,9 @@
+package com.ai_chatbot.entity;
+
+import java.time.Instant;
+
+/**
+ * Read-only projection of a {@link Message} without its conversation back-reference.
+ */
+public record MessageView(Long id, String role, String content, Instant createdAt) {
+}
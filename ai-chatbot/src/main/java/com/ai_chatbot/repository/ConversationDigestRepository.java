@@ -0,0 +1,7 @@
+package com.ai_chatbot.repository;
+
+import com.ai_chatbot.entity.ConversationDigest;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ConversationDigestRepository extends JpaRepository<ConversationDigest, String> {
+}
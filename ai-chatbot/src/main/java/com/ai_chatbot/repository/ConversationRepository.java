@@ -2,6 +2,18 @@ package com.ai_chatbot.repository;
 
 import com.ai_chatbot.entity.Conversation;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface ConversationRepository extends JpaRepository<Conversation, String> {
+import java.time.Instant;
+
+public interface ConversationRepository extends JpaRepository<Conversation, String>, ConversationSummaries {
+
+    /**
+     * Bumps {@code updatedAt} (and {@code model}, when given) without loading the conversation.
+     */
+    @Modifying
+    @Query("update Conversation c set c.updatedAt = :updatedAt, c.model = coalesce(:model, c.model) where c.id = :id")
+    int touch(@Param("id") String id, @Param("model") String model, @Param("updatedAt") Instant updatedAt);
 }
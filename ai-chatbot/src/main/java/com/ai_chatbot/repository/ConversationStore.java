@@ -0,0 +1,29 @@
+package com.ai_chatbot.repository;
+
+import com.ai_chatbot.entity.Conversation;
+import com.ai_chatbot.entity.Message;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Conversation persistence as used by the chat pipeline. The JPA implementation offloads to a worker
+ * scheduler; with {@code ai.persistence.mode=reactive} the R2DBC implementation runs entirely on the event
+ * loop.
+ */
+public interface ConversationStore {
+
+    /**
+     * Load a conversation with the part of its history a prompt can use, or create (and persist) a new one when
+     * {@code id} is null or unknown. Only the newest {@code ai.context.max-history-messages} messages after
+     * those covered by the conversation's {@link com.ai_chatbot.aiclient.HistorySummary summary} are loaded,
+     * oldest first. A non-null {@code model} replaces the conversation's model.
+     */
+    Mono<Conversation> findOrCreate(String id, String model);
+
+    /**
+     * Append messages to the conversation, persist them and bump {@code updatedAt}. Emits the conversation
+     * including the new messages.
+     */
+    Mono<Conversation> appendMessages(Conversation conversation, List<Message> messages);
+}
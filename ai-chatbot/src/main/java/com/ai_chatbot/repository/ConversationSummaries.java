@@ -0,0 +1,18 @@
+package com.ai_chatbot.repository;
+
+import com.ai_chatbot.entity.ConversationSummary;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Keyset-paginated conversation summaries, mixed into {@link ConversationRepository}.
+ */
+public interface ConversationSummaries {
+
+    /**
+     * Up to {@code limit} summaries ordered by {@code (updatedAt, id)} descending, starting strictly after
+     * {@code (beforeUpdatedAt, beforeId)}, or from the most recent conversation when both are {@code null}.
+     */
+    List<ConversationSummary> findSummaries(Instant beforeUpdatedAt, String beforeId, int limit);
+}
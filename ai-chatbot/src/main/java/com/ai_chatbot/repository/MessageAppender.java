@@ -0,0 +1,17 @@
+package com.ai_chatbot.repository;
+
+import com.ai_chatbot.entity.Message;
+
+import java.util.List;
+
+/**
+ * Append-only write path for {@link Message} rows, mixed into {@link MessageRepository}.
+ */
+public interface MessageAppender {
+
+    /**
+     * Inserts {@code messages} into {@code conversationId} with a single multi-row {@code INSERT} and sets their
+     * ids, ascending in list order. Neither the conversation nor its existing messages are loaded.
+     */
+    void append(String conversationId, List<Message> messages);
+}
@@ -1,7 +1,26 @@
 package com.ai_chatbot.repository;
 
 import com.ai_chatbot.entity.Message;
+import com.ai_chatbot.entity.MessageView;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface MessageRepository extends JpaRepository<Message, Long> {
+import java.util.List;
+
+public interface MessageRepository extends JpaRepository<Message, Long>, MessageAppender {
+
+    /**
+     * The newest messages of a conversation with an id greater than {@code afterId}, newest first.
+     */
+    @Query("select m from Message m where m.conversation.id = :conversationId and m.id > :afterId order by m.id desc")
+    List<Message> findRecent(@Param("conversationId") String conversationId, @Param("afterId") long afterId, Limit limit);
+
+    /**
+     * Messages of a conversation with an id greater than {@code afterId}, oldest first.
+     */
+    @Query("select new com.ai_chatbot.entity.MessageView(m.id, m.role, m.content, m.createdAt) from Message m " +
+            "where m.conversation.id = :conversationId and m.id > :afterId order by m.id")
+    List<MessageView> findPage(@Param("conversationId") String conversationId, @Param("afterId") long afterId, Limit limit);
 }
@@ -0,0 +1,52 @@
+package com.ai_chatbot.repository.implementation;
+
+import com.ai_chatbot.entity.ConversationSummary;
+import com.ai_chatbot.repository.ConversationSummaries;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * JDBC implementation of {@link ConversationSummaries}. The page is cut by the {@code (updated_at, id)} row
+ * comparison on {@code conversation_updated_at_idx}; the count and preview are per-row subqueries on
+ * {@code message_conversation_id_idx}, so only the latest message of each listed conversation is read.
+ */
+@RequiredArgsConstructor
+public class ConversationSummariesImpl implements ConversationSummaries {
+
+    static final int PREVIEW_LENGTH = 120;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MessageContentColumn contentColumn;
+
+    @Override
+    public List<ConversationSummary> findSummaries(Instant beforeUpdatedAt, String beforeId, int limit) {
+        boolean after = beforeUpdatedAt != null && beforeId != null;
+        String sql = "SELECT c.id, c.model, c.created_at, c.updated_at, " +
+                "(SELECT count(*) FROM message m WHERE m.conversation_id = c.id) AS message_count, " +
+                "(SELECT left(" + contentColumn.read("m.content") + ", " + PREVIEW_LENGTH + ") FROM message m " +
+                "WHERE m.conversation_id = c.id ORDER BY m.id DESC LIMIT 1) AS last_message " +
+                "FROM conversation c " +
+                (after ? "WHERE (c.updated_at, c.id) < (?, ?) " : "") +
+                "ORDER BY c.updated_at DESC, c.id DESC LIMIT ?";
+        Object[] args = after
+                ? new Object[]{OffsetDateTime.ofInstant(beforeUpdatedAt, ZoneOffset.UTC), beforeId, limit}
+                : new Object[]{limit};
+        return jdbcTemplate.query(sql, (rs, row) -> new ConversationSummary(
+                rs.getString("id"),
+                rs.getString("model"),
+                instant(rs.getTimestamp("created_at")),
+                instant(rs.getTimestamp("updated_at")),
+                rs.getLong("message_count"),
+                rs.getString("last_message")), args);
+    }
+
+    private static Instant instant(Timestamp ts) {
+        return ts == null ? null : ts.toInstant();
+    }
+}
@@ -0,0 +1,98 @@
+package com.ai_chatbot.repository.implementation;
+
+import com.ai_chatbot.aiclient.HistorySummary;
+import com.ai_chatbot.aiclient.HistorySummaryCache;
+import com.ai_chatbot.entity.Conversation;
+import com.ai_chatbot.entity.Message;
+import com.ai_chatbot.repository.ConversationRepository;
+import com.ai_chatbot.repository.ConversationStore;
+import com.ai_chatbot.repository.MessageRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link ConversationStore} over the blocking JPA repositories; every call hops to the {@code dbScheduler}
+ * ({@link com.ai_chatbot.config.DbSchedulerConfig}). The conversation row and its recent history are read with
+ * one query each, and appends insert only the new messages and bump {@code updatedAt}; the aggregate is never
+ * re-saved.
+ */
+@Component
+public class JpaConversationStore implements ConversationStore {
+
+    private final ConversationRepository conversationRepository;
+    private final MessageRepository messageRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Scheduler dbScheduler;
+    private final ObjectProvider<HistorySummaryCache> summaries;
+    private final int maxHistoryMessages;
+
+    public JpaConversationStore(ConversationRepository conversationRepository,
+                                MessageRepository messageRepository,
+                                TransactionTemplate transactionTemplate,
+                                Scheduler dbScheduler,
+                                ObjectProvider<HistorySummaryCache> summaries,
+                                @Value("${ai.context.max-history-messages:100}") int maxHistoryMessages) {
+        this.conversationRepository = conversationRepository;
+        this.messageRepository = messageRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.dbScheduler = dbScheduler;
+        this.summaries = summaries;
+        this.maxHistoryMessages = maxHistoryMessages;
+    }
+
+    @Override
+    public Mono<Conversation> findOrCreate(String id, String model) {
+        return Mono.fromCallable(() -> {
+                    Conversation conv = id == null ? null : conversationRepository.findById(id).orElse(null);
+                    if (conv == null) {
+                        conv = new Conversation();
+                        if (model != null) conv.setModel(model);
+                        conv = conversationRepository.save(conv);
+                        conv.setMessages(new ArrayList<>());
+                        return conv;
+                    }
+                    List<Message> recent = new ArrayList<>(messageRepository.findRecent(conv.getId(),
+                            summarizedThrough(summaries, conv.getId()), Limit.of(maxHistoryMessages)));
+                    Collections.reverse(recent);
+                    conv.setMessages(recent);
+                    if (model != null) conv.setModel(model);
+                    return conv;
+                })
+                .subscribeOn(dbScheduler);
+    }
+
+    @Override
+    public Mono<Conversation> appendMessages(Conversation conversation, List<Message> messages) {
+        return Mono.fromCallable(() -> {
+                    Instant now = Instant.now();
+                    transactionTemplate.executeWithoutResult(status -> {
+                        messageRepository.append(conversation.getId(), messages);
+                        conversationRepository.touch(conversation.getId(), conversation.getModel(), now);
+                    });
+                    messages.forEach(conversation::addMessage);
+                    conversation.setUpdatedAt(now);
+                    return conversation;
+                })
+                .subscribeOn(dbScheduler);
+    }
+
+    /**
+     * Id of the last message covered by the conversation's cached summary, 0 when there is none yet; older
+     * messages never reach the prompt.
+     */
+    static long summarizedThrough(ObjectProvider<HistorySummaryCache> summaries, String conversationId) {
+        HistorySummaryCache cache = summaries.getIfAvailable();
+        if (cache == null) return 0;
+        return cache.find(conversationId).map(HistorySummary::throughMessageId).orElse(0L);
+    }
+}
@@ -0,0 +1,57 @@
+package com.ai_chatbot.repository.implementation;
+
+import com.ai_chatbot.entity.Message;
+import com.ai_chatbot.repository.MessageAppender;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * JDBC implementation of {@link MessageAppender}: the ids are drawn from the column's sequence, then the rows are
+ * written with one {@code INSERT ... VALUES (...), (...)}, both joining the surrounding JPA transaction.
+ */
+@RequiredArgsConstructor
+public class MessageAppenderImpl implements MessageAppender {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MessageContentColumn contentColumn;
+
+    @Override
+    public void append(String conversationId, List<Message> messages) {
+        if (messages.isEmpty()) return;
+        // RETURNING rows of a multi-row INSERT come in no guaranteed order, so the ids are drawn up front and
+        // handed out in message order
+        List<Long> ids = new ArrayList<>(jdbcTemplate.queryForList(
+                "SELECT nextval(pg_get_serial_sequence('message', 'id')) FROM generate_series(1, ?)",
+                Long.class, messages.size()));
+        Collections.sort(ids);
+        String content = contentColumn.write();
+        StringBuilder sql = new StringBuilder("INSERT INTO message (id, role, content, created_at, conversation_id) VALUES ");
+        for (int i = 0; i < messages.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("(?, ?, ").append(content).append(", ?, ?)");
+        }
+
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(sql.toString());
+            int p = 1;
+            for (int i = 0; i < messages.size(); i++) {
+                Message m = messages.get(i);
+                ps.setLong(p++, ids.get(i));
+                ps.setString(p++, m.getRole());
+                ps.setString(p++, m.getContent() == null ? "" : m.getContent());
+                ps.setObject(p++, OffsetDateTime.ofInstant(m.getCreatedAt(), ZoneOffset.UTC));
+                ps.setString(p++, conversationId);
+            }
+            return ps;
+        });
+        for (int i = 0; i < messages.size(); i++) {
+            messages.get(i).setId(ids.get(i));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.ai_chatbot.repository.implementation;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * SQL expressions for {@code message.content} in hand-written JDBC queries. Hibernate stores {@code @Lob String}
+ * as a PostgreSQL large object ({@code oid}), which has to go through {@code lo_get}/{@code lo_from_bytea}; the
+ * column type is looked up once.
+ */
+@Component
+@RequiredArgsConstructor
+class MessageContentColumn {
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean largeObject;
+
+    /** Expression reading {@code column} as text. */
+    String read(String column) {
+        return largeObject() ? "convert_from(lo_get(" + column + "), 'UTF8')" : column;
+    }
+
+    /** Expression writing a text {@code ?} parameter. */
+    String write() {
+        return largeObject() ? "lo_from_bytea(0, convert_to(?, 'UTF8'))" : "?";
+    }
+
+    private boolean largeObject() {
+        Boolean lob = largeObject;
+        if (lob == null) {
+            lob = "oid".equals(jdbcTemplate.query("SELECT data_type FROM information_schema.columns " +
+                            "WHERE table_schema = current_schema() AND table_name = 'message' AND column_name = 'content'",
+                    rs -> rs.next() ? rs.getString(1) : null));
+            largeObject = lob;
+        }
+        return lob;
+    }
+}
@@ -0,0 +1,183 @@
+package com.ai_chatbot.repository.implementation;
+
+import com.ai_chatbot.aiclient.HistorySummaryCache;
+import com.ai_chatbot.entity.Conversation;
+import com.ai_chatbot.entity.Message;
+import com.ai_chatbot.repository.ConversationStore;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Parameter;
+import io.r2dbc.spi.Parameters;
+import io.r2dbc.spi.R2dbcType;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Non-blocking {@link ConversationStore} on R2DBC, enabled with {@code ai.persistence.mode=reactive}. It works
+ * on the tables Hibernate maintains for {@link Conversation} and {@link Message}. Hibernate stores
+ * {@code @Lob String} as a PostgreSQL large object ({@code oid}), so {@code message.content} is read and
+ * written through {@code lo_get}/{@code lo_from_bytea} when the column has that type.
+ */
+@Primary
+@Component
+@ConditionalOnProperty(name = "ai.persistence.mode", havingValue = "reactive")
+public class R2dbcConversationStore implements ConversationStore {
+
+    private final DatabaseClient db;
+    private final ObjectProvider<HistorySummaryCache> summaries;
+    private final int maxHistoryMessages;
+    private final Mono<Boolean> largeObjectContent;
+
+    public R2dbcConversationStore(DatabaseClient db,
+                                  ObjectProvider<HistorySummaryCache> summaries,
+                                  @Value("${ai.context.max-history-messages:100}") int maxHistoryMessages) {
+        this.db = db;
+        this.summaries = summaries;
+        this.maxHistoryMessages = maxHistoryMessages;
+        this.largeObjectContent = db.sql("SELECT data_type FROM information_schema.columns " +
+                        "WHERE table_schema = current_schema() AND table_name = 'message' AND column_name = 'content'")
+                .map(row -> "oid".equals(row.get("data_type", String.class)))
+                .first()
+                .defaultIfEmpty(false)
+                .cache(v -> Duration.ofMillis(Long.MAX_VALUE), e -> Duration.ZERO, () -> Duration.ZERO);
+    }
+
+    @Override
+    public Mono<Conversation> findOrCreate(String id, String model) {
+        Mono<Conversation> existing = id == null ? Mono.empty() : db.sql(
+                        "SELECT id, model, created_at, updated_at FROM conversation WHERE id = $1")
+                .bind(0, id)
+                .map(row -> {
+                    Conversation conv = new Conversation();
+                    conv.setId(row.get("id", String.class));
+                    conv.setModel(row.get("model", String.class));
+                    conv.setCreatedAt(row.get("created_at", Instant.class));
+                    conv.setUpdatedAt(row.get("updated_at", Instant.class));
+                    return conv;
+                })
+                .first()
+                .flatMap(this::loadMessages);
+        return existing
+                .switchIfEmpty(Mono.defer(() -> create(model)))
+                .doOnNext(conv -> {
+                    if (model != null) conv.setModel(model);
+                });
+    }
+
+    /**
+     * The id draw, the insert and the {@code updated_at} bump run in one transaction on one connection, like the
+     * JPA store, so the keyset listing never sees new messages under a stale {@code updated_at}.
+     */
+    @Override
+    public Mono<Conversation> appendMessages(Conversation conversation, List<Message> messages) {
+        Instant now = Instant.now();
+        return largeObjectContent.flatMap(lob -> db.inConnection(conn -> Mono.usingWhen(
+                        Mono.from(conn.beginTransaction()).thenReturn(conn),
+                        c -> insertMessages(c, lob, conversation.getId(), messages)
+                                .then(Mono.defer(() -> touch(c, conversation, now))),
+                        Connection::commitTransaction,
+                        (c, err) -> c.rollbackTransaction(),
+                        Connection::rollbackTransaction)))
+                .then(Mono.fromSupplier(() -> {
+                    messages.forEach(conversation::addMessage);
+                    conversation.setUpdatedAt(now);
+                    return conversation;
+                }));
+    }
+
+    private Mono<Void> insertMessages(Connection conn, boolean lob, String conversationId, List<Message> messages) {
+        if (messages.isEmpty()) return Mono.empty();
+        // RETURNING rows come in no guaranteed order, so the ids are drawn up front and handed out in list order
+        return Flux.from(conn.createStatement(
+                                "SELECT nextval(pg_get_serial_sequence('message', 'id')) AS id FROM generate_series(1, $1)")
+                        .bind(0, messages.size())
+                        .execute())
+                .concatMap(result -> result.map((row, meta) -> row.get("id", Long.class)))
+                .sort()
+                .collectList()
+                .flatMap(ids -> {
+                    Statement st = conn.createStatement("INSERT INTO message (id, role, content, created_at, conversation_id) " +
+                            "VALUES ($1, $2, " + (lob ? "lo_from_bytea(0, convert_to($3, 'UTF8'))" : "$3") + ", $4, $5)");
+                    for (int i = 0; i < messages.size(); i++) {
+                        Message m = messages.get(i);
+                        if (i > 0) st.add();
+                        st.bind(0, ids.get(i))
+                                .bind(1, m.getRole())
+                                .bind(2, m.getContent() == null ? "" : m.getContent())
+                                .bind(3, m.getCreatedAt())
+                                .bind(4, conversationId);
+                    }
+                    return Flux.from(st.execute())
+                            .concatMap(Result::getRowsUpdated)
+                            .then(Mono.fromRunnable(() -> {
+                                for (int i = 0; i < messages.size(); i++) messages.get(i).setId(ids.get(i));
+                            }));
+                });
+    }
+
+    private Mono<Void> touch(Connection conn, Conversation conversation, Instant now) {
+        return Flux.from(conn.createStatement("UPDATE conversation SET model = $2, updated_at = $3 WHERE id = $1")
+                        .bind(0, conversation.getId())
+                        .bind(1, nullable(conversation.getModel()))
+                        .bind(2, now)
+                        .execute())
+                .concatMap(Result::getRowsUpdated)
+                .then();
+    }
+
+    private Mono<Conversation> create(String model) {
+        Conversation conv = new Conversation();
+        if (model != null) conv.setModel(model);
+        return db.sql("INSERT INTO conversation (id, model, created_at, updated_at) VALUES ($1, $2, $3, $4)")
+                .bind(0, conv.getId())
+                .bind(1, nullable(conv.getModel()))
+                .bind(2, conv.getCreatedAt())
+                .bind(3, conv.getUpdatedAt())
+                .fetch().rowsUpdated()
+                .thenReturn(conv);
+    }
+
+    /**
+     * The newest messages after the summarized ones, newest first in SQL so only they are read (and only their
+     * large objects fetched), then added oldest first.
+     */
+    private Mono<Conversation> loadMessages(Conversation conv) {
+        return largeObjectContent.flatMap(lob -> db.sql("SELECT id, role, " +
+                                (lob ? "convert_from(lo_get(content), 'UTF8')" : "content") + " AS content, created_at " +
+                                "FROM message WHERE conversation_id = $1 AND id > $2 ORDER BY id DESC LIMIT $3")
+                        .bind(0, conv.getId())
+                        .bind(1, JpaConversationStore.summarizedThrough(summaries, conv.getId()))
+                        .bind(2, maxHistoryMessages)
+                        .map(row -> {
+                            Message m = new Message();
+                            m.setId(row.get("id", Long.class));
+                            m.setRole(row.get("role", String.class));
+                            m.setContent(row.get("content", String.class));
+                            m.setCreatedAt(row.get("created_at", Instant.class));
+                            return m;
+                        })
+                        .all()
+                        .collectList()
+                        .doOnNext(recent -> {
+                            Collections.reverse(recent);
+                            recent.forEach(conv::addMessage);
+                        }))
+                .thenReturn(conv);
+    }
+
+    private static Parameter nullable(String value) {
+        return Parameters.in(R2dbcType.VARCHAR, value);
+    }
+}
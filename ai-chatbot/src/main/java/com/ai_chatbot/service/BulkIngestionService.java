@@ -0,0 +1,134 @@
+package com.ai_chatbot.service;
+
+import com.ai_chatbot.entity.IngestDocument;
+import com.ai_chatbot.entity.IngestProgress;
+import com.ai_chatbot.vectorstore.DocumentRecord;
+import com.ai_chatbot.vectorstore.VectorStore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk document ingestion: documents are embedded in batches (several batches in flight at once), regrouped
+ * into larger write batches and stored through {@link VectorStore#upsertDocuments}. Embedding of the
+ * next batches overlaps with writing the current one.
+ */
+@Service
+public class BulkIngestionService {
+
+    private final EmbeddingService embeddingService;
+    private final VectorStore vectorStore;
+    private final ObjectMapper mapper;
+    private final int embedBatchSize;
+    private final int embedConcurrency;
+    private final int writeBatchSize;
+    private final Timer embedTimer;
+    private final Timer writeTimer;
+
+    public BulkIngestionService(EmbeddingService embeddingService,
+                                VectorStore vectorStore,
+                                ObjectMapper mapper,
+                                MeterRegistry meterRegistry,
+                                @Value("${ai.ingest.embed-batch-size:64}") int embedBatchSize,
+                                @Value("${ai.ingest.embed-concurrency:4}") int embedConcurrency,
+                                @Value("${ai.ingest.write-batch-size:1000}") int writeBatchSize) {
+        this.embeddingService = embeddingService;
+        this.vectorStore = vectorStore;
+        this.mapper = mapper;
+        this.embedBatchSize = embedBatchSize;
+        this.embedConcurrency = embedConcurrency;
+        this.writeBatchSize = writeBatchSize;
+        this.embedTimer = Timer.builder("ingest.stage.duration").tag("stage", "embed").register(meterRegistry);
+        this.writeTimer = Timer.builder("ingest.stage.duration").tag("stage", "write").register(meterRegistry);
+    }
+
+    /**
+     * Ingest a stream of documents, emitting a progress report after every written batch and a final report
+     * with {@code done = true}.
+     */
+    public Flux<IngestProgress> ingest(Flux<IngestDocument> documents) {
+        return Flux.defer(() -> {
+            Stats stats = new Stats();
+            return documents
+                    .buffer(embedBatchSize)
+                    .flatMapSequential(batch -> embed(batch, stats), embedConcurrency)
+                    .concatMapIterable(records -> records)
+                    .buffer(writeBatchSize)
+                    .concatMap(batch -> write(batch, stats))
+                    .concatWith(Mono.fromSupplier(() -> stats.snapshot(true)));
+        });
+    }
+
+    private Mono<List<DocumentRecord>> embed(List<IngestDocument> batch, Stats stats) {
+        List<String> texts = new ArrayList<>(batch.size());
+        for (IngestDocument d : batch) texts.add(d.getContent() == null ? "" : d.getContent());
+        long start = System.nanoTime();
+        return embeddingService.embedTexts(texts)
+                .map(vectors -> {
+                    long nanos = System.nanoTime() - start;
+                    embedTimer.record(nanos, TimeUnit.NANOSECONDS);
+                    stats.embedNanos.addAndGet(nanos);
+                    stats.embedded.addAndGet(batch.size());
+                    List<DocumentRecord> records = new ArrayList<>(batch.size());
+                    for (int i = 0; i < batch.size(); i++) records.add(toRecord(batch.get(i), vectors.get(i)));
+                    return records;
+                });
+    }
+
+    private Mono<IngestProgress> write(List<DocumentRecord> batch, Stats stats) {
+        return Mono.fromCallable(() -> {
+                    long start = System.nanoTime();
+                    vectorStore.upsertDocuments(batch);
+                    long nanos = System.nanoTime() - start;
+                    writeTimer.record(nanos, TimeUnit.NANOSECONDS);
+                    stats.writeNanos.addAndGet(nanos);
+                    stats.written.addAndGet(batch.size());
+                    return stats.snapshot(false);
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private DocumentRecord toRecord(IngestDocument doc, float[] vector) {
+        UUID id = doc.getId() == null ? UUID.randomUUID() : UUID.fromString(doc.getId());
+        String title = doc.getTitle() != null ? doc.getTitle() : "";
+        String metadata;
+        try {
+            metadata = doc.getMetadata() == null ? "{}" : mapper.writeValueAsString(doc.getMetadata());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid metadata for document " + id, e);
+        }
+        return new DocumentRecord(id, title, doc.getContent(), metadata, vector);
+    }
+
+    private static final class Stats {
+        final long startNanos = System.nanoTime();
+        final AtomicLong embedded = new AtomicLong();
+        final AtomicLong written = new AtomicLong();
+        final AtomicLong embedNanos = new AtomicLong();
+        final AtomicLong writeNanos = new AtomicLong();
+
+        IngestProgress snapshot(boolean done) {
+            return new IngestProgress(embedded.get(), written.get(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+                    perSecond(embedded.get(), embedNanos.get()),
+                    perSecond(written.get(), writeNanos.get()),
+                    done);
+        }
+
+        private static double perSecond(long count, long nanos) {
+            return nanos == 0 ? 0.0 : count * 1_000_000_000.0 / nanos;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.ai_chatbot.service;
+
+import com.ai_chatbot.entity.ConversationSummary;
+import com.ai_chatbot.entity.CursorPage;
+import com.ai_chatbot.entity.MessageView;
+import com.ai_chatbot.repository.ConversationRepository;
+import com.ai_chatbot.repository.MessageRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Keyset-paginated reads for the conversation sidebar and history views. Cursors are opaque to clients:
+ * conversations page by {@code (updatedAt, id)}, messages by id. Page sizes are clamped to {@code [1, MAX_LIMIT]}.
+ */
+@Service
+@RequiredArgsConstructor
+public class ConversationQueryService {
+
+    public static final int MAX_LIMIT = 200;
+
+    private final ConversationRepository conversationRepository;
+    private final MessageRepository messageRepository;
+
+    public CursorPage<ConversationSummary> listConversations(String cursor, int limit) {
+        int size = clamp(limit);
+        Instant beforeUpdatedAt = null;
+        String beforeId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String decoded = decode(cursor);
+            int sep = decoded.indexOf('|');
+            if (sep <= 0) throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            try {
+                beforeUpdatedAt = Instant.parse(decoded.substring(0, sep));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            beforeId = decoded.substring(sep + 1);
+        }
+        List<ConversationSummary> items = conversationRepository.findSummaries(beforeUpdatedAt, beforeId, size);
+        String next = null;
+        if (items.size() == size) {
+            ConversationSummary last = items.get(size - 1);
+            next = encode(last.updatedAt() + "|" + last.id());
+        }
+        return new CursorPage<>(items, next);
+    }
+
+    public CursorPage<MessageView> listMessages(String conversationId, String cursor, int limit) {
+        int size = clamp(limit);
+        long afterId = 0;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                afterId = Long.parseLong(decode(cursor));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+        List<MessageView> items = messageRepository.findPage(conversationId, afterId, Limit.of(size));
+        String next = items.size() == size ? encode(String.valueOf(items.get(size - 1).id())) : null;
+        return new CursorPage<>(items, next);
+    }
+
+    private static int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String decode(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+}
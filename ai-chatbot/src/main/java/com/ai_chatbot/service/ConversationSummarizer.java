@@ -0,0 +1,182 @@
+package com.ai_chatbot.service;
+
+import com.ai_chatbot.aiclient.AIClient;
+import com.ai_chatbot.aiclient.HistorySummary;
+import com.ai_chatbot.aiclient.HistorySummaryCache;
+import com.ai_chatbot.aiclient.Priority;
+import com.ai_chatbot.entity.Conversation;
+import com.ai_chatbot.entity.ConversationDigest;
+import com.ai_chatbot.entity.Message;
+import com.ai_chatbot.repository.ConversationDigestRepository;
+import com.ai_chatbot.util.TokenEstimator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compacts the older turns of long conversations into a persisted {@link ConversationDigest} and serves it to
+ * {@link com.ai_chatbot.aiclient.ContextWindowBuilder} as a {@link HistorySummaryCache}.
+ * <p>
+ * After each completed turn, {@link #onTurnCompleted} checks whether the user/assistant messages not yet
+ * covered by the digest exceed {@code ai.summary.threshold-tokens}. If so, it folds the oldest of them (up to
+ * {@code ai.summary.max-input-tokens}, never the last {@code ai.summary.keep-recent-messages}) into the
+ * previous summary with one LLM call, in the background. Summaries are therefore refreshed incrementally, and
+ * at most one refresh per conversation runs at a time. Lookups only read an LRU of recent digests; a miss
+ * loads the digest from the database asynchronously and the request goes on without one.
+ */
+@Slf4j
+@Service
+public class ConversationSummarizer implements HistorySummaryCache {
+
+    private final AIClient aiClient;
+    private final ConversationDigestRepository digestRepository;
+    private final Scheduler dbScheduler;
+    private final boolean enabled;
+    private final int thresholdTokens;
+    private final int keepRecentMessages;
+    private final int maxInputTokens;
+    private final String model;
+
+    private final Map<String, Optional<HistorySummary>> cache;
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+    private final Counter refreshes;
+    private final Counter failures;
+
+    public ConversationSummarizer(AIClient aiClient,
+                                  ConversationDigestRepository digestRepository,
+                                  Scheduler dbScheduler,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${ai.summary.enabled:true}") boolean enabled,
+                                  @Value("${ai.summary.threshold-tokens:2048}") int thresholdTokens,
+                                  @Value("${ai.summary.keep-recent-messages:6}") int keepRecentMessages,
+                                  @Value("${ai.summary.max-input-tokens:3000}") int maxInputTokens,
+                                  @Value("${ai.summary.model:}") String model,
+                                  @Value("${ai.summary.cache-size:10000}") int cacheSize) {
+        this.aiClient = aiClient;
+        this.digestRepository = digestRepository;
+        this.dbScheduler = dbScheduler;
+        this.enabled = enabled;
+        this.thresholdTokens = thresholdTokens;
+        this.keepRecentMessages = keepRecentMessages;
+        this.maxInputTokens = maxInputTokens;
+        this.model = model.isBlank() ? null : model;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Optional<HistorySummary>> eldest) {
+                return size() > cacheSize;
+            }
+        });
+        this.refreshes = Counter.builder("conversation.summary.refreshes").register(meterRegistry);
+        this.failures = Counter.builder("conversation.summary.failures").register(meterRegistry);
+    }
+
+    @Override
+    public Optional<HistorySummary> find(String conversationId) {
+        if (!enabled) return Optional.empty();
+        Optional<HistorySummary> cached = cache.get(conversationId);
+        if (cached != null) return cached;
+        if (running.add(conversationId)) {
+            Mono.fromCallable(() -> digestRepository.findById(conversationId))
+                    .subscribeOn(dbScheduler)
+                    .doFinally(s -> running.remove(conversationId))
+                    .subscribe(digest -> cache.putIfAbsent(conversationId, digest.map(ConversationSummarizer::toSummary)),
+                            e -> log.warn("Could not load summary of conversation {}", conversationId, e));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Schedules a background refresh of the conversation's summary if enough history has accumulated since
+     * the last one. Never blocks and never fails the caller.
+     */
+    public void onTurnCompleted(Conversation conv) {
+        if (!enabled || conv == null || conv.getId() == null) return;
+        Optional<HistorySummary> cached = cache.get(conv.getId());
+        if (cached == null) return; // not loaded yet; the next turn will see it
+        HistorySummary previous = cached.orElse(null);
+        List<Message> pending = pending(conv.getMessages(), previous);
+        if (pending.isEmpty() || !running.add(conv.getId())) return;
+        summarize(conv.getId(), previous, pending)
+                .doFinally(s -> running.remove(conv.getId()))
+                .subscribe(summary -> {
+                            cache.put(conv.getId(), Optional.of(summary));
+                            refreshes.increment();
+                        },
+                        e -> {
+                            failures.increment();
+                            log.warn("Summarizing conversation {} failed", conv.getId(), e);
+                        });
+    }
+
+    /**
+     * The oldest uncovered user/assistant messages to fold in next, or none while the uncovered history is
+     * still under the threshold.
+     */
+    List<Message> pending(List<Message> history, HistorySummary previous) {
+        long through = previous == null ? 0 : previous.throughMessageId();
+        List<Message> uncovered = new ArrayList<>();
+        int uncoveredTokens = 0;
+        for (Message m : history) {
+            if ("system".equals(m.getRole()) || m.getId() == null || m.getId() <= through) continue;
+            uncovered.add(m);
+            uncoveredTokens += TokenEstimator.estimate(m.getContent());
+        }
+        if (uncoveredTokens <= thresholdTokens || uncovered.size() <= keepRecentMessages) return List.of();
+
+        List<Message> batch = new ArrayList<>();
+        int tokens = 0;
+        for (Message m : uncovered.subList(0, uncovered.size() - keepRecentMessages)) {
+            int t = TokenEstimator.estimate(m.getContent());
+            if (!batch.isEmpty() && tokens + t > maxInputTokens) break;
+            batch.add(m);
+            tokens += t;
+        }
+        return batch;
+    }
+
+    private Mono<HistorySummary> summarize(String conversationId, HistorySummary previous, List<Message> batch) {
+        StringBuilder prompt = new StringBuilder(
+                "Update the running summary of a conversation between a user and an assistant. Keep facts, " +
+                "decisions, names, numbers and open questions; drop pleasantries. Answer with the updated " +
+                "summary only, in at most 200 words.\n\nCurrent summary:\n");
+        prompt.append(previous == null ? "(none)" : previous.text()).append("\n\nNew messages:\n");
+        for (Message m : batch) {
+            prompt.append(m.getRole()).append(": ").append(m.getContent()).append('\n');
+        }
+        long through = batch.get(batch.size() - 1).getId();
+
+        // no id: the request must not pick up a summary itself
+        Conversation scratch = new Conversation();
+        scratch.setId(null);
+        return aiClient.chat(scratch, prompt.toString(), model, false)
+                .contextWrite(Priority.BATCH.context())
+                .filter(text -> !text.isBlank())
+                .flatMap(text -> Mono.fromCallable(() -> {
+                            ConversationDigest digest = new ConversationDigest();
+                            digest.setConversationId(conversationId);
+                            digest.setThroughMessageId(through);
+                            digest.setContent(text.strip());
+                            digest.setUpdatedAt(Instant.now());
+                            return toSummary(digestRepository.save(digest));
+                        })
+                        .subscribeOn(dbScheduler));
+    }
+
+    private static HistorySummary toSummary(ConversationDigest digest) {
+        return new HistorySummary(digest.getThroughMessageId(), digest.getContent());
+    }
+}
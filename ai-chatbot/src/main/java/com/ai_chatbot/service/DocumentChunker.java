@@ -0,0 +1,161 @@
+package com.ai_chatbot.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Splits text read from a {@link Reader} into overlapping chunks of at most {@code maxTokens} estimated tokens.
+ * Chunks break on whitespace, and each chunk starts with roughly the last {@code overlapTokens} tokens of the
+ * previous one so retrieval does not lose context at the seams; a run without whitespace longer than a chunk
+ * is split hard. The reader is consumed incrementally; memory use is bounded by one chunk plus the read buffer,
+ * whatever the size of the input.
+ */
+public class DocumentChunker {
+
+    private final int maxTokens;
+    private final int overlapTokens;
+
+    public DocumentChunker(int maxTokens, int overlapTokens) {
+        if (maxTokens <= 0) throw new IllegalArgumentException("maxTokens must be positive");
+        if (overlapTokens < 0 || overlapTokens >= maxTokens) {
+            throw new IllegalArgumentException("overlapTokens must be in [0, maxTokens)");
+        }
+        this.maxTokens = maxTokens;
+        this.overlapTokens = overlapTokens;
+    }
+
+    public Iterator<String> chunks(Reader reader) {
+        return new ChunkIterator(reader);
+    }
+
+    private final class ChunkIterator implements Iterator<String> {
+
+        private final Reader reader;
+        private final char[] buf = new char[8192];
+        private int pos;
+        private int limit;
+        private boolean eof;
+
+        private final StringBuilder text = new StringBuilder();
+        // start offset in text and token estimate of every word currently in text
+        private final ArrayDeque<int[]> words = new ArrayDeque<>();
+        private int tokens;
+        private boolean hasFreshWords;
+        // the word being read, its token estimate and the length of its trailing letter/digit run
+        private final StringBuilder word = new StringBuilder();
+        private int wordTokens;
+        private int run;
+        private String next;
+
+        ChunkIterator(Reader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) next = advance();
+            return next != null;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            String chunk = next;
+            next = null;
+            return chunk;
+        }
+
+        private String advance() {
+            while (true) {
+                int c = read();
+                if (c < 0) {
+                    String chunk = word.isEmpty() ? null : endWord();
+                    if (chunk != null) {
+                        return chunk;
+                    }
+                    return flush();
+                }
+                // TokenEstimator's cost of c, so the word's estimate is known without rescanning it
+                boolean alnum = Character.isLetterOrDigit(c);
+                int cost = alnum ? (run % 4 == 0 ? 1 : 0) : (Character.isWhitespace(c) ? 0 : 1);
+                // a single word never exceeds a chunk; longer runs without whitespace are split hard
+                String chunk = null;
+                if (wordTokens + cost > maxTokens) {
+                    chunk = endWord();
+                    cost = Character.isWhitespace(c) ? 0 : 1;
+                }
+                word.append((char) c);
+                wordTokens += cost;
+                run = alnum ? run + 1 : 0;
+                if (chunk == null && Character.isWhitespace(c)) chunk = endWord();
+                if (chunk != null) return chunk;
+            }
+        }
+
+        private String endWord() {
+            String chunk = addWord(word, wordTokens);
+            word.setLength(0);
+            wordTokens = 0;
+            run = 0;
+            return chunk;
+        }
+
+        // returns a completed chunk when the word does not fit into the current one
+        private String addWord(CharSequence word, int wordTokens) {
+            String chunk = null;
+            if (tokens + wordTokens > maxTokens) {
+                if (hasFreshWords) chunk = text.toString().strip();
+                keepOverlap(wordTokens);
+            }
+            words.addLast(new int[]{text.length(), wordTokens});
+            text.append(word);
+            tokens += wordTokens;
+            if (wordTokens > 0) hasFreshWords = true;
+            return chunk == null || chunk.isEmpty() ? null : chunk;
+        }
+
+        // keeps about overlapTokens of trailing words, fewer if the incoming word would not fit otherwise
+        private void keepOverlap(int incomingTokens) {
+            while (!words.isEmpty() && (tokens + incomingTokens > maxTokens
+                    || tokens - words.peekFirst()[1] >= overlapTokens && tokens > overlapTokens)) {
+                tokens -= words.pollFirst()[1];
+            }
+            int cut = words.isEmpty() ? text.length() : words.peekFirst()[0];
+            text.delete(0, cut);
+            for (int[] w : words) w[0] -= cut;
+            hasFreshWords = false;
+        }
+
+        private String flush() {
+            if (!hasFreshWords) return null;
+            String chunk = text.toString().strip();
+            text.setLength(0);
+            words.clear();
+            tokens = 0;
+            hasFreshWords = false;
+            return chunk.isEmpty() ? null : chunk;
+        }
+
+        private int read() {
+            if (pos == limit) {
+                if (eof) return -1;
+                try {
+                    limit = reader.read(buf, 0, buf.length);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                pos = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    eof = true;
+                    return -1;
+                }
+            }
+            return buf[pos++];
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.ai_chatbot.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Collects single-text embedding requests for up to {@code window} or {@code maxBatchSize} texts, whichever
+ * comes first, and sends them upstream as one batched call. Results are fanned back out to each caller's
+ * {@link Mono}. At most {@code maxPending} requests may wait for a batch; beyond that callers are rejected
+ * immediately instead of queueing without bound.
+ */
+public class EmbeddingBatcher {
+
+    private final Function<List<String>, Mono<List<float[]>>> batchCall;
+    private final int maxPending;
+    private final Sinks.Many<Pending> queue;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Disposable pipeline;
+
+    private final Timer batchLatency;
+    private final DistributionSummary batchSize;
+
+    public EmbeddingBatcher(Function<List<String>, Mono<List<float[]>>> batchCall,
+                            int maxBatchSize, Duration window, int maxPending, int concurrency,
+                            MeterRegistry meterRegistry) {
+        this.batchCall = batchCall;
+        this.maxPending = maxPending;
+        this.queue = Sinks.many().unicast().onBackpressureBuffer(Queues.<Pending>get(maxPending).get());
+        this.batchLatency = Timer.builder("embedding.batch.latency")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("embedding.batch.size").register(meterRegistry);
+        Gauge.builder("embedding.batch.pending", pending, AtomicInteger::get).register(meterRegistry);
+
+        this.pipeline = queue.asFlux()
+                .bufferTimeout(maxBatchSize, window, true)
+                .flatMap(this::dispatch, concurrency)
+                .subscribe();
+    }
+
+    public Mono<float[]> submit(String text) {
+        return Mono.create(sink -> {
+            if (pending.incrementAndGet() > maxPending) {
+                pending.decrementAndGet();
+                sink.error(new IllegalStateException("Embedding queue is full (" + maxPending + " pending requests)"));
+                return;
+            }
+            Sinks.EmitResult result;
+            // the unicast sink only tolerates one producer at a time
+            synchronized (queue) {
+                result = queue.tryEmitNext(new Pending(text, sink));
+            }
+            if (result.isFailure()) {
+                pending.decrementAndGet();
+                sink.error(new IllegalStateException("Embedding request rejected: " + result));
+            }
+        });
+    }
+
+    public void shutdown() {
+        pipeline.dispose();
+    }
+
+    private Mono<Void> dispatch(List<Pending> batch) {
+        pending.addAndGet(-batch.size());
+        batchSize.record(batch.size());
+        List<String> texts = new ArrayList<>(batch.size());
+        for (Pending p : batch) texts.add(p.text());
+
+        Timer.Sample sample = Timer.start();
+        return batchCall.apply(texts)
+                .defaultIfEmpty(List.of())
+                .doOnNext(vectors -> {
+                    if (vectors.size() != batch.size()) {
+                        throw new IllegalStateException("Expected " + batch.size() + " embeddings but got " + vectors.size());
+                    }
+                    for (int i = 0; i < batch.size(); i++) {
+                        batch.get(i).sink().success(vectors.get(i));
+                    }
+                })
+                .doOnError(ex -> batch.forEach(p -> p.sink().error(ex)))
+                .doFinally(signal -> sample.stop(batchLatency))
+                .then()
+                .onErrorResume(ex -> Mono.empty());
+    }
+
+    private record Pending(String text, MonoSink<float[]> sink) {
+    }
+}
@@ -0,0 +1,176 @@
+package com.ai_chatbot.service;
+
+import com.ai_chatbot.util.SingleFlight;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.text.Normalizer;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded in-process cache of embedding vectors keyed by (embedding model, normalized text).
+ * Entries are weighed by their approximate heap footprint and evicted least-recently-used once the byte
+ * budget is exceeded, or lazily once they are older than the configured TTL. Concurrent misses for the same
+ * key share a single upstream call.
+ */
+@Component
+public class EmbeddingCache {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    // object headers, the key record and the map node; close enough for budgeting purposes
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private final boolean enabled;
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final Clock clock;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final SingleFlight<Key, float[]> inFlight = new SingleFlight<>();
+    private long currentBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public EmbeddingCache(@Value("${ai.embedding.cache.enabled:true}") boolean enabled,
+                          @Value("${ai.embedding.cache.max-bytes:67108864}") long maxBytes,
+                          @Value("${ai.embedding.cache.ttl:30m}") Duration ttl,
+                          MeterRegistry meterRegistry) {
+        this(enabled, maxBytes, ttl, Clock.systemUTC());
+        FunctionCounter.builder("embedding.cache.requests", hits, AtomicLong::get).tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("embedding.cache.requests", misses, AtomicLong::get).tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("embedding.cache.evictions", evictions, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("embedding.cache.size", this, EmbeddingCache::size).register(meterRegistry);
+        Gauge.builder("embedding.cache.bytes", this, EmbeddingCache::bytes).baseUnit("bytes").register(meterRegistry);
+    }
+
+    EmbeddingCache(boolean enabled, long maxBytes, Duration ttl, Clock clock) {
+        this.enabled = enabled;
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * Return the cached embedding for the text, or call the loader on a miss. The returned array is a copy,
+     * so callers are free to modify it.
+     */
+    public Mono<float[]> get(String model, String text, Supplier<Mono<float[]>> loader) {
+        if (!enabled) return loader.get();
+
+        Key key = new Key(model, normalize(text));
+        float[] cached = lookup(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return Mono.just(cached.clone());
+        }
+        misses.incrementAndGet();
+        return inFlight.execute(key, () -> loader.get().doOnNext(vector -> put(key, vector)))
+                .map(float[]::clone);
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+            currentBytes = 0;
+        }
+    }
+
+    public Stats stats() {
+        synchronized (entries) {
+            return new Stats(hits.get(), misses.get(), evictions.get(), entries.size(), currentBytes);
+        }
+    }
+
+    static String normalize(String text) {
+        if (text == null) return "";
+        String nfc = Normalizer.normalize(text, Normalizer.Form.NFC);
+        return WHITESPACE.matcher(nfc.strip()).replaceAll(" ");
+    }
+
+    private float[] lookup(Key key) {
+        long now = clock.millis();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) return null;
+            if (now - entry.storedAt() > ttlMillis) {
+                remove(key, entry);
+                return null;
+            }
+            return entry.vector();
+        }
+    }
+
+    private void put(Key key, float[] vector) {
+        long weight = weigh(key, vector);
+        if (weight > maxBytes) return;
+
+        Entry entry = new Entry(vector.clone(), clock.millis(), weight);
+        synchronized (entries) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) currentBytes -= previous.weight();
+            currentBytes += weight;
+            evictIfNeeded();
+        }
+    }
+
+    // caller holds the lock
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext() && currentBytes > maxBytes) {
+            Map.Entry<Key, Entry> eldest = it.next();
+            it.remove();
+            currentBytes -= eldest.getValue().weight();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void remove(Key key, Entry entry) {
+        entries.remove(key);
+        currentBytes -= entry.weight();
+        evictions.incrementAndGet();
+    }
+
+    private static long weigh(Key key, float[] vector) {
+        return ENTRY_OVERHEAD_BYTES + 2L * (key.model().length() + key.text().length()) + 4L * vector.length;
+    }
+
+    private int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private long bytes() {
+        synchronized (entries) {
+            return currentBytes;
+        }
+    }
+
+    record Key(String model, String text) {
+    }
+
+    private record Entry(float[] vector, long storedAt, long weight) {
+    }
+
+    public record Stats(long hits, long misses, long evictions, int size, long bytes) {
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+}
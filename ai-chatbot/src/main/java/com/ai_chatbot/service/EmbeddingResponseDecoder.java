@@ -0,0 +1,117 @@
+package com.ai_chatbot.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Token-level decoder for embedding responses. Reads the numbers of the embedding array(s) straight into
+ * {@code float[]} without building a Jackson tree, and understands the Ollama ({@code embedding},
+ * {@code embeddings}) as well as the OpenAI ({@code data[].embedding}) response shapes.
+ * <p>
+ * The decoder remembers the last seen dimension so later vectors are allocated at their final size up front.
+ * Numbers are read with {@link JsonParser#getFloatValue()}. The fast double parser is enabled because the
+ * default path goes through a {@code String} and {@link Float#parseFloat}, which allocates more per number
+ * than the tree walk this decoder replaces.
+ */
+public class EmbeddingResponseDecoder {
+
+    private static final JsonFactory JSON = JsonFactory.builder()
+            .enable(StreamReadFeature.USE_FAST_DOUBLE_PARSER)
+            .build();
+
+    private volatile int expectedDimensions = 768;
+
+    /**
+     * Decode a single-vector response ({@code /api/embeddings} or an OpenAI response with one input).
+     */
+    public float[] decodeSingle(InputStream in) throws IOException {
+        List<float[]> vectors = decodeAll(in);
+        if (vectors.isEmpty()) throw new IOException("Embedding response contained no vector");
+        return vectors.get(0);
+    }
+
+    /**
+     * Decode every vector of a response, in input order.
+     */
+    public List<float[]> decodeAll(InputStream in) throws IOException {
+        try (JsonParser parser = JSON.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object but got " + parser.currentToken());
+            }
+            List<float[]> vectors = new ArrayList<>(1);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("embedding".equals(field) && value == JsonToken.START_ARRAY) {
+                    vectors.add(readVector(parser));
+                } else if ("embeddings".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_ARRAY) vectors.add(readVector(parser));
+                } else if ("data".equals(field) && value == JsonToken.START_ARRAY) {
+                    readDataArray(parser, vectors);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return vectors;
+        }
+    }
+
+    // OpenAI: "data": [{"object": "embedding", "index": 0, "embedding": [...]}, ...]
+    // entries may come in any order but their indices must be exactly 0..n-1
+    private void readDataArray(JsonParser parser, List<float[]> vectors) throws IOException {
+        List<float[]> entries = new ArrayList<>();
+        List<Integer> indices = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            float[] vector = null;
+            int index = entries.size();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("embedding".equals(field) && value == JsonToken.START_ARRAY) {
+                    vector = readVector(parser);
+                } else if ("index".equals(field) && value == JsonToken.VALUE_NUMBER_INT) {
+                    index = parser.getIntValue();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (vector == null) throw new IOException("data entry without embedding");
+            entries.add(vector);
+            indices.add(index);
+        }
+        float[][] ordered = new float[entries.size()][];
+        for (int i = 0; i < entries.size(); i++) {
+            int index = indices.get(i);
+            if (index < 0 || index >= ordered.length || ordered[index] != null) {
+                throw new IOException("Embedding indices must be 0.." + (ordered.length - 1)
+                        + " without gaps or repeats, got " + indices);
+            }
+            ordered[index] = entries.get(i);
+        }
+        vectors.addAll(Arrays.asList(ordered));
+    }
+
+    // parser is positioned on START_ARRAY; leaves it on the matching END_ARRAY
+    private float[] readVector(JsonParser parser) throws IOException {
+        float[] buf = new float[expectedDimensions];
+        int n = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.VALUE_NUMBER_FLOAT && token != JsonToken.VALUE_NUMBER_INT) {
+                throw new IOException("Unexpected token in embedding array: " + token);
+            }
+            if (n == buf.length) buf = Arrays.copyOf(buf, Math.max(16, buf.length * 2));
+            buf[n++] = parser.getFloatValue();
+        }
+        expectedDimensions = Math.max(1, n);
+        return n == buf.length ? buf : Arrays.copyOf(buf, n);
+    }
+}
@@ -1,13 +1,23 @@
 package com.ai_chatbot.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -21,7 +31,67 @@ public class EmbeddingService {
     @Value("${ai.provider.embedding-model}")
     private String embeddingModel;
 
+    @Autowired
+    private EmbeddingCache embeddingCache;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ai.embedding.batch.enabled:true}")
+    private boolean batchingEnabled;
+    @Value("${ai.embedding.batch.max-size:32}")
+    private int maxBatchSize;
+    @Value("${ai.embedding.batch.window:10ms}")
+    private Duration batchWindow;
+    @Value("${ai.embedding.batch.max-pending:1024}")
+    private int maxPending;
+    @Value("${ai.embedding.batch.concurrency:2}")
+    private int batchConcurrency;
+
+    private final EmbeddingResponseDecoder decoder = new EmbeddingResponseDecoder();
+    private EmbeddingBatcher batcher;
+
+    @PostConstruct
+    void startBatcher() {
+        if (batchingEnabled) {
+            batcher = new EmbeddingBatcher(this::fetchEmbeddings, maxBatchSize, batchWindow, maxPending,
+                    batchConcurrency, meterRegistry);
+        }
+    }
+
+    @PreDestroy
+    void stopBatcher() {
+        if (batcher != null) batcher.shutdown();
+    }
+
+    /**
+     * Embedding of one text, unit length. Ollama's batched {@code /api/embed} returns L2-normalized vectors and
+     * the single-text {@code /api/embeddings} does not, so every vector is normalized here whichever endpoint
+     * served it; stored documents and queries are then on the same scale. Documents embedded before vectors
+     * were normalized must be re-ingested.
+     */
     public Mono<float[]> embedText(String text){
+        return embeddingCache.get(embeddingModel, text,
+                () -> batcher != null ? batcher.submit(text) : fetchEmbedding(text));
+    }
+
+    /**
+     * Embed many texts at once, e.g. during document ingestion. Texts are sent upstream in slices of the
+     * configured batch size and the result preserves the input order. Vectors are unit length, as for
+     * {@link #embedText(String)}.
+     */
+    public Mono<List<float[]>> embedTexts(List<String> texts){
+        if (texts.isEmpty()) return Mono.just(List.of());
+        List<List<String>> slices = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i += maxBatchSize) {
+            slices.add(texts.subList(i, Math.min(texts.size(), i + maxBatchSize)));
+        }
+        return Flux.fromIterable(slices)
+                .concatMap(this::fetchEmbeddings)
+                .collect(ArrayList<float[]>::new, List::addAll)
+                .map(list -> (List<float[]>) list);
+    }
+
+    private Mono<float[]> fetchEmbedding(String text){
         Map<String, Object> body = Map.of("prompt", text, "model", embeddingModel);
         return webClient.post()
                 .uri("/api/embeddings")
@@ -29,18 +99,53 @@ public class EmbeddingService {
 //                .headers(h -> h.setBearerAuth(apiKey))
                 .bodyValue(body)
                 .retrieve()
-                .bodyToMono(JsonNode.class)
-                .map(json -> {
-                    // Assumes response.choices[0].embedding is an array of numbers
-//                    JsonNode embeddingNode = json.get("data").get(0).get("embedding");
-                    JsonNode embeddingNode = json.get("embedding");
-                    float[] emb = new float[embeddingNode.size()];
-                    for (int i = 0; i < embeddingNode.size(); i++){
-                        emb[i] = (float) embeddingNode.get(i).asDouble();
-//                        System.err.println(emb[i]);
-                    }
-                    return emb;
+                .bodyToFlux(DataBuffer.class)
+                .as(DataBufferUtils::join)
+                .map(buffer -> unitLength(decode(buffer, decoder::decodeSingle)));
+    }
+
+    /**
+     * One upstream call for a whole batch. Ollama's /api/embed accepts an "input" array and answers with
+     * "embeddings"; OpenAI-compatible servers answer with "data[].embedding" for the same request shape.
+     */
+    private Mono<List<float[]>> fetchEmbeddings(List<String> texts){
+        Map<String, Object> body = Map.of("input", texts, "model", embeddingModel);
+        return webClient.post()
+                .uri("/api/embed")
+                .bodyValue(body)
+                .retrieve()
+                .bodyToFlux(DataBuffer.class)
+                .as(DataBufferUtils::join)
+                .map(buffer -> {
+                    List<float[]> vectors = decode(buffer, decoder::decodeAll);
+                    vectors.forEach(EmbeddingService::unitLength);
+                    return vectors;
                 });
     }
 
+    /**
+     * Scale to unit length in place; a zero vector is left as is.
+     */
+    static float[] unitLength(float[] v) {
+        double sum = 0;
+        for (float x : v) sum += (double) x * x;
+        if (sum == 0) return v;
+        float inv = (float) (1 / Math.sqrt(sum));
+        for (int i = 0; i < v.length; i++) v[i] *= inv;
+        return v;
+    }
+
+    private <T> T decode(DataBuffer buffer, DecodeFunction<T> fn){
+        try (InputStream in = buffer.asInputStream(true)) {
+            return fn.decode(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode embedding response", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface DecodeFunction<T> {
+        T decode(InputStream in) throws IOException;
+    }
+
 }
@@ -0,0 +1,125 @@
+package com.ai_chatbot.service;
+
+import com.ai_chatbot.entity.IngestDocument;
+import com.ai_chatbot.entity.IngestProgress;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Indexes large text/markdown files for RAG. Each file is read through a {@link FileChannel} with a fixed-size
+ * decode buffer, cut into overlapping token-bounded chunks by {@link DocumentChunker} and handed to
+ * {@link BulkIngestionService} for batched embedding and storage. Files are read in parallel, one per core;
+ * backpressure from the embedding/write pipeline keeps the number of chunks held in memory bounded.
+ */
+@Service
+public class FileIngestionService {
+
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+
+    private final BulkIngestionService bulkIngestionService;
+    private final Path rootDir;
+    private final int chunkTokens;
+    private final int overlapTokens;
+    private final int parallelism;
+
+    public FileIngestionService(BulkIngestionService bulkIngestionService,
+                                @Value("${ai.ingest.root-dir:./corpus}") String rootDir,
+                                @Value("${ai.ingest.chunk-tokens:512}") int chunkTokens,
+                                @Value("${ai.ingest.overlap-tokens:64}") int overlapTokens,
+                                @Value("${ai.ingest.file-parallelism:0}") int parallelism) {
+        this.bulkIngestionService = bulkIngestionService;
+        this.rootDir = Path.of(rootDir).toAbsolutePath().normalize();
+        this.chunkTokens = chunkTokens;
+        this.overlapTokens = overlapTokens;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Ingest the given files, resolved against {@code ai.ingest.root-dir}. Paths escaping the root are rejected.
+     */
+    public Flux<IngestProgress> ingestFiles(List<String> paths) {
+        List<Path> files = paths.stream().map(this::resolve).toList();
+        Flux<IngestDocument> chunks = Flux.fromIterable(files)
+                .flatMap(file -> chunks(file).subscribeOn(Schedulers.boundedElastic()), parallelism);
+        return bulkIngestionService.ingest(chunks);
+    }
+
+    // containment is checked on real paths so a symlink inside the root cannot point outside it
+    Path resolve(String path) {
+        Path root = realRoot();
+        Path resolved;
+        try {
+            resolved = rootDir.resolve(path).toRealPath();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Not a readable file: " + path);
+        }
+        if (!resolved.startsWith(root)) {
+            throw new IllegalArgumentException("Path is outside the ingestion root: " + path);
+        }
+        if (!Files.isRegularFile(resolved)) {
+            throw new IllegalArgumentException("Not a readable file: " + path);
+        }
+        return resolved;
+    }
+
+    private Path realRoot() {
+        try {
+            return rootDir.toRealPath();
+        } catch (IOException e) {
+            throw new IllegalStateException("Ingestion root is not readable: " + rootDir, e);
+        }
+    }
+
+    private Flux<IngestDocument> chunks(Path file) {
+        String source = realRoot().relativize(file).toString();
+        return Flux.using(
+                () -> open(file),
+                reader -> {
+                    Iterator<String> it = new DocumentChunker(chunkTokens, overlapTokens).chunks(reader);
+                    int[] index = {0};
+                    return Flux.fromIterable(() -> it).map(text -> toDocument(source, index[0]++, text));
+                },
+                this::closeQuietly);
+    }
+
+    private Reader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        return Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE), READ_BUFFER_BYTES);
+    }
+
+    private IngestDocument toDocument(String source, int index, String text) {
+        IngestDocument doc = new IngestDocument();
+        // deterministic ids make re-ingesting a file overwrite its previous chunks
+        doc.setId(UUID.nameUUIDFromBytes((source + "#" + index).getBytes(StandardCharsets.UTF_8)).toString());
+        doc.setTitle(source + " #" + index);
+        doc.setContent(text);
+        doc.setMetadata(Map.of("source", source, "chunkIndex", index));
+        return doc;
+    }
+
+    private void closeQuietly(Reader reader) {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            // nothing left to release
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.ai_chatbot.service;
+
+import com.ai_chatbot.vectorstore.DocumentRecord;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Encodes document rows in PostgreSQL's binary COPY format for
+ * {@code COPY documents_staging (id, title, content, metadata, embedding) FROM STDIN (FORMAT binary)}.
+ */
+final class PgBinaryCopy {
+
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0};
+    private static final byte JSONB_VERSION = 1;
+
+    private PgBinaryCopy() {
+    }
+
+    static byte[] encode(List<DocumentRecord> rows) {
+        int estimate = 32;
+        for (var row : rows) estimate += 64 + 4 * row.embedding().length + (row.content() == null ? 0 : row.content().length());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(estimate);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.write(SIGNATURE);
+            out.writeInt(0); // flags
+            out.writeInt(0); // header extension length
+            for (var row : rows) {
+                out.writeShort(5);
+                writeUuid(out, row.id());
+                writeText(out, row.title());
+                writeText(out, row.content());
+                writeJsonb(out, row.metadataJson());
+                byte[] vector = PgVector.toBinary(row.embedding());
+                out.writeInt(vector.length);
+                out.write(vector);
+            }
+            out.writeShort(-1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID id) throws IOException {
+        out.writeInt(16);
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    private static void writeText(DataOutputStream out, String value) throws IOException {
+        byte[] utf8 = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static void writeJsonb(DataOutputStream out, String json) throws IOException {
+        byte[] utf8 = (json == null ? "{}" : json).getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length + 1);
+        out.writeByte(JSONB_VERSION);
+        out.write(utf8);
+    }
+}
@@ -0,0 +1,141 @@
+package com.ai_chatbot.service;
+
+import org.postgresql.core.BaseConnection;
+import org.postgresql.util.PGBinaryObject;
+import org.postgresql.util.PGobject;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * JDBC parameter for a pgvector {@code vector} value. When binary transfer is enabled on the connection (see
+ * {@link #enableBinaryTransfer(Connection)}) the driver sends the pgvector wire format directly: a 16-bit
+ * dimension count, 16 unused bits and one big-endian float4 per element, so neither side formats or parses
+ * text. Otherwise the driver falls back to the text form, which is encoded at most once per instance no
+ * matter how many placeholders the object is bound to.
+ */
+public class PgVector extends PGobject implements PGBinaryObject {
+
+    private float[] vector;
+    private byte[] binary;
+
+    public PgVector() {
+        setType("vector");
+    }
+
+    public PgVector(float[] vector) {
+        this();
+        this.vector = vector;
+    }
+
+    public float[] toArray() {
+        return vector;
+    }
+
+    /**
+     * Allow binary parameters of type {@code vector} on this connection. pgvector is an extension, so its OID is
+     * only known per database and cannot be listed in the driver's static {@code binaryTransferEnable} setting.
+     */
+    public static void enableBinaryTransfer(Connection connection) throws SQLException {
+        BaseConnection pg = connection.unwrap(BaseConnection.class);
+        int oid = pg.getTypeInfo().getPGType("vector");
+        if (oid != 0 && !pg.binaryTransferSend(oid)) {
+            pg.getQueryExecutor().addBinarySendOid(oid);
+        }
+    }
+
+    @Override
+    public String getValue() {
+        if (value == null && vector != null) value = toText(vector);
+        return value;
+    }
+
+    @Override
+    public void setValue(String text) throws SQLException {
+        super.setValue(text);
+        vector = text == null ? null : parseText(text);
+        binary = null;
+    }
+
+    @Override
+    public boolean isNull() {
+        return vector == null;
+    }
+
+    @Override
+    public int lengthInBytes() {
+        return vector == null ? 0 : 4 + 4 * vector.length;
+    }
+
+    @Override
+    public void toBytes(byte[] bytes, int offset) {
+        if (binary == null) binary = toBinary(vector);
+        System.arraycopy(binary, 0, bytes, offset, binary.length);
+    }
+
+    @Override
+    public void setByteValue(byte[] bytes, int offset) throws SQLException {
+        if (bytes.length - offset < 4) throw new SQLException("vector value is shorter than its header");
+        int dim = ((bytes[offset] & 0xff) << 8) | (bytes[offset + 1] & 0xff);
+        if (bytes.length - offset < 4 + 4 * dim) {
+            throw new SQLException("vector value of " + dim + " dimensions is truncated at " + (bytes.length - offset) + " bytes");
+        }
+        float[] v = new float[dim];
+        int p = offset + 4;
+        for (int i = 0; i < dim; i++, p += 4) {
+            v[i] = Float.intBitsToFloat(((bytes[p] & 0xff) << 24) | ((bytes[p + 1] & 0xff) << 16)
+                    | ((bytes[p + 2] & 0xff) << 8) | (bytes[p + 3] & 0xff));
+        }
+        vector = v;
+        value = null;
+        binary = null;
+    }
+
+    static byte[] toBinary(float[] vector) {
+        if (vector.length > 0xffff) throw new IllegalArgumentException("vector has too many dimensions: " + vector.length);
+        byte[] out = new byte[4 + 4 * vector.length];
+        out[0] = (byte) (vector.length >>> 8);
+        out[1] = (byte) vector.length;
+        int p = 4;
+        for (float f : vector) {
+            int bits = Float.floatToRawIntBits(f);
+            out[p++] = (byte) (bits >>> 24);
+            out[p++] = (byte) (bits >>> 16);
+            out[p++] = (byte) (bits >>> 8);
+            out[p++] = (byte) bits;
+        }
+        return out;
+    }
+
+    /**
+     * The textual representation expected by pgvector: "[0.1,0.2,...]".
+     */
+    static String toText(float[] vector) {
+        // most embedding components print as 10-12 chars
+        StringBuilder sb = new StringBuilder(2 + vector.length * 12);
+        sb.append('[');
+        for (int i = 0; i < vector.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(vector[i]);
+        }
+        return sb.append(']').toString();
+    }
+
+    static float[] parseText(String text) throws SQLException {
+        String body = text.trim();
+        if (body.length() < 2 || body.charAt(0) != '[' || body.charAt(body.length() - 1) != ']') {
+            throw new SQLException("malformed vector literal: " + text);
+        }
+        body = body.substring(1, body.length() - 1);
+        if (body.isBlank()) return new float[0];
+        String[] parts = body.split(",", -1);
+        if (parts.length > 0xffff) throw new SQLException("vector has too many dimensions: " + parts.length);
+        float[] v = new float[parts.length];
+        try {
+            for (int i = 0; i < parts.length; i++) v[i] = Float.parseFloat(parts[i].trim());
+        } catch (NumberFormatException e) {
+            throw new SQLException("malformed vector literal: " + text, e);
+        }
+        return v;
+    }
+}
@@ -1,27 +1,34 @@
 package com.ai_chatbot.service;
 
 import com.ai_chatbot.aiclient.AIClient;
-import com.ai_chatbot.aiclient.implementation.OllamaClient;
-import com.ai_chatbot.aiclient.implementation.OpenAIClient;
 import com.ai_chatbot.entity.Conversation;
 import com.ai_chatbot.entity.Message;
-import com.ai_chatbot.repository.ConversationRepository;
+import com.ai_chatbot.repository.ConversationStore;
+import com.ai_chatbot.vectorstore.DocumentHit;
+import com.ai_chatbot.vectorstore.MetadataFilter;
+import com.ai_chatbot.vectorstore.ReactiveVectorStore;
+import com.ai_chatbot.vectorstore.SearchOptions;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
-import java.util.UUID;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class RagService {
 
-    private final VectorStoreService vectorStore;
+    private final ReactiveVectorStore vectorStore;
     private final EmbeddingService embeddingService;
-    private final OllamaClient aiClient;
-    private final ConversationRepository conversationRepository;
+    private final AIClient aiClient;
+    private final ConversationStore conversationStore;
+    private final SemanticResponseCache responseCache;
+    private final ObjectMapper mapper;
 
     /**
      * Build a Message object from role and content.
@@ -33,72 +40,105 @@ public class RagService {
         return msg;
     }
 
+    /**
+     * Retrieval is scoped to the shared corpus plus this conversation's own documents, so other conversations'
+     * messages never leak into the context.
+     */
+    private SearchOptions retrievalOptions(String conversationId, int k) {
+        return SearchOptions.of(k).withFilter(MetadataFilter.forConversation(conversationId).includingUnscoped());
+    }
+
     /**
      * Answer with RAG: embed the user prompt, query vector store for top-k matches,
      * save conversation/messages, then call OpenAIClient.chat to synthesize final answer.
      */
     public Mono<String> answerWithRag(String conversationId, String userPrompt, int k, String model) {
+        return answerWithRag(conversationId, userPrompt, k, model, true);
+    }
+
+    /**
+     * As {@link #answerWithRag(String, String, int, String)}; with {@code useCache} a first question is answered
+     * from the {@link SemanticResponseCache} when a similar one was asked against the same documents.
+     */
+    public Mono<String> answerWithRag(String conversationId, String userPrompt, int k, String model, boolean useCache) {
+        return conversationStore.findOrCreate(conversationId, null)
+                .flatMap(conv -> answerWithRag(conv, userPrompt, k, model, useCache));
+    }
+
+    /**
+     * As {@link #answerWithRag(String, String, int, String, boolean)} for a loaded conversation; the system
+     * prompt and the user message are appended to {@code conv}, so the caller only appends the answer.
+     */
+    public Mono<String> answerWithRag(Conversation conv, String userPrompt, int k, String model, boolean useCache) {
+        String conversationId = conv.getId();
         return embeddingService.embedText(userPrompt)
-                // run blocking vector DB query on boundedElastic
-                .flatMap(queryVector -> Mono.fromCallable(() -> {
-
-                    var hits = vectorStore.queryNearest(queryVector, k);
-
-                    vectorStore.upsertDocument(conversationId, "Last User Prompt", userPrompt, queryVector, "{}");
-                    // build context
-                    StringBuilder context = new StringBuilder();
-                    for (var h : hits) {
-                        context.append("Source: ").append(h.title()).append("\n")
-                                .append(h.content()).append("\n\n");
-                    }
-                    String systemPrompt = "You are a helpful assistant. Use the following context to answer the user. " +
-                            "Indicate the source for factual claims from the context.\n\n" + context.toString();
-
-                    Conversation conv = conversationRepository.findById(conversationId).orElseGet(() -> {
-                        Conversation c = new Conversation();
-                        conversationRepository.save(c);
-                        return c;
-                    });
-
-                    // ephemeral system message (we add to conv for this request; controller can choose not to persist system messages separately)
-                    conv.addMessage(buildMessage("system", systemPrompt));
-                    conv.addMessage(buildMessage("user", userPrompt));
-                    conversationRepository.save(conv);
-
-                    // return conv for subsequent async processing
-                    return conv;
-                }).subscribeOn(Schedulers.boundedElastic()))
-                .flatMap(conv -> aiClient.chat(conv, userPrompt, model, true));
+                .flatMap(queryVector -> vectorStore.queryNearest(queryVector, retrievalOptions(conversationId, k))
+                        .collectList()
+                        .flatMap(hits -> Mono.fromCallable(() -> conversationMetadata(conversationId))
+                                .flatMap(metadata -> vectorStore.upsertDocument(conversationId, "Last User Prompt",
+                                        userPrompt, queryVector, metadata))
+                                .thenReturn(hits))
+                        .flatMap(hits -> prepareConversation(conv, userPrompt, hits)
+                                .flatMap(prepared -> responseCache.isCacheable(prepared, useCache)
+                                        ? responseCache.get(model, contextKey(hits), queryVector,
+                                                () -> aiClient.chat(prepared, userPrompt, model, true))
+                                        : aiClient.chat(prepared, userPrompt, model, true))));
+    }
+
+    /**
+     * The metadata document of a stored prompt; the filter pushdown and the {@code metadata->>'conversationId'}
+     * expression index read it, so it is serialized rather than concatenated.
+     */
+    private String conversationMetadata(String conversationId) throws JsonProcessingException {
+        return mapper.writeValueAsString(Map.of("conversationId", conversationId));
     }
 
     /**
      * Streaming version of answerWithRag: returns Flux<String> chunks from the LLM stream
      */
     public Flux<String> answerWithRagStream(String conversationId, String userPrompt, int k, String model) {
+        return answerWithRagStream(conversationId, userPrompt, k, model, true);
+    }
+
+    public Flux<String> answerWithRagStream(String conversationId, String userPrompt, int k, String model, boolean useCache) {
+        return conversationStore.findOrCreate(conversationId, null)
+                .flatMapMany(conv -> answerWithRagStream(conv, userPrompt, k, model, useCache));
+    }
+
+    /**
+     * As {@link #answerWithRagStream(String, String, int, String, boolean)} for a loaded conversation; the system
+     * prompt and the user message are appended to {@code conv}, so the caller can append the answer to the same
+     * instance.
+     */
+    public Flux<String> answerWithRagStream(Conversation conv, String userPrompt, int k, String model, boolean useCache) {
         return embeddingService.embedText(userPrompt)
-                .flatMapMany(queryVector -> Mono.fromCallable(() -> {
-                    var hits = vectorStore.queryNearest(queryVector, k);
-
-                    StringBuilder context = new StringBuilder();
-                    for (var h : hits) {
-                        context.append("Source: ").append(h.title()).append("\n")
-                                .append(h.content()).append("\n\n");
-                    }
-
-                    String systemPrompt = "You are a helpful assistant. Use the following context to answer the user. " +
-                            "Indicate the source for factual claims from the context.\n\n" + context.toString();
-
-                    Conversation conv = conversationRepository.findById(conversationId).orElseGet(() -> {
-                        Conversation c = new Conversation();
-                        conversationRepository.save(c);
-                        return c;
-                    });
-
-                    conv.addMessage(buildMessage("system", systemPrompt));
-                    conv.addMessage(buildMessage("user", userPrompt));
-                    conversationRepository.save(conv);
-
-                    return conv;
-                }).subscribeOn(Schedulers.boundedElastic()).flatMapMany(conv -> aiClient.streamChat(conv, userPrompt, model)));
+                .flatMapMany(queryVector -> vectorStore.queryNearest(queryVector, retrievalOptions(conv.getId(), k))
+                        .collectList()
+                        .flatMapMany(hits -> prepareConversation(conv, userPrompt, hits)
+                                .flatMapMany(prepared -> responseCache.isCacheable(prepared, useCache)
+                                        ? responseCache.stream(model, contextKey(hits), queryVector,
+                                                () -> aiClient.streamChat(prepared, userPrompt, model))
+                                        : aiClient.streamChat(prepared, userPrompt, model))));
+    }
+
+    /**
+     * Cache scope of a RAG answer: the documents it was grounded on.
+     */
+    private static String contextKey(List<DocumentHit> hits) {
+        return hits.stream().map(h -> String.valueOf(h.id())).sorted().collect(Collectors.joining(","));
+    }
+
+    private Mono<Conversation> prepareConversation(Conversation conv, String userPrompt, List<DocumentHit> hits) {
+        StringBuilder context = new StringBuilder();
+        for (var h : hits) {
+            context.append("Source: ").append(h.title()).append("\n")
+                    .append(h.content()).append("\n\n");
+        }
+        String systemPrompt = "You are a helpful assistant. Use the following context to answer the user. " +
+                "Indicate the source for factual claims from the context.\n\n" + context;
+
+        // ephemeral system message (we add to conv for this request; controller can choose not to persist system messages separately)
+        return conversationStore.appendMessages(conv,
+                List.of(buildMessage("system", systemPrompt), buildMessage("user", userPrompt)));
     }
 }
@@ -0,0 +1,285 @@
+package com.ai_chatbot.service;
+
+import com.ai_chatbot.util.TokenEstimator;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps streamed generations alive across client reconnects. {@link #start} runs a generation independently of
+ * the client that asked for it and records its last {@code ai.stream.replay.buffer-frames} frames in a ring
+ * buffer, keyed by conversation and stream id. Frame ids are {@code <streamId>.<seq>}, so a reconnecting
+ * {@code EventSource} sends the last one it saw as {@code Last-Event-ID} and {@link #resume} continues from the
+ * next frame instead of generating again.
+ * <p>
+ * A running generation nobody is attached to is cancelled, which aborts the model call, after
+ * {@code ai.stream.replay.reconnect-grace}; a finished stream is dropped after {@code ai.stream.replay.ttl}.
+ * Beyond {@code ai.stream.replay.max-streams} streams, new generations are not resumable and end with their
+ * client. Meters: {@code ai.stream.replay.active}, {@code ai.stream.resumes} ({@code result=resumed|gone}),
+ * {@code ai.stream.abandoned} and {@code ai.stream.tokens} ({@code outcome=delivered|wasted}): estimated tokens
+ * that reached a client, and those generated but never read, counted once the stream is dropped.
+ */
+@Component
+public class ResumableStreams {
+
+    public record Frame(String id, String data) {
+    }
+
+    private final boolean enabled;
+    private final int bufferFrames;
+    private final long ttlMillis;
+    private final long graceMillis;
+    private final int maxStreams;
+    private final Clock clock;
+
+    private final ConcurrentMap<String, Stream> streams = new ConcurrentHashMap<>();
+    private final AtomicLong resumed = new AtomicLong();
+    private final AtomicLong gone = new AtomicLong();
+    private final AtomicLong abandoned = new AtomicLong();
+    private final AtomicLong deliveredTokens = new AtomicLong();
+    private final AtomicLong wastedTokens = new AtomicLong();
+    private Disposable sweeper;
+
+    @Autowired
+    public ResumableStreams(@Value("${ai.stream.replay.enabled:true}") boolean enabled,
+                            @Value("${ai.stream.replay.buffer-frames:1024}") int bufferFrames,
+                            @Value("${ai.stream.replay.ttl:60s}") Duration ttl,
+                            @Value("${ai.stream.replay.reconnect-grace:10s}") Duration reconnectGrace,
+                            @Value("${ai.stream.replay.max-streams:10000}") int maxStreams,
+                            MeterRegistry meterRegistry) {
+        this(enabled, bufferFrames, ttl, reconnectGrace, maxStreams, Clock.systemUTC());
+        Gauge.builder("ai.stream.replay.active", streams, Map::size).register(meterRegistry);
+        FunctionCounter.builder("ai.stream.resumes", resumed, AtomicLong::get).tag("result", "resumed").register(meterRegistry);
+        FunctionCounter.builder("ai.stream.resumes", gone, AtomicLong::get).tag("result", "gone").register(meterRegistry);
+        FunctionCounter.builder("ai.stream.abandoned", abandoned, AtomicLong::get)
+                .description("Generations cancelled because no client came back for them")
+                .register(meterRegistry);
+        FunctionCounter.builder("ai.stream.tokens", deliveredTokens, AtomicLong::get).tag("outcome", "delivered")
+                .register(meterRegistry);
+        FunctionCounter.builder("ai.stream.tokens", wastedTokens, AtomicLong::get).tag("outcome", "wasted")
+                .register(meterRegistry);
+    }
+
+    ResumableStreams(boolean enabled, int bufferFrames, Duration ttl, Duration reconnectGrace, int maxStreams,
+                     Clock clock) {
+        this.enabled = enabled;
+        this.bufferFrames = Math.max(1, bufferFrames);
+        this.ttlMillis = ttl.toMillis();
+        this.graceMillis = reconnectGrace.toMillis();
+        this.maxStreams = maxStreams;
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    void startSweeper() {
+        sweeper = Flux.interval(Duration.ofMillis(Math.max(100, Math.min(ttlMillis, graceMillis) / 2)), Schedulers.parallel())
+                .subscribe(tick -> sweep());
+    }
+
+    @PreDestroy
+    void stopSweeper() {
+        if (sweeper != null) sweeper.dispose();
+        streams.values().forEach(Stream::cancel);
+    }
+
+    /**
+     * Starts {@code frames} on subscription and returns them with their ids. Unsubscribing detaches the client
+     * but leaves the generation running for a later {@link #resume}, for up to the reconnect grace.
+     */
+    public Flux<Frame> start(String conversationId, Flux<String> frames) {
+        return Flux.defer(() -> {
+            String streamId = UUID.randomUUID().toString();
+            if (!enabled || streams.size() >= maxStreams) {
+                AtomicLong seq = new AtomicLong();
+                return frames.map(data -> {
+                    deliveredTokens.addAndGet(TokenEstimator.estimate(data));
+                    return new Frame(streamId + "." + seq.incrementAndGet(), data);
+                });
+            }
+            Stream stream = new Stream(streamId);
+            streams.put(key(conversationId, streamId), stream);
+            Flux<Frame> attached = stream.attach(0);
+            stream.generation = frames.subscribe(stream::emit, stream::finish, () -> stream.finish(null));
+            return attached;
+        });
+    }
+
+    /**
+     * The frames after {@code lastEventId} of a stream of this conversation, followed by the live ones; empty when
+     * the stream is unknown, has expired or the frame is no longer buffered.
+     */
+    public Optional<Flux<Frame>> resume(String conversationId, String lastEventId) {
+        int dot = lastEventId.lastIndexOf('.');
+        Stream stream = dot < 0 ? null : streams.get(key(conversationId, lastEventId.substring(0, dot)));
+        long after = stream == null ? -1 : parseSeq(lastEventId.substring(dot + 1));
+        if (after < 0 || !stream.buffered(after)) {
+            gone.incrementAndGet();
+            return Optional.empty();
+        }
+        resumed.incrementAndGet();
+        return Optional.of(stream.attach(after));
+    }
+
+    /**
+     * Cancels running generations without a client for longer than the reconnect grace and drops finished
+     * streams without a client for longer than the TTL.
+     */
+    void sweep() {
+        long now = clock.millis();
+        streams.forEach((key, stream) -> {
+            long idle = stream.idleFor(now);
+            boolean expired = stream.isDone() ? idle > ttlMillis : idle > graceMillis;
+            if (!expired || !streams.remove(key, stream)) return;
+            if (stream.cancel()) abandoned.incrementAndGet();
+            wastedTokens.addAndGet(stream.undeliveredTokens());
+        });
+    }
+
+    int size() {
+        return streams.size();
+    }
+
+    /** Delivered and wasted tokens so far. */
+    long[] tokens() {
+        return new long[]{deliveredTokens.get(), wastedTokens.get()};
+    }
+
+    private static String key(String conversationId, String streamId) {
+        return conversationId + "/" + streamId;
+    }
+
+    private static long parseSeq(String seq) {
+        try {
+            return Long.parseLong(seq);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private final class Stream {
+        private final String id;
+        private final Frame[] ring = new Frame[bufferFrames];
+        private final int[] ringTokens = new int[bufferFrames];
+        private final List<FluxSink<Frame>> clients = new ArrayList<>(1);
+        private long count;
+        private boolean done;
+        private Throwable error;
+        private long idleSince;
+        private long deliveredThrough;
+        private long generated;
+        private long delivered;
+        volatile Disposable generation;
+
+        Stream(String id) {
+            this.id = id;
+            this.idleSince = clock.millis();
+        }
+
+        synchronized void emit(String data) {
+            Frame frame = new Frame(id + "." + (++count), data);
+            int slot = (int) ((count - 1) % ring.length);
+            ring[slot] = frame;
+            ringTokens[slot] = TokenEstimator.estimate(data);
+            generated += ringTokens[slot];
+            if (clients.isEmpty()) return;
+            markDelivered(count);
+            // a client that cancels in onNext detaches on this thread, so iterate over a copy
+            for (FluxSink<Frame> client : List.copyOf(clients)) client.next(frame);
+        }
+
+        synchronized void finish(Throwable e) {
+            done = true;
+            error = e;
+            idleSince = clock.millis();
+            // completing a sink runs its onDispose, which detaches it on this thread
+            List<FluxSink<Frame>> attached = List.copyOf(clients);
+            clients.clear();
+            for (FluxSink<Frame> client : attached) {
+                if (e == null) client.complete();
+                else client.error(e);
+            }
+        }
+
+        synchronized boolean buffered(long after) {
+            return after <= count && after + 1 >= Math.max(1, count - ring.length + 1);
+        }
+
+        Flux<Frame> attach(long after) {
+            return Flux.create(sink -> {
+                synchronized (this) {
+                    if (!buffered(after)) {
+                        sink.error(new IllegalStateException("Stream " + id + " no longer holds frame " + (after + 1)));
+                        return;
+                    }
+                    for (long seq = after + 1; seq <= count; seq++) {
+                        markDelivered(seq);
+                        sink.next(ring[(int) ((seq - 1) % ring.length)]);
+                    }
+                    if (done) {
+                        if (error == null) sink.complete();
+                        else sink.error(error);
+                        return;
+                    }
+                    clients.add(sink);
+                }
+                sink.onDispose(() -> detach(sink));
+            });
+        }
+
+        // caller holds the lock; frames reach clients in order, so everything up to seq has been delivered
+        private void markDelivered(long seq) {
+            if (seq <= deliveredThrough) return;
+            int tokens = ringTokens[(int) ((seq - 1) % ring.length)];
+            delivered += tokens;
+            deliveredTokens.addAndGet(tokens);
+            deliveredThrough = seq;
+        }
+
+        synchronized boolean isDone() {
+            return done;
+        }
+
+        synchronized long undeliveredTokens() {
+            return generated - delivered;
+        }
+
+        private synchronized void detach(FluxSink<Frame> sink) {
+            if (clients.remove(sink) && clients.isEmpty()) idleSince = clock.millis();
+        }
+
+        synchronized long idleFor(long now) {
+            return clients.isEmpty() ? now - idleSince : 0;
+        }
+
+        /** Cancels a running generation; whether there was one. */
+        boolean cancel() {
+            Disposable running;
+            synchronized (this) {
+                if (done) return false;
+                running = generation;
+            }
+            if (running != null) running.dispose();
+            return running != null;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.ai_chatbot.service;
+
+import com.ai_chatbot.entity.Conversation;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * In-process cache of LLM answers looked up by prompt similarity. An entry is reused for a new prompt when
+ * both share the scope (model and retrieval context, e.g. the ids of the retrieved documents) and the cosine
+ * similarity of their prompt embeddings is at least {@code ai.response-cache.similarity-threshold}.
+ * <p>
+ * Entries expire after {@code ai.response-cache.ttl} and the least recently used ones are evicted beyond
+ * {@code ai.response-cache.max-entries}. Lookups scan a snapshot of one scope's entries without taking the
+ * cache lock, which is only held to record the hit and for writes. Answers are cached
+ * only when the generation completed; a cancelled or failed stream stores nothing. Callers decide what is
+ * cacheable: an answer that depends on earlier turns must not be shared, see {@link #isCacheable}.
+ */
+@Component
+public class SemanticResponseCache {
+
+    private final boolean enabled;
+    private final double threshold;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final int replayChunkChars;
+    private final Clock clock;
+
+    // LRU order of all entries; guarded by itself, as are all writes to byScope
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    // copy-on-write snapshot per scope, so lookups scan without holding the lock
+    private final Map<Scope, Entry[]> byScope = new ConcurrentHashMap<>();
+    private long nextId;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public SemanticResponseCache(@Value("${ai.response-cache.enabled:true}") boolean enabled,
+                                 @Value("${ai.response-cache.similarity-threshold:0.95}") double threshold,
+                                 @Value("${ai.response-cache.max-entries:10000}") int maxEntries,
+                                 @Value("${ai.response-cache.ttl:1h}") Duration ttl,
+                                 @Value("${ai.response-cache.replay-chunk-chars:32}") int replayChunkChars,
+                                 MeterRegistry meterRegistry) {
+        this(enabled, threshold, maxEntries, ttl, replayChunkChars, Clock.systemUTC());
+        FunctionCounter.builder("ai.response.cache.requests", hits, AtomicLong::get).tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("ai.response.cache.requests", misses, AtomicLong::get).tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("ai.response.cache.evictions", evictions, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("ai.response.cache.size", this, SemanticResponseCache::size).register(meterRegistry);
+    }
+
+    SemanticResponseCache(boolean enabled, double threshold, int maxEntries, Duration ttl, int replayChunkChars,
+                          Clock clock) {
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.replayChunkChars = Math.max(1, replayChunkChars);
+        this.clock = clock;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether an answer in this conversation may be served from, and stored in, the cache: the cache is on,
+     * the request did not opt out and there is no earlier assistant reply the answer could depend on.
+     */
+    public boolean isCacheable(Conversation conv, boolean requested) {
+        if (!enabled || !requested) return false;
+        return conv.getMessages() == null
+                || conv.getMessages().stream().noneMatch(m -> "assistant".equals(m.getRole()));
+    }
+
+    /**
+     * The cached answer for a similar prompt in the same scope, or the generated one, which is then cached.
+     */
+    public Mono<String> get(String model, String context, float[] promptVector, Supplier<Mono<String>> generate) {
+        Scope scope = new Scope(model == null ? "" : model, context == null ? "" : context);
+        float[] unit = unit(promptVector);
+        String cached = lookup(scope, unit);
+        if (cached != null) return Mono.just(cached);
+        return generate.get().doOnNext(answer -> {
+            if (!answer.isBlank()) put(scope, unit, answer);
+        });
+    }
+
+    /**
+     * Streaming variant of {@link #get}: a hit is replayed in chunks of about
+     * {@code ai.response-cache.replay-chunk-chars}, a miss streams the generation and caches it once complete.
+     */
+    public Flux<String> stream(String model, String context, float[] promptVector, Supplier<Flux<String>> generate) {
+        Scope scope = new Scope(model == null ? "" : model, context == null ? "" : context);
+        float[] unit = unit(promptVector);
+        String cached = lookup(scope, unit);
+        if (cached != null) return Flux.fromIterable(chunks(cached, replayChunkChars));
+        return Flux.defer(() -> {
+            StringBuilder answer = new StringBuilder();
+            return generate.get()
+                    .doOnNext(answer::append)
+                    .doOnComplete(() -> {
+                        if (!answer.toString().isBlank()) put(scope, unit, answer.toString());
+                    });
+        });
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+            byScope.clear();
+        }
+    }
+
+    public Stats stats() {
+        synchronized (entries) {
+            return new Stats(hits.get(), misses.get(), evictions.get(), entries.size());
+        }
+    }
+
+    private String lookup(Scope scope, float[] unit) {
+        long now = clock.millis();
+        Entry[] candidates = byScope.get(scope);
+        Entry best = null;
+        double bestSimilarity = threshold;
+        List<Entry> expired = null;
+        if (candidates != null) {
+            for (Entry entry : candidates) {
+                if (now - entry.storedAt() > ttlMillis) {
+                    if (expired == null) expired = new ArrayList<>();
+                    expired.add(entry);
+                    continue;
+                }
+                double similarity = dot(unit, entry.unit());
+                if (similarity >= bestSimilarity) {
+                    bestSimilarity = similarity;
+                    best = entry;
+                }
+            }
+        }
+        if (expired != null || best != null) {
+            synchronized (entries) {
+                if (expired != null) {
+                    for (Entry entry : expired) {
+                        if (entries.remove(entry.id()) != null) {
+                            unindex(entry);
+                            evictions.incrementAndGet();
+                        }
+                    }
+                }
+                // refreshes the LRU position
+                if (best != null) entries.get(best.id());
+            }
+        }
+        if (best == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return best.answer();
+    }
+
+    private void put(Scope scope, float[] unit, String answer) {
+        synchronized (entries) {
+            Entry entry = new Entry(nextId++, scope, unit, answer, clock.millis());
+            entries.put(entry.id(), entry);
+            byScope.merge(scope, new Entry[]{entry}, (current, added) -> {
+                Entry[] next = Arrays.copyOf(current, current.length + 1);
+                next[current.length] = entry;
+                return next;
+            });
+            Iterator<Entry> it = entries.values().iterator();
+            while (entries.size() > maxEntries && it.hasNext()) {
+                Entry eldest = it.next();
+                it.remove();
+                unindex(eldest);
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    // caller holds the lock on entries
+    private void unindex(Entry entry) {
+        byScope.computeIfPresent(entry.scope(), (scope, current) -> {
+            int i = 0;
+            while (i < current.length && current[i] != entry) i++;
+            if (i == current.length) return current;
+            if (current.length == 1) return null;
+            Entry[] next = new Entry[current.length - 1];
+            System.arraycopy(current, 0, next, 0, i);
+            System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+            return next;
+        });
+    }
+
+    private static float[] unit(float[] v) {
+        double norm = 0;
+        for (float x : v) norm += (double) x * x;
+        norm = Math.sqrt(norm);
+        float[] out = new float[v.length];
+        if (norm == 0) return out;
+        for (int i = 0; i < v.length; i++) out[i] = (float) (v[i] / norm);
+        return out;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        if (a.length != b.length) return -1;
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) sum += a[i] * b[i];
+        return sum;
+    }
+
+    /**
+     * Splits {@code text} into pieces of at least {@code size} characters, cut after whitespace so words stay
+     * whole.
+     */
+    static List<String> chunks(String text, int size) {
+        List<String> out = new ArrayList<>();
+        int start = 0;
+        while (start < text.length()) {
+            int end = Math.min(start + size, text.length());
+            while (end < text.length() && !Character.isWhitespace(text.charAt(end - 1))) end++;
+            out.add(text.substring(start, end));
+            start = end;
+        }
+        return out;
+    }
+
+    private int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private record Scope(String model, String context) {
+    }
+
+    private record Entry(long id, Scope scope, float[] unit, String answer, long storedAt) {
+    }
+
+    public record Stats(long hits, long misses, long evictions, int size) {
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+}
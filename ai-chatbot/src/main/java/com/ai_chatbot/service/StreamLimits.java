@@ -0,0 +1,53 @@
+package com.ai_chatbot.service;
+
+import com.ai_chatbot.util.TokenEstimator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Caps one streamed generation at {@code ai.stream.max-tokens} (estimated with {@link TokenEstimator}, chunk by
+ * chunk) and {@code ai.stream.max-generation-time}. A stream that hits either limit completes normally with what
+ * it has so far, and the model call is cancelled. Meter: {@code ai.stream.truncated} ({@code reason=tokens|time}).
+ */
+@Component
+public class StreamLimits {
+
+    private final int maxTokens;
+    private final Duration maxGenerationTime;
+    private final Counter truncatedTokens;
+    private final Counter truncatedTime;
+
+    public StreamLimits(@Value("${ai.stream.max-tokens:4096}") int maxTokens,
+                        @Value("${ai.stream.max-generation-time:5m}") Duration maxGenerationTime,
+                        MeterRegistry meterRegistry) {
+        this.maxTokens = maxTokens;
+        this.maxGenerationTime = maxGenerationTime;
+        this.truncatedTokens = Counter.builder("ai.stream.truncated").tag("reason", "tokens").register(meterRegistry);
+        this.truncatedTime = Counter.builder("ai.stream.truncated").tag("reason", "time").register(meterRegistry);
+    }
+
+    public Flux<String> apply(Flux<String> tokens) {
+        return Flux.defer(() -> {
+            int[] used = {0};
+            return tokens.<String>handle((chunk, sink) -> {
+                        int cost = TokenEstimator.estimate(chunk);
+                        if (used[0] + cost <= maxTokens) {
+                            used[0] += cost;
+                            sink.next(chunk);
+                            return;
+                        }
+                        int fit = TokenEstimator.fitPrefix(chunk, maxTokens - used[0]);
+                        if (fit > 0) sink.next(chunk.substring(0, fit));
+                        truncatedTokens.increment();
+                        sink.complete();
+                    })
+                    .takeUntilOther(Mono.delay(maxGenerationTime).doOnNext(t -> truncatedTime.increment()));
+        });
+    }
+}
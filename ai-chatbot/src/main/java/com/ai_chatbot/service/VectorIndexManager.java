@@ -0,0 +1,180 @@
+package com.ai_chatbot.service;
+
+import com.ai_chatbot.vectorstore.DistanceMetric;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Creates and maintains the approximate nearest-neighbour index on {@code documents.embedding}.
+ * <ul>
+ *   <li>{@code hnsw}: good recall/speed trade-off, can be built on an empty table and grows with inserts.</li>
+ *   <li>{@code ivfflat}: cheaper to build, but its lists are trained on the rows present at build time, so
+ *   rebuild it after bulk loads.</li>
+ * </ul>
+ * The index is built with the operator class of {@code ai.vector.index.metric}; queries using another metric
+ * fall back to a sequential scan.
+ * <p>
+ * It also maintains what metadata-filtered search relies on: btree expression indexes on {@link #CONVERSATION_ID}
+ * and {@link #CREATED_AT}, and a {@code jsonb_path_ops} GIN index on {@code metadata} for containment
+ * ({@code @>}) filters such as tags. Filters must use these expressions verbatim for the planner to match the
+ * indexes.
+ */
+@Slf4j
+@Service
+public class VectorIndexManager {
+
+    public enum IndexType { NONE, HNSW, IVFFLAT }
+
+    /** {@code metadata.conversationId} as text. */
+    public static final String CONVERSATION_ID = "metadata->>'conversationId'";
+    /** {@code metadata.createdAt} as timestamptz, {@code NULL} unless it carries an explicit offset. */
+    public static final String CREATED_AT = "documents_created_at(metadata)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IndexType type;
+    private final DistanceMetric metric;
+    private final int hnswM;
+    private final int hnswEfConstruction;
+    private final int ivfflatLists;
+    private final String store;
+
+    public VectorIndexManager(JdbcTemplate jdbcTemplate,
+                              @Value("${ai.vector.store:jdbc}") String store,
+                              @Value("${ai.vector.index.type:hnsw}") IndexType type,
+                              @Value("${ai.vector.index.metric:L2}") DistanceMetric metric,
+                              @Value("${ai.vector.index.hnsw.m:16}") int hnswM,
+                              @Value("${ai.vector.index.hnsw.ef-construction:64}") int hnswEfConstruction,
+                              @Value("${ai.vector.index.ivfflat.lists:100}") int ivfflatLists) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.type = type;
+        this.metric = metric;
+        this.hnswM = hnswM;
+        this.hnswEfConstruction = hnswEfConstruction;
+        this.ivfflatLists = ivfflatLists;
+        this.store = store;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexOnStartup() {
+        if (!"jdbc".equalsIgnoreCase(store)) return;
+        try {
+            ensureMetadataIndexes();
+        } catch (DataAccessException ex) {
+            log.warn("Could not create metadata filter indexes: {}", ex.getMessage());
+        }
+        try {
+            ensureIndex();
+        } catch (DataAccessException ex) {
+            log.warn("Could not create vector index {}: {}", indexName(), ex.getMessage());
+        }
+    }
+
+    /**
+     * Create the filter function and the expression indexes behind metadata filters if missing. Nothing here
+     * rewrites or locks {@code documents}: the function is catalog-only and the indexes are built CONCURRENTLY.
+     */
+    public void ensureMetadataIndexes() {
+        log.info("Ensuring metadata filter indexes on documents");
+        // text -> timestamptz is only STABLE because a value without an offset is read in the session TimeZone;
+        // only values with an explicit offset are accepted, so the result never depends on it. createdAt is
+        // always written as an ISO-8601 instant; anything else becomes NULL instead of failing the insert.
+        jdbcTemplate.execute("""
+                CREATE OR REPLACE FUNCTION documents_created_at(meta jsonb) RETURNS timestamptz
+                LANGUAGE plpgsql IMMUTABLE AS $$
+                DECLARE
+                    v text := meta->>'createdAt';
+                BEGIN
+                    IF v IS NULL OR v !~ '^\\d{4}-\\d{2}-\\d{2}[T ]\\d{2}:\\d{2}(:\\d{2}(\\.\\d+)?)?(Z|[+-]\\d{2}(:?\\d{2})?)$' THEN
+                        RETURN NULL;
+                    END IF;
+                    RETURN v::timestamptz;
+                EXCEPTION WHEN others THEN
+                    RETURN NULL;
+                END $$""");
+        createIndex("documents_meta_conversation_id_idx", "ON documents ((" + CONVERSATION_ID + "))");
+        createIndex("documents_meta_created_at_idx", "ON documents (" + CREATED_AT + ")");
+        createIndex("documents_metadata_gin_idx", "ON documents USING gin (metadata jsonb_path_ops)");
+    }
+
+    /**
+     * Create the configured index if it does not exist yet. Uses CONCURRENTLY so writers are not blocked.
+     */
+    public void ensureIndex() {
+        if (type == IndexType.NONE) return;
+        log.info("Ensuring vector index {}", indexName());
+        createIndex(indexName(), indexDefinition());
+    }
+
+    /**
+     * Build a fresh index next to the current one and swap it in, e.g. after a bulk load for IVFFlat.
+     */
+    public void rebuildIndex() {
+        if (type == IndexType.NONE) return;
+        String name = indexName();
+        String tmp = name + "_new";
+        jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + tmp);
+        createIndex(tmp, indexDefinition());
+        jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + name);
+        jdbcTemplate.execute("ALTER INDEX " + tmp + " RENAME TO " + name);
+    }
+
+    public List<IndexInfo> listIndexes() {
+        return jdbcTemplate.query(
+                "SELECT c.relname AS indexname, pg_get_indexdef(i.indexrelid) AS indexdef, " +
+                        "pg_relation_size(i.indexrelid) AS bytes, i.indisvalid AS valid " +
+                        "FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid " +
+                        "WHERE i.indrelid = 'documents'::regclass ORDER BY c.relname",
+                (rs, rowNum) -> new IndexInfo(rs.getString("indexname"), rs.getString("indexdef"), rs.getLong("bytes"),
+                        rs.getBoolean("valid")));
+    }
+
+    String indexName() {
+        return "documents_embedding_" + type.name().toLowerCase(Locale.ROOT) + "_" + metric.name().toLowerCase(Locale.ROOT) + "_idx";
+    }
+
+    /**
+     * {@code CREATE INDEX CONCURRENTLY IF NOT EXISTS} is a no-op when a failed concurrent build left an INVALID
+     * index of that name behind, which the planner never uses; such an index is dropped and built again.
+     */
+    private void createIndex(String name, String definition) {
+        if (Boolean.FALSE.equals(isValid(name))) {
+            log.warn("Index {} is INVALID, probably from an interrupted concurrent build; rebuilding it", name);
+            jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + name);
+        }
+        jdbcTemplate.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + name + " " + definition);
+    }
+
+    /**
+     * {@code pg_index.indisvalid} of the index in the current schema, {@code null} if there is none.
+     */
+    Boolean isValid(String name) {
+        List<Boolean> valid = jdbcTemplate.queryForList(
+                "SELECT i.indisvalid FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid " +
+                        "WHERE c.relname = ? AND c.relnamespace = current_schema()::regnamespace",
+                Boolean.class, name);
+        return valid.isEmpty() ? null : valid.get(0);
+    }
+
+    String indexDefinition() {
+        String with = switch (type) {
+            case HNSW -> "WITH (m = " + hnswM + ", ef_construction = " + hnswEfConstruction + ")";
+            case IVFFLAT -> "WITH (lists = " + ivfflatLists + ")";
+            case NONE -> throw new IllegalStateException("no index configured");
+        };
+        return "ON documents USING " + type.name().toLowerCase(Locale.ROOT) + " (embedding " + metric.operatorClass() + ") " + with;
+    }
+
+    /**
+     * {@code valid} is false for an index left behind by a failed concurrent build; the planner ignores it.
+     */
+    public record IndexInfo(String name, String definition, long sizeBytes, boolean valid) {
+    }
+}
@@ -1,36 +1,81 @@
 package com.ai_chatbot.service;
 
+import com.ai_chatbot.vectorstore.DistanceMetric;
+import com.ai_chatbot.vectorstore.DocumentHit;
+import com.ai_chatbot.vectorstore.DocumentRecord;
+import com.ai_chatbot.vectorstore.MetadataFilter;
+import com.ai_chatbot.vectorstore.SearchOptions;
+import com.ai_chatbot.vectorstore.VectorStore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.postgresql.PGConnection;
 import org.postgresql.util.PGobject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
-public class VectorStoreService {
+public class VectorStoreService implements VectorStore {
+
+    private static final String UPSERT_SQL = "INSERT INTO documents(id, title, content, metadata, embedding) VALUES(?, ?, ?, ?, ?) " +
+            "ON CONFLICT (id) DO UPDATE SET title = EXCLUDED.title, content = EXCLUDED.content, metadata = EXCLUDED.metadata, embedding = EXCLUDED.embedding";
 
     private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean binaryTransfer;
+    private final int copyThreshold;
+    private final DistanceMetric defaultMetric;
+    private final ObjectMapper mapper;
+    private final String iterativeScan;
 
-    public VectorStoreService(JdbcTemplate jdbcTemplate) {
+    public VectorStoreService(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              ObjectMapper mapper,
+                              @Value("${ai.vector.binary-transfer:true}") boolean binaryTransfer,
+                              @Value("${ai.ingest.copy-threshold:500}") int copyThreshold,
+                              @Value("${ai.vector.index.metric:L2}") DistanceMetric defaultMetric,
+                              @Value("${ai.vector.filter.iterative-scan:}") String iterativeScan) {
         this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.binaryTransfer = binaryTransfer;
+        this.copyThreshold = copyThreshold;
+        this.defaultMetric = defaultMetric;
+        this.mapper = mapper;
+        this.iterativeScan = iterativeScan;
     }
 
     /**
      * Upsert a document with an embedding. Uses PGobject to bind jsonb and vector types so the
-     * PostgreSQL driver receives the correct types and avoids inline cast issues.
+     * PostgreSQL driver receives the correct types and avoids inline cast issues. The vector is bound as a
+     * {@link PgVector}, which goes over the wire in pgvector's binary format when binary transfer is enabled.
      */
+    @Override
     public void upsertDocument(String id, String title, String content, float[] vector, String metadataJson) {
         if (vector == null || vector.length == 0) {
             throw new IllegalArgumentException("Embedding vector must not be null or empty");
         }
         // Explicit SQL (no inline ::vector cast). We'll bind the vector as a PGobject of type "vector".
-        String sql = "INSERT INTO documents(id, title, content, metadata, embedding) VALUES(?, ?, ?, ?, ?) " +
-                "ON CONFLICT (id) DO UPDATE SET title = EXCLUDED.title, content = EXCLUDED.content, metadata = EXCLUDED.metadata, embedding = EXCLUDED.embedding";
+        String sql = UPSERT_SQL;
 
         jdbcTemplate.update(conn -> {
+            if (binaryTransfer) PgVector.enableBinaryTransfer(conn);
             PreparedStatement ps = conn.prepareStatement(sql);
             // id as UUID
             ps.setObject(1, UUID.fromString(id));
@@ -44,26 +89,93 @@ public class VectorStoreService {
             ps.setObject(4, meta);
 
             // embedding as vector (pgvector/pg extension)
-            PGobject vecObj = new PGobject();
-            vecObj.setType("vector");
-            vecObj.setValue(vectorToSql(vector));
-            ps.setObject(5, vecObj);
+            ps.setObject(5, new PgVector(vector));
 
             return ps;
         });
     }
 
+    /**
+     * Upsert many documents at once. Small batches go through a single JDBC batch (one round-trip with
+     * reWriteBatchedInserts); batches of at least {@code ai.ingest.copy-threshold} rows are streamed with
+     * {@code COPY ... FROM STDIN (FORMAT binary)} into a temporary staging table and merged in one statement.
+     */
+    @Override
+    public void upsertDocuments(List<DocumentRecord> documents) {
+        if (documents.isEmpty()) return;
+        for (DocumentRecord d : documents) {
+            if (d.embedding() == null || d.embedding().length == 0) {
+                throw new IllegalArgumentException("Embedding vector must not be null or empty for document " + d.id());
+            }
+        }
+        List<DocumentRecord> unique = lastPerId(documents);
+        if (unique.size() >= copyThreshold) {
+            copyDocuments(unique);
+        } else {
+            batchUpsertDocuments(unique);
+        }
+    }
+
+    /**
+     * One record per id, the last one given winning; a repeated id would make {@code ON CONFLICT DO UPDATE}
+     * touch the same row twice and fail the whole batch.
+     */
+    static List<DocumentRecord> lastPerId(List<DocumentRecord> documents) {
+        Map<UUID, DocumentRecord> byId = new LinkedHashMap<>(documents.size() * 2);
+        for (DocumentRecord d : documents) byId.put(d.id(), d);
+        return byId.size() == documents.size() ? documents : new ArrayList<>(byId.values());
+    }
+
+    private void batchUpsertDocuments(List<DocumentRecord> documents) {
+        jdbcTemplate.execute((ConnectionCallback<int[]>) conn -> {
+            if (binaryTransfer) PgVector.enableBinaryTransfer(conn);
+            try (PreparedStatement ps = conn.prepareStatement(UPSERT_SQL)) {
+                for (DocumentRecord d : documents) {
+                    ps.setObject(1, d.id());
+                    ps.setString(2, d.title());
+                    ps.setString(3, d.content() == null ? "" : d.content());
+                    PGobject meta = new PGobject();
+                    meta.setType("jsonb");
+                    meta.setValue(d.metadataJson() == null ? "{}" : d.metadataJson());
+                    ps.setObject(4, meta);
+                    ps.setObject(5, new PgVector(d.embedding()));
+                    ps.addBatch();
+                }
+                return ps.executeBatch();
+            }
+        });
+    }
+
+    private void copyDocuments(List<DocumentRecord> documents) {
+        byte[] payload = PgBinaryCopy.encode(documents);
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.execute((ConnectionCallback<Void>) conn -> {
+            try (Statement st = conn.createStatement()) {
+                st.execute("CREATE TEMP TABLE IF NOT EXISTS documents_staging " +
+                        "(id uuid, title text, content text, metadata jsonb, embedding vector) ON COMMIT DELETE ROWS");
+            }
+            try {
+                conn.unwrap(PGConnection.class).getCopyAPI().copyIn(
+                        "COPY documents_staging (id, title, content, metadata, embedding) FROM STDIN (FORMAT binary)",
+                        new ByteArrayInputStream(payload));
+            } catch (IOException e) {
+                throw new SQLException("COPY into documents_staging failed", e);
+            }
+            try (Statement st = conn.createStatement()) {
+                // ids are unique in the batch (lastPerId), so ON CONFLICT never touches the same row twice
+                st.executeUpdate("INSERT INTO documents(id, title, content, metadata, embedding) " +
+                        "SELECT id, title, content, metadata, embedding FROM documents_staging " +
+                        "ON CONFLICT (id) DO UPDATE SET title = EXCLUDED.title, content = EXCLUDED.content, " +
+                        "metadata = EXCLUDED.metadata, embedding = EXCLUDED.embedding");
+            }
+            return null;
+        }));
+    }
+
     /**
      * Convert float[] into the textual vector representation expected by pgvector: "[0.1,0.2,...]".
      */
     public String vectorToSql(float[] vector) {
-        StringBuilder sb = new StringBuilder("[");
-        for (int i = 0; i < vector.length; i++) {
-            if (i > 0) sb.append(",");
-            sb.append(Float.toString(vector[i]));
-        }
-        sb.append("]");
-        return sb.toString();
+        return PgVector.toText(vector);
     }
 
     public void upsertEmbeddingForConversation(String conversationId, String text, double[] embedding) {
@@ -77,7 +189,15 @@ public class VectorStoreService {
         }
         String docId = UUID.randomUUID().toString();
         String title = (text == null) ? "" : (text.length() > 100 ? text.substring(0, 100) : text);
-        String metadataJson = String.format("{\"conversationId\":\"%s\",\"createdAt\":\"%s\"}", conversationId, Instant.now().toString());
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("conversationId", conversationId);
+        metadata.put("createdAt", Instant.now().toString());
+        String metadataJson;
+        try {
+            metadataJson = mapper.writeValueAsString(metadata);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid conversation metadata " + metadata, e);
+        }
         upsertDocument(docId, title, text, embedding, metadataJson);
     }
 
@@ -88,25 +208,94 @@ public class VectorStoreService {
     }
 
     /**
-     * Query nearest neighbors using the vector operator. Bind the query vector as a PGobject of type "vector".
+     * Query nearest neighbors using the vector operator. The query vector is encoded once and the same
+     * {@link PgVector} is bound to both placeholders.
      */
+    @Override
     public List<DocumentHit> queryNearest(float[] queryEmbedding, int k) {
-        String sql = "SELECT id, title, content, metadata, embedding <-> ? AS distance " +
-                "FROM documents ORDER BY embedding <-> ? LIMIT ?";
+        return queryNearest(queryEmbedding, SearchOptions.of(k));
+    }
 
-        return jdbcTemplate.query(conn -> {
-            PreparedStatement ps = conn.prepareStatement(sql);
-            PGobject vecObj1 = new PGobject();
-            vecObj1.setType("vector");
-            vecObj1.setValue(vectorToSql(queryEmbedding));
-            ps.setObject(1, vecObj1);
+    /**
+     * Query nearest neighbors with an explicit metric, ANN tuning and metadata filters. {@code hnsw.ef_search}
+     * and {@code ivfflat.probes} are applied with {@code set_config(..., true)}, i.e. for this query's
+     * transaction only, so pooled connections never leak settings into other requests.
+     * <p>
+     * Filters become WHERE clauses on the {@code conversationId} / {@code createdAt} metadata expressions and a
+     * {@code metadata @> ...} containment for tags, all indexed by {@link VectorIndexManager}. With a filter,
+     * {@code hnsw.iterative_scan} ({@code ai.vector.filter.iterative-scan}) lets the HNSW scan keep walking
+     * the graph until enough rows pass the filter instead of returning fewer than {@code k}.
+     */
+    @Override
+    public List<DocumentHit> queryNearest(float[] queryEmbedding, SearchOptions options) {
+        DistanceMetric metric = options.metric() != null ? options.metric() : defaultMetric;
+        List<Object> filterParams = new ArrayList<>();
+        String where = whereClause(options.filter(), filterParams);
+        String sql = "SELECT id, title, content, metadata, embedding " + metric.operator() + " ? AS distance " +
+                "FROM documents" + where + " ORDER BY embedding " + metric.operator() + " ? LIMIT ?";
 
-            PGobject vecObj2 = new PGobject();
-            vecObj2.setType("vector");
-            vecObj2.setValue(vectorToSql(queryEmbedding));
-            ps.setObject(2, vecObj2);
+        PgVector query = new PgVector(queryEmbedding);
+        boolean iterative = !where.isEmpty() && !iterativeScan.isBlank();
+        if (options.efSearch() == null && options.probes() == null && !iterative) {
+            return runNearest(sql, query, filterParams, options.k());
+        }
+        return transactionTemplate.execute(status -> {
+            if (options.efSearch() != null) {
+                jdbcTemplate.queryForObject("SELECT set_config('hnsw.ef_search', ?, true)", String.class,
+                        String.valueOf(options.efSearch()));
+            }
+            if (options.probes() != null) {
+                jdbcTemplate.queryForObject("SELECT set_config('ivfflat.probes', ?, true)", String.class,
+                        String.valueOf(options.probes()));
+            }
+            if (iterative) {
+                jdbcTemplate.queryForObject("SELECT set_config('hnsw.iterative_scan', ?, true)", String.class,
+                        iterativeScan);
+            }
+            return runNearest(sql, query, filterParams, options.k());
+        });
+    }
+
+    private String whereClause(MetadataFilter filter, List<Object> params) {
+        if (filter.isEmpty()) return "";
+        List<String> conditions = new ArrayList<>();
+        if (filter.conversationId() != null) {
+            conditions.add(filter.includeUnscoped()
+                    ? "(" + VectorIndexManager.CONVERSATION_ID + " = ? OR " + VectorIndexManager.CONVERSATION_ID + " IS NULL)"
+                    : VectorIndexManager.CONVERSATION_ID + " = ?");
+            params.add(filter.conversationId());
+        }
+        if (!filter.tags().isEmpty()) {
+            conditions.add("metadata @> ?");
+            PGobject tags = new PGobject();
+            tags.setType("jsonb");
+            try {
+                tags.setValue(mapper.writeValueAsString(Map.of("tags", filter.tags())));
+            } catch (JsonProcessingException | SQLException e) {
+                throw new IllegalArgumentException("Invalid tag filter " + filter.tags(), e);
+            }
+            params.add(tags);
+        }
+        if (filter.createdAfter() != null) {
+            conditions.add(VectorIndexManager.CREATED_AT + " >= ?");
+            params.add(OffsetDateTime.ofInstant(filter.createdAfter(), ZoneOffset.UTC));
+        }
+        if (filter.createdBefore() != null) {
+            conditions.add(VectorIndexManager.CREATED_AT + " < ?");
+            params.add(OffsetDateTime.ofInstant(filter.createdBefore(), ZoneOffset.UTC));
+        }
+        return " WHERE " + String.join(" AND ", conditions);
+    }
 
-            ps.setInt(3, k);
+    private List<DocumentHit> runNearest(String sql, PgVector query, List<Object> filterParams, int k) {
+        return jdbcTemplate.query(conn -> {
+            if (binaryTransfer) PgVector.enableBinaryTransfer(conn);
+            PreparedStatement ps = conn.prepareStatement(sql);
+            int i = 1;
+            ps.setObject(i++, query);
+            for (Object param : filterParams) ps.setObject(i++, param);
+            ps.setObject(i++, query);
+            ps.setInt(i, k);
             return ps;
         }, (rs, rowNum) -> new DocumentHit(
                 UUID.fromString(rs.getString("id")),
@@ -117,8 +306,4 @@ public class VectorStoreService {
         ));
     }
 
-    public record DocumentHit(UUID id, String title, String content, String metadata, float distance) {
-    }
 }
-
-
@@ -0,0 +1,97 @@
+package com.ai_chatbot.util;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tasks on a delegate executor but lets at most {@code permits} of them execute at once; the rest wait for a
+ * permit on their own thread. Meant for cheap threads (virtual threads) in front of a bounded resource such as a
+ * JDBC pool, so waiting happens here, where it is measured, rather than inside the pool.
+ * <p>
+ * Meters: {@code <name>.queue} (submit to start of execution), {@code <name>.active} and {@code <name>.waiting}.
+ */
+public final class PermitExecutor extends AbstractExecutorService {
+
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+    private final Timer queueTimer;
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    public PermitExecutor(ExecutorService delegate, int permits, String name, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.permits = new Semaphore(permits, true);
+        this.queueTimer = Timer.builder(name + ".queue")
+                .description("Time from submission until a permit (database connection slot) is available")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder(name + ".active", active, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder(name + ".waiting", waiting, AtomicInteger::get).register(meterRegistry);
+    }
+
+    /**
+     * Rejects with {@link RejectedExecutionException} once shut down, which Reactor turns into an error signal.
+     * A task interrupted while waiting for its permit (e.g. by {@link #shutdownNow()}) is not dropped: it runs
+     * with the interrupt flag set, so its blocking call fails and the error reaches the subscriber instead of
+     * the subscriber waiting forever; an exception thrown on the worker thread would never reach it.
+     */
+    @Override
+    public void execute(Runnable task) {
+        if (isShutdown()) throw new RejectedExecutionException("Executor is shut down");
+        long submitted = System.nanoTime();
+        waiting.incrementAndGet();
+        delegate.execute(() -> {
+            boolean interrupted = false;
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                interrupted = true;
+                permits.acquireUninterruptibly();
+            }
+            waiting.decrementAndGet();
+            queueTimer.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+            active.incrementAndGet();
+            try {
+                if (interrupted) Thread.currentThread().interrupt();
+                task.run();
+            } finally {
+                active.decrementAndGet();
+                permits.release();
+            }
+        });
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
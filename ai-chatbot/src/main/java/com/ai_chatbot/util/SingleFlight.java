@@ -0,0 +1,51 @@
+package com.ai_chatbot.util;
+
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * De-duplicates concurrent calls for the same key: the first caller starts the work, every caller that
+ * arrives while it is still in flight subscribes to the same shared {@link Mono}. The entry is removed as
+ * soon as the shared call terminates, so later callers start a fresh call.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong joined = new AtomicLong();
+
+    public Mono<V> execute(K key, Supplier<Mono<V>> call) {
+        return Mono.defer(() -> {
+            Mono<V> existing = inFlight.get(key);
+            if (existing != null) {
+                joined.incrementAndGet();
+                return existing;
+            }
+
+            AtomicReference<Mono<V>> self = new AtomicReference<>();
+            Mono<V> shared = Mono.defer(call)
+                    .doFinally(signal -> inFlight.remove(key, self.get()))
+                    .cache();
+            self.set(shared);
+            existing = inFlight.putIfAbsent(key, shared);
+            if (existing != null) {
+                joined.incrementAndGet();
+                return existing;
+            }
+            return shared;
+        });
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    /** Number of calls that joined a call already in flight instead of starting one. */
+    public long joinedCount() {
+        return joined.get();
+    }
+}
@@ -0,0 +1,52 @@
+package com.ai_chatbot.util;
+
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * {@link SingleFlight} for streams: concurrent callers with the same key share one upstream {@link Flux}, and
+ * callers that join late first receive every element emitted so far. The upstream is cancelled once all
+ * subscribers have cancelled, and the entry is removed as soon as it terminates.
+ */
+public class StreamSingleFlight<K, V> {
+
+    private final ConcurrentMap<K, Flux<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong joined = new AtomicLong();
+
+    public Flux<V> execute(K key, Supplier<Flux<V>> call) {
+        return Flux.defer(() -> {
+            Flux<V> existing = inFlight.get(key);
+            if (existing != null) {
+                joined.incrementAndGet();
+                return existing;
+            }
+
+            AtomicReference<Flux<V>> self = new AtomicReference<>();
+            Flux<V> shared = Flux.defer(call)
+                    .doFinally(signal -> inFlight.remove(key, self.get()))
+                    .replay()
+                    .refCount();
+            self.set(shared);
+            existing = inFlight.putIfAbsent(key, shared);
+            if (existing != null) {
+                joined.incrementAndGet();
+                return existing;
+            }
+            return shared;
+        });
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    /** Number of calls that joined a stream already in flight instead of starting one. */
+    public long joinedCount() {
+        return joined.get();
+    }
+}
@@ -0,0 +1,70 @@
+package com.ai_chatbot.util;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merges the tiny chunks of a model stream into frames: a frame is emitted once it holds at least
+ * {@code frameChars} characters, and whatever is pending is emitted every {@code maxDelay}, so no token waits
+ * longer than that. One builder per stream is reused for all frames. Pending text is flushed before completion
+ * or an error; cancelling the frames cancels the tokens.
+ */
+public final class TokenCoalescer {
+
+    private TokenCoalescer() {
+    }
+
+    public static Flux<String> coalesce(Flux<String> tokens, int frameChars, Duration maxDelay, Scheduler timer) {
+        if (frameChars <= 1) return tokens;
+        return Flux.create(sink -> {
+            Frame frame = new Frame(sink, frameChars);
+            long period = maxDelay.toNanos();
+            Disposable ticks = timer.schedulePeriodically(frame::flush, period, period, TimeUnit.NANOSECONDS);
+            Disposable upstream = tokens.contextWrite(sink.contextView()).subscribe(frame::append,
+                    e -> {
+                        ticks.dispose();
+                        frame.flush();
+                        sink.error(e);
+                    },
+                    () -> {
+                        ticks.dispose();
+                        frame.flush();
+                        sink.complete();
+                    });
+            sink.onDispose(() -> {
+                ticks.dispose();
+                upstream.dispose();
+            });
+        });
+    }
+
+    private static final class Frame {
+        private final FluxSink<String> sink;
+        private final int frameChars;
+        private final StringBuilder pending;
+
+        Frame(FluxSink<String> sink, int frameChars) {
+            this.sink = sink;
+            this.frameChars = frameChars;
+            this.pending = new StringBuilder(frameChars * 2);
+        }
+
+        // emitting under the lock keeps frames in order between the upstream and the timer
+        synchronized void append(String token) {
+            pending.append(token);
+            if (pending.length() >= frameChars) flush();
+        }
+
+        synchronized void flush() {
+            if (pending.length() == 0) return;
+            String frame = pending.toString();
+            pending.setLength(0);
+            sink.next(frame);
+        }
+    }
+}
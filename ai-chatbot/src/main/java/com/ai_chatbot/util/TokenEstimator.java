@@ -0,0 +1,58 @@
+package com.ai_chatbot.util;
+
+/**
+ * Cheap, allocation-free token count estimate that tracks BPE tokenizers (llama, cl100k) closely enough for
+ * budgeting: every run of letters/digits costs one token per four characters (rounded up), every other
+ * non-whitespace character costs one token and whitespace is free.
+ */
+public final class TokenEstimator {
+
+    private TokenEstimator() {
+    }
+
+    public static int estimate(CharSequence text) {
+        if (text == null) return 0;
+        return estimate(text, 0, text.length());
+    }
+
+    public static int estimate(CharSequence text, int start, int end) {
+        int tokens = 0;
+        int run = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                run++;
+                continue;
+            }
+            if (run > 0) {
+                tokens += (run + 3) / 4;
+                run = 0;
+            }
+            if (!Character.isWhitespace(c)) tokens++;
+        }
+        if (run > 0) tokens += (run + 3) / 4;
+        return tokens;
+    }
+
+    /**
+     * Length of the longest prefix of {@code text} whose {@link #estimate} is at most {@code maxTokens}.
+     */
+    public static int fitPrefix(CharSequence text, int maxTokens) {
+        int tokens = 0;
+        int run = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int cost;
+            if (Character.isLetterOrDigit(c)) {
+                cost = run % 4 == 0 ? 1 : 0;
+                run++;
+            } else {
+                run = 0;
+                cost = Character.isWhitespace(c) ? 0 : 1;
+            }
+            if (tokens + cost > maxTokens) return i;
+            tokens += cost;
+        }
+        return text.length();
+    }
+}
@@ -0,0 +1,28 @@
+package com.ai_chatbot.vectorstore;
+
+/**
+ * pgvector distance functions. Each metric pairs the ORDER BY operator with the operator class an index must
+ * be built with for that operator to use it.
+ */
+public enum DistanceMetric {
+    L2("<->", "vector_l2_ops"),
+    COSINE("<=>", "vector_cosine_ops"),
+    // pgvector's <#> returns the negative inner product so that smaller is still closer
+    INNER_PRODUCT("<#>", "vector_ip_ops");
+
+    private final String operator;
+    private final String operatorClass;
+
+    DistanceMetric(String operator, String operatorClass) {
+        this.operator = operator;
+        this.operatorClass = operatorClass;
+    }
+
+    public String operator() {
+        return operator;
+    }
+
+    public String operatorClass() {
+        return operatorClass;
+    }
+}
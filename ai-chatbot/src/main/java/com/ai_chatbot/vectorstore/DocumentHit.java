@@ -0,0 +1,9 @@
+package com.ai_chatbot.vectorstore;
+
+import java.util.UUID;
+
+/**
+ * A nearest-neighbour search result; smaller distances are closer.
+ */
+public record DocumentHit(UUID id, String title, String content, String metadata, float distance) {
+}
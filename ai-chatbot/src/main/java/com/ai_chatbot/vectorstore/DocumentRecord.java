@@ -0,0 +1,9 @@
+package com.ai_chatbot.vectorstore;
+
+import java.util.UUID;
+
+/**
+ * A document to store, together with its embedding.
+ */
+public record DocumentRecord(UUID id, String title, String content, String metadataJson, float[] embedding) {
+}
@@ -0,0 +1,62 @@
+package com.ai_chatbot.vectorstore;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Restricts a nearest-neighbour search by document metadata. All set conditions must hold.
+ *
+ * @param conversationId   only documents whose {@code metadata.conversationId} equals this value
+ * @param includeUnscoped  with {@code conversationId}, also match documents that carry no conversationId
+ *                         (the shared corpus)
+ * @param tags             only documents whose {@code metadata.tags} array contains every one of these
+ * @param createdAfter     inclusive lower bound on {@code metadata.createdAt}
+ * @param createdBefore    exclusive upper bound on {@code metadata.createdAt}
+ */
+public record MetadataFilter(String conversationId, boolean includeUnscoped, List<String> tags,
+                             Instant createdAfter, Instant createdBefore) {
+
+    public static final MetadataFilter NONE = new MetadataFilter(null, false, List.of(), null, null);
+
+    public MetadataFilter {
+        tags = tags == null ? List.of() : List.copyOf(tags);
+    }
+
+    public static MetadataFilter forConversation(String conversationId) {
+        return NONE.withConversationId(conversationId);
+    }
+
+    public MetadataFilter withConversationId(String conversationId) {
+        return new MetadataFilter(conversationId, includeUnscoped, tags, createdAfter, createdBefore);
+    }
+
+    public MetadataFilter includingUnscoped() {
+        return new MetadataFilter(conversationId, true, tags, createdAfter, createdBefore);
+    }
+
+    public MetadataFilter withTags(List<String> tags) {
+        return new MetadataFilter(conversationId, includeUnscoped, tags, createdAfter, createdBefore);
+    }
+
+    public MetadataFilter createdBetween(Instant after, Instant before) {
+        return new MetadataFilter(conversationId, includeUnscoped, tags, after, before);
+    }
+
+    public boolean isEmpty() {
+        return conversationId == null && tags.isEmpty() && createdAfter == null && createdBefore == null;
+    }
+
+    /**
+     * Evaluate the filter against already extracted metadata, for backends that cannot push it down.
+     */
+    public boolean matches(String docConversationId, Collection<String> docTags, Instant docCreatedAt) {
+        if (conversationId != null && !conversationId.equals(docConversationId)
+                && !(includeUnscoped && docConversationId == null)) {
+            return false;
+        }
+        if (!tags.isEmpty() && (docTags == null || !docTags.containsAll(tags))) return false;
+        if (createdAfter != null && (docCreatedAt == null || docCreatedAt.isBefore(createdAfter))) return false;
+        return createdBefore == null || (docCreatedAt != null && docCreatedAt.isBefore(createdBefore));
+    }
+}
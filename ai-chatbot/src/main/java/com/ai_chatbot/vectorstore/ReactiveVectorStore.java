@@ -0,0 +1,16 @@
+package com.ai_chatbot.vectorstore;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking view of a {@link VectorStore} for the request path. With {@code ai.persistence.mode=reactive}
+ * and the jdbc store, pgvector is queried over R2DBC; otherwise the configured {@link VectorStore} is wrapped
+ * and called on a worker scheduler.
+ */
+public interface ReactiveVectorStore {
+
+    Mono<Void> upsertDocument(String id, String title, String content, float[] vector, String metadataJson);
+
+    Flux<DocumentHit> queryNearest(float[] queryEmbedding, SearchOptions options);
+}
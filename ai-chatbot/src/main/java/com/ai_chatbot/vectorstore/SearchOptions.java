@@ -0,0 +1,37 @@
+package com.ai_chatbot.vectorstore;
+
+/**
+ * Per-query knobs for nearest-neighbour search.
+ *
+ * @param k        number of hits to return
+ * @param metric   distance metric; null uses {@code ai.vector.index.metric}
+ * @param efSearch HNSW candidate list size ({@code hnsw.ef_search}); higher is slower with better recall
+ * @param probes   IVFFlat lists to visit ({@code ivfflat.probes}); higher is slower with better recall
+ * @param filter   metadata restrictions, never null
+ */
+public record SearchOptions(int k, DistanceMetric metric, Integer efSearch, Integer probes, MetadataFilter filter) {
+
+    public SearchOptions {
+        if (filter == null) filter = MetadataFilter.NONE;
+    }
+
+    public static SearchOptions of(int k) {
+        return new SearchOptions(k, null, null, null, MetadataFilter.NONE);
+    }
+
+    public SearchOptions withMetric(DistanceMetric metric) {
+        return new SearchOptions(k, metric, efSearch, probes, filter);
+    }
+
+    public SearchOptions withEfSearch(Integer efSearch) {
+        return new SearchOptions(k, metric, efSearch, probes, filter);
+    }
+
+    public SearchOptions withProbes(Integer probes) {
+        return new SearchOptions(k, metric, efSearch, probes, filter);
+    }
+
+    public SearchOptions withFilter(MetadataFilter filter) {
+        return new SearchOptions(k, metric, efSearch, probes, filter);
+    }
+}
@@ -0,0 +1,21 @@
+package com.ai_chatbot.vectorstore;
+
+import java.util.List;
+
+/**
+ * Storage and nearest-neighbour retrieval of embedded documents. The JDBC/pgvector backend
+ * ({@link com.ai_chatbot.service.VectorStoreService}) is the default; {@code ai.vector.store=memory} switches
+ * to the in-process HNSW backend.
+ */
+public interface VectorStore {
+
+    void upsertDocument(String id, String title, String content, float[] vector, String metadataJson);
+
+    void upsertDocuments(List<DocumentRecord> documents);
+
+    List<DocumentHit> queryNearest(float[] queryEmbedding, SearchOptions options);
+
+    default List<DocumentHit> queryNearest(float[] queryEmbedding, int k) {
+        return queryNearest(queryEmbedding, SearchOptions.of(k));
+    }
+}
@@ -0,0 +1,36 @@
+package com.ai_chatbot.vectorstore.implementation;
+
+import com.ai_chatbot.vectorstore.DocumentHit;
+import com.ai_chatbot.vectorstore.ReactiveVectorStore;
+import com.ai_chatbot.vectorstore.SearchOptions;
+import com.ai_chatbot.vectorstore.VectorStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * {@link ReactiveVectorStore} over the configured blocking {@link VectorStore}, offloaded to the
+ * {@code dbScheduler} ({@link com.ai_chatbot.config.DbSchedulerConfig}).
+ */
+@Component
+@RequiredArgsConstructor
+public class BlockingVectorStoreAdapter implements ReactiveVectorStore {
+
+    private final VectorStore vectorStore;
+    private final Scheduler dbScheduler;
+
+    @Override
+    public Mono<Void> upsertDocument(String id, String title, String content, float[] vector, String metadataJson) {
+        return Mono.<Void>fromRunnable(() -> vectorStore.upsertDocument(id, title, content, vector, metadataJson))
+                .subscribeOn(dbScheduler);
+    }
+
+    @Override
+    public Flux<DocumentHit> queryNearest(float[] queryEmbedding, SearchOptions options) {
+        return Mono.fromCallable(() -> vectorStore.queryNearest(queryEmbedding, options))
+                .subscribeOn(dbScheduler)
+                .flatMapIterable(hits -> hits);
+    }
+}
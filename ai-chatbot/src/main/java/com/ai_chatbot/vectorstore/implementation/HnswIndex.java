@@ -0,0 +1,501 @@
+package com.ai_chatbot.vectorstore.implementation;
+
+import com.ai_chatbot.vectorstore.DistanceMetric;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Hierarchical navigable small world graph (Malkov &amp; Yashunin) over vectors kept in contiguous {@code float[]}
+ * pages of {@value #PAGE_VECTORS} vectors each.
+ * <p>
+ * Inserts and searches run concurrently: node allocation happens under a short lock, each node's adjacency
+ * lists are copy-on-write arrays updated under the node's monitor and read without locking, and the entry
+ * point only moves once the new top node is fully linked. Deletes are tombstones; deleted nodes are still
+ * traversed but never returned.
+ * <p>
+ * Cosine vectors are normalized on insert so cosine distance is {@code 1 - dot}; inner product ranks by
+ * {@code -dot} like pgvector's {@code <#>}; L2 ranks by squared distance and reports the square root.
+ */
+final class HnswIndex {
+
+    static final int PAGE_VECTORS = 1024;
+
+    private final int dim;
+    private final DistanceMetric metric;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+
+    private final Object growLock = new Object();
+    private final Object entryLock = new Object();
+    /** Inserts hold the read side; {@link HnswSnapshot} takes the write side to see a quiescent graph. */
+    private final ReadWriteLock structureLock = new ReentrantReadWriteLock();
+    private final ThreadLocal<Visited> visited = ThreadLocal.withInitial(Visited::new);
+
+    private volatile float[][] pages = new float[0][];
+    private volatile Node[] nodes = new Node[0];
+    private volatile int size;
+    /** Entry node and top level, always published together; searches read it once. */
+    private volatile Entry entry = Entry.EMPTY;
+
+    HnswIndex(int dim, DistanceMetric metric, int m, int efConstruction) {
+        if (dim <= 0) throw new IllegalArgumentException("dimension must be positive");
+        if (m < 2) throw new IllegalArgumentException("m must be at least 2");
+        this.dim = dim;
+        this.metric = metric;
+        this.m = m;
+        this.maxM0 = 2 * m;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.levelMultiplier = 1 / Math.log(m);
+    }
+
+    int dimension() {
+        return dim;
+    }
+
+    DistanceMetric metric() {
+        return metric;
+    }
+
+    int m() {
+        return m;
+    }
+
+    int efConstruction() {
+        return efConstruction;
+    }
+
+    int size() {
+        return size;
+    }
+
+    ReadWriteLock structureLock() {
+        return structureLock;
+    }
+
+    /**
+     * Insert a vector and return its node id.
+     */
+    int add(UUID key, float[] vector) {
+        if (vector.length != dim) {
+            throw new IllegalArgumentException("Expected dimension " + dim + " but got " + vector.length);
+        }
+        float[] v = prepare(vector);
+        int level = randomLevel();
+        structureLock.readLock().lock();
+        try {
+            int id = allocate(key, v, level);
+            int ep;
+            int top;
+            synchronized (entryLock) {
+                if (entry.id() < 0) {
+                    entry = new Entry(id, level);
+                    return id;
+                }
+                ep = entry.id();
+                top = entry.level();
+            }
+            int cur = ep;
+            float curDist = distance(v, 0, cur);
+            for (int l = top; l > level; l--) {
+                int[] greedy = greedyClosest(v, cur, curDist, l);
+                cur = greedy[0];
+                curDist = Float.intBitsToFloat(greedy[1]);
+            }
+            Node node = node(id);
+            for (int l = Math.min(level, top); l >= 0; l--) {
+                Candidates candidates = searchLayer(v, cur, efConstruction, l);
+                int[] neighbors = selectNeighbors(candidates, m);
+                synchronized (node) {
+                    node.links.set(l, neighbors);
+                }
+                for (int n : neighbors) link(n, id, l);
+                cur = candidates.ids[0];
+            }
+            if (level > top) {
+                synchronized (entryLock) {
+                    if (level > entry.level()) entry = new Entry(id, level);
+                }
+            }
+            return id;
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    void markDeleted(int id) {
+        node(id).deleted = true;
+    }
+
+    boolean isDeleted(int id) {
+        return node(id).deleted;
+    }
+
+    UUID key(int id) {
+        return node(id).key;
+    }
+
+    /**
+     * The {@code k} nearest live nodes, closest first, exploring {@code max(ef, k)} candidates on layer 0.
+     */
+    Candidates search(float[] query, int k, int ef) {
+        if (query.length != dim) {
+            throw new IllegalArgumentException("Expected dimension " + dim + " but got " + query.length);
+        }
+        Entry ep = entry;
+        if (ep.id() < 0) return new Candidates(new int[0], new float[0], 0);
+        float[] q = prepare(query);
+        int cur = ep.id();
+        float curDist = distance(q, 0, cur);
+        for (int l = ep.level(); l > 0; l--) {
+            int[] greedy = greedyClosest(q, cur, curDist, l);
+            cur = greedy[0];
+            curDist = Float.intBitsToFloat(greedy[1]);
+        }
+        Candidates all = searchLayer(q, cur, Math.max(ef, k), 0);
+        int[] ids = new int[Math.min(k, all.size)];
+        float[] distances = new float[ids.length];
+        int n = 0;
+        for (int i = 0; i < all.size && n < ids.length; i++) {
+            if (node(all.ids[i]).deleted) continue;
+            ids[n] = all.ids[i];
+            distances[n] = reported(all.distances[i]);
+            n++;
+        }
+        return new Candidates(ids, distances, n);
+    }
+
+    private int[] greedyClosest(float[] q, int start, float startDist, int level) {
+        int cur = start;
+        float curDist = startDist;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int n : node(cur).links.get(level)) {
+                float d = distance(q, 0, n);
+                if (d < curDist) {
+                    curDist = d;
+                    cur = n;
+                    changed = true;
+                }
+            }
+        }
+        return new int[]{cur, Float.floatToRawIntBits(curDist)};
+    }
+
+    private Candidates searchLayer(float[] q, int entry, int ef, int level) {
+        Visited seen = visited.get();
+        seen.reset(size);
+        Heap candidates = new Heap(ef * 2, false);
+        Heap results = new Heap(ef + 1, true);
+        float d = distance(q, 0, entry);
+        seen.mark(entry);
+        candidates.push(entry, d);
+        results.push(entry, d);
+        while (candidates.size > 0) {
+            float cd = candidates.topDistance();
+            int c = candidates.pop();
+            if (results.size >= ef && cd > results.topDistance()) break;
+            for (int n : node(c).links.get(level)) {
+                if (!seen.mark(n)) continue;
+                float dn = distance(q, 0, n);
+                if (results.size < ef || dn < results.topDistance()) {
+                    candidates.push(n, dn);
+                    results.push(n, dn);
+                    if (results.size > ef) results.pop();
+                }
+            }
+        }
+        int count = results.size;
+        int[] ids = new int[count];
+        float[] distances = new float[count];
+        for (int i = count - 1; i >= 0; i--) {
+            distances[i] = results.topDistance();
+            ids[i] = results.pop();
+        }
+        return new Candidates(ids, distances, count);
+    }
+
+    /**
+     * The HNSW neighbour heuristic: take candidates closest first and keep one only if it is closer to the base
+     * than to every neighbour kept so far, which spreads links across clusters. Pruned candidates fill any
+     * remaining slots.
+     */
+    private int[] selectNeighbors(Candidates candidates, int max) {
+        if (candidates.size <= max) return Arrays.copyOf(candidates.ids, candidates.size);
+        int[] selected = new int[max];
+        int count = 0;
+        boolean[] taken = new boolean[candidates.size];
+        for (int i = 0; i < candidates.size && count < max; i++) {
+            int c = candidates.ids[i];
+            boolean keep = true;
+            for (int j = 0; j < count; j++) {
+                if (distanceBetween(c, selected[j]) < candidates.distances[i]) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) {
+                selected[count++] = c;
+                taken[i] = true;
+            }
+        }
+        for (int i = 0; i < candidates.size && count < max; i++) {
+            if (!taken[i]) selected[count++] = candidates.ids[i];
+        }
+        return selected;
+    }
+
+    private void link(int from, int to, int level) {
+        Node node = node(from);
+        int max = level == 0 ? maxM0 : m;
+        synchronized (node) {
+            int[] current = node.links.get(level);
+            if (current.length < max) {
+                int[] next = Arrays.copyOf(current, current.length + 1);
+                next[current.length] = to;
+                node.links.set(level, next);
+                return;
+            }
+            int[] ids = Arrays.copyOf(current, current.length + 1);
+            ids[current.length] = to;
+            float[] distances = new float[ids.length];
+            for (int i = 0; i < ids.length; i++) distances[i] = distanceBetween(from, ids[i]);
+            sortByDistance(ids, distances);
+            node.links.set(level, selectNeighbors(new Candidates(ids, distances, ids.length), max));
+        }
+    }
+
+    private int allocate(UUID key, float[] v, int level) {
+        synchronized (growLock) {
+            int id = size;
+            int page = id / PAGE_VECTORS;
+            if (page >= pages.length) {
+                float[][] grown = Arrays.copyOf(pages, page + 1);
+                grown[page] = new float[PAGE_VECTORS * dim];
+                pages = grown;
+            }
+            System.arraycopy(v, 0, pages[page], (id % PAGE_VECTORS) * dim, dim);
+            if (id >= nodes.length) nodes = Arrays.copyOf(nodes, Math.max(16, nodes.length * 2));
+            nodes[id] = new Node(key, level);
+            size = id + 1;
+            return id;
+        }
+    }
+
+    // --- snapshot support -------------------------------------------------------------------------------
+
+    int entryPoint() {
+        return entry.id();
+    }
+
+    int maxLevel() {
+        return entry.level();
+    }
+
+    int level(int id) {
+        return node(id).links.length() - 1;
+    }
+
+    int[] links(int id, int level) {
+        return node(id).links.get(level);
+    }
+
+    void copyVector(int id, float[] dst) {
+        System.arraycopy(pages[id / PAGE_VECTORS], (id % PAGE_VECTORS) * dim, dst, 0, dim);
+    }
+
+    /**
+     * Append a node exactly as stored, without searching or normalizing; used when loading a snapshot.
+     */
+    int restore(UUID key, float[] storedVector, int[][] links, boolean deleted) {
+        int id = allocate(key, storedVector, links.length - 1);
+        Node node = node(id);
+        for (int l = 0; l < links.length; l++) node.links.set(l, links[l]);
+        node.deleted = deleted;
+        return id;
+    }
+
+    void restoreEntryPoint(int entryPoint, int maxLevel) {
+        synchronized (entryLock) {
+            this.entry = new Entry(entryPoint, maxLevel);
+        }
+    }
+
+    // --- distances --------------------------------------------------------------------------------------
+
+    private float[] prepare(float[] vector) {
+        if (metric != DistanceMetric.COSINE) return vector;
+        float[] copy = vector.clone();
+        VectorMath.normalize(copy);
+        return copy;
+    }
+
+    private float distance(float[] q, int qOff, int id) {
+        float[] page = pages[id / PAGE_VECTORS];
+        int off = (id % PAGE_VECTORS) * dim;
+        return switch (metric) {
+            case L2 -> VectorMath.squaredL2(q, qOff, page, off, dim);
+            case COSINE -> 1f - VectorMath.dot(q, qOff, page, off, dim);
+            case INNER_PRODUCT -> -VectorMath.dot(q, qOff, page, off, dim);
+        };
+    }
+
+    private float distanceBetween(int a, int b) {
+        return distance(pages[a / PAGE_VECTORS], (a % PAGE_VECTORS) * dim, b);
+    }
+
+    private float reported(float internal) {
+        return metric == DistanceMetric.L2 ? (float) Math.sqrt(internal) : internal;
+    }
+
+    private Node node(int id) {
+        return nodes[id];
+    }
+
+    private int randomLevel() {
+        double u = 1.0 - ThreadLocalRandom.current().nextDouble();
+        return (int) (-Math.log(u) * levelMultiplier);
+    }
+
+    private static void sortByDistance(int[] ids, float[] distances) {
+        for (int i = 1; i < ids.length; i++) {
+            int id = ids[i];
+            float d = distances[i];
+            int j = i - 1;
+            while (j >= 0 && distances[j] > d) {
+                ids[j + 1] = ids[j];
+                distances[j + 1] = distances[j];
+                j--;
+            }
+            ids[j + 1] = id;
+            distances[j + 1] = d;
+        }
+    }
+
+    /**
+     * Node ids and distances, closest first.
+     */
+    static final class Candidates {
+        final int[] ids;
+        final float[] distances;
+        final int size;
+
+        Candidates(int[] ids, float[] distances, int size) {
+            this.ids = ids;
+            this.distances = distances;
+            this.size = size;
+        }
+    }
+
+    private record Entry(int id, int level) {
+        static final Entry EMPTY = new Entry(-1, -1);
+    }
+
+    private static final class Node {
+        final UUID key;
+        final AtomicReferenceArray<int[]> links;
+        volatile boolean deleted;
+
+        Node(UUID key, int level) {
+            this.key = key;
+            this.links = new AtomicReferenceArray<>(level + 1);
+            for (int l = 0; l <= level; l++) links.set(l, new int[0]);
+        }
+    }
+
+    /**
+     * Binary heap of (id, distance) on parallel primitive arrays; a max-heap keeps the current worst on top.
+     */
+    private static final class Heap {
+        private int[] ids;
+        private float[] distances;
+        private final boolean max;
+        int size;
+
+        Heap(int capacity, boolean max) {
+            this.ids = new int[Math.max(capacity, 4)];
+            this.distances = new float[ids.length];
+            this.max = max;
+        }
+
+        void push(int id, float distance) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                distances = Arrays.copyOf(distances, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(distance, distances[parent])) break;
+                ids[i] = ids[parent];
+                distances[i] = distances[parent];
+                i = parent;
+            }
+            ids[i] = id;
+            distances[i] = distance;
+        }
+
+        float topDistance() {
+            return distances[0];
+        }
+
+        int pop() {
+            int top = ids[0];
+            int lastId = ids[--size];
+            float last = distances[size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && before(distances[child + 1], distances[child])) child++;
+                if (!before(distances[child], last)) break;
+                ids[i] = ids[child];
+                distances[i] = distances[child];
+                i = child;
+            }
+            ids[i] = lastId;
+            distances[i] = last;
+            return top;
+        }
+
+        private boolean before(float a, float b) {
+            return max ? a > b : a < b;
+        }
+    }
+
+    /**
+     * Per-thread visited marks; bumping the epoch clears them without touching the array.
+     */
+    private static final class Visited {
+        private int[] marks = new int[0];
+        private int epoch;
+
+        void reset(int capacity) {
+            if (marks.length < capacity) {
+                marks = new int[Math.max(capacity, marks.length * 2)];
+                epoch = 0;
+            }
+            if (++epoch == 0) {
+                Arrays.fill(marks, 0);
+                epoch = 1;
+            }
+        }
+
+        /**
+         * @return true if {@code id} was not visited before
+         */
+        boolean mark(int id) {
+            if (id >= marks.length) marks = Arrays.copyOf(marks, Math.max(id + 1, marks.length * 2));
+            if (marks[id] == epoch) return false;
+            marks[id] = epoch;
+            return true;
+        }
+    }
+}
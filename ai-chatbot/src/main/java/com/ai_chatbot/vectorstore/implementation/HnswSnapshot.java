@@ -0,0 +1,216 @@
+package com.ai_chatbot.vectorstore.implementation;
+
+import com.ai_chatbot.vectorstore.DistanceMetric;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Binary snapshot of an {@link HnswIndex} and its documents. The graph is written as-is (no rebuild on load)
+ * and read back through memory-mapped windows of the file, so a restart costs roughly one sequential read.
+ * <p>
+ * Layout (big-endian): header {@code magic, version, dim, metric, m, efConstruction, size, entryPoint,
+ * maxLevel}; per node {@code key, deleted, level, per level (count, ids...), vector}; then
+ * {@code documentCount} and per document {@code key, node, title, content, metadata}.
+ */
+final class HnswSnapshot {
+
+    private static final int MAGIC = 0x484E5357; // "HNSW"
+    private static final int VERSION = 1;
+    private static final long WINDOW_BYTES = 64L * 1024 * 1024;
+
+    private HnswSnapshot() {
+    }
+
+    record Loaded(HnswIndex index, Map<UUID, StoredDocument> documents) {
+    }
+
+    /**
+     * Write to a temporary file next to {@code path} and move it into place, so a crash never leaves a torn
+     * snapshot. Inserts are paused while the graph section is written.
+     */
+    static void write(Path path, HnswIndex index, Map<UUID, StoredDocument> documents) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING), 1 << 20))) {
+            int size;
+            index.structureLock().writeLock().lock();
+            try {
+                size = index.size();
+                writeGraph(out, index, size);
+            } finally {
+                index.structureLock().writeLock().unlock();
+            }
+            Map<UUID, StoredDocument> copy = new HashMap<>(documents);
+            copy.values().removeIf(d -> d.node() >= size);
+            out.writeInt(copy.size());
+            for (var e : copy.entrySet()) {
+                out.writeLong(e.getKey().getMostSignificantBits());
+                out.writeLong(e.getKey().getLeastSignificantBits());
+                out.writeInt(e.getValue().node());
+                writeString(out, e.getValue().title());
+                writeString(out, e.getValue().content());
+                writeString(out, e.getValue().metadata());
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeGraph(DataOutputStream out, HnswIndex index, int size) throws IOException {
+        int dim = index.dimension();
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(dim);
+        out.writeInt(index.metric().ordinal());
+        out.writeInt(index.m());
+        out.writeInt(index.efConstruction());
+        out.writeInt(size);
+        out.writeInt(index.entryPoint());
+        out.writeInt(index.maxLevel());
+        float[] vector = new float[dim];
+        ByteBuffer vectorBytes = ByteBuffer.allocate(dim * Float.BYTES);
+        for (int id = 0; id < size; id++) {
+            UUID key = index.key(id);
+            out.writeLong(key.getMostSignificantBits());
+            out.writeLong(key.getLeastSignificantBits());
+            out.writeBoolean(index.isDeleted(id));
+            int level = index.level(id);
+            out.writeInt(level);
+            for (int l = 0; l <= level; l++) {
+                int[] links = index.links(id, l);
+                out.writeInt(links.length);
+                for (int n : links) out.writeInt(n);
+            }
+            index.copyVector(id, vector);
+            vectorBytes.clear();
+            vectorBytes.asFloatBuffer().put(vector);
+            out.write(vectorBytes.array());
+        }
+    }
+
+    static Loaded read(Path path) throws IOException {
+        try (MappedReader in = new MappedReader(FileChannel.open(path, StandardOpenOption.READ))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not an HNSW snapshot: " + path);
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("Unsupported HNSW snapshot version " + version);
+            int dim = in.readInt();
+            DistanceMetric metric = DistanceMetric.values()[in.readInt()];
+            int m = in.readInt();
+            int efConstruction = in.readInt();
+            int size = in.readInt();
+            int entryPoint = in.readInt();
+            int maxLevel = in.readInt();
+
+            HnswIndex index = new HnswIndex(dim, metric, m, efConstruction);
+            float[] vector = new float[dim];
+            for (int id = 0; id < size; id++) {
+                UUID key = new UUID(in.readLong(), in.readLong());
+                boolean deleted = in.readByte() != 0;
+                int[][] links = new int[in.readInt() + 1][];
+                for (int l = 0; l < links.length; l++) {
+                    int[] ids = new int[in.readInt()];
+                    for (int i = 0; i < ids.length; i++) ids[i] = in.readInt();
+                    links[l] = ids;
+                }
+                in.readFloats(vector);
+                index.restore(key, vector, links, deleted);
+            }
+            index.restoreEntryPoint(entryPoint, maxLevel);
+
+            int count = in.readInt();
+            Map<UUID, StoredDocument> documents = new HashMap<>(Math.max(16, count * 4 / 3 + 1));
+            for (int i = 0; i < count; i++) {
+                UUID key = new UUID(in.readLong(), in.readLong());
+                int node = in.readInt();
+                documents.put(key, StoredDocument.of(node, in.readString(), in.readString(), in.readString()));
+            }
+            return new Loaded(index, documents);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    /**
+     * Sequential reader over a file mapped {@value #WINDOW_BYTES} bytes at a time, so snapshots larger than
+     * 2 GiB can be read without one huge mapping.
+     */
+    private static final class MappedReader implements Closeable {
+        private final FileChannel channel;
+        private final long fileSize;
+        private long base;
+        private MappedByteBuffer buffer;
+
+        MappedReader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.fileSize = channel.size();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer != null && buffer.remaining() >= bytes) return;
+            if (buffer != null) base += buffer.position();
+            long length = Math.min(Math.max(WINDOW_BYTES, bytes), fileSize - base);
+            if (length < bytes) throw new EOFException("Truncated HNSW snapshot");
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, base, length);
+        }
+
+        byte readByte() throws IOException {
+            ensure(1);
+            return buffer.get();
+        }
+
+        int readInt() throws IOException {
+            ensure(Integer.BYTES);
+            return buffer.getInt();
+        }
+
+        long readLong() throws IOException {
+            ensure(Long.BYTES);
+            return buffer.getLong();
+        }
+
+        void readFloats(float[] dst) throws IOException {
+            int bytes = dst.length * Float.BYTES;
+            ensure(bytes);
+            buffer.asFloatBuffer().get(dst);
+            buffer.position(buffer.position() + bytes);
+        }
+
+        String readString() throws IOException {
+            int length = readInt();
+            if (length < 0) return null;
+            byte[] utf8 = new byte[length];
+            ensure(length);
+            buffer.get(utf8);
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.ai_chatbot.vectorstore.implementation;
+
+import com.ai_chatbot.vectorstore.DistanceMetric;
+import com.ai_chatbot.vectorstore.DocumentHit;
+import com.ai_chatbot.vectorstore.DocumentRecord;
+import com.ai_chatbot.vectorstore.SearchOptions;
+import com.ai_chatbot.vectorstore.VectorStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process vector store backed by an {@link HnswIndex}, enabled with {@code ai.vector.store=memory}. Queries
+ * never leave the JVM, so RAG retrieval skips the database round-trip entirely.
+ * <p>
+ * The index is created on the first insert with that vector's dimension and the {@code ai.vector.index.metric}
+ * metric. Re-upserting a document adds a new vertex and tombstones the old one; once tombstones exceed
+ * {@code ai.vector.memory.max-deleted-ratio} of the live documents, the graph is rebuilt from the live vertices
+ * in the background. Searches keep using the old graph until the rebuilt one is published; upserts wait for the
+ * rebuild. When
+ * {@code ai.vector.memory.snapshot-path} is set, the index is loaded from it on startup and written back every
+ * {@code snapshot-interval} (if it changed) and on shutdown.
+ */
+@Slf4j
+@Primary
+@Component
+@ConditionalOnProperty(name = "ai.vector.store", havingValue = "memory")
+public class InMemoryVectorStore implements VectorStore {
+
+    /** Below this many tombstones a rebuild is not worth it, whatever the ratio. */
+    private static final int MIN_DELETED_TO_COMPACT = 64;
+
+    private final DistanceMetric metric;
+    private final int m;
+    private final int efConstruction;
+    private final int efSearch;
+    private final Path snapshotPath;
+    private final Duration snapshotInterval;
+    private final double maxDeletedRatio;
+
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private final Object initLock = new Object();
+    /** Upserts hold the read side, a rebuild the write side. */
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+    private volatile Generation generation = Generation.empty();
+    private Disposable snapshotTask;
+
+    public InMemoryVectorStore(@Value("${ai.vector.index.metric:L2}") DistanceMetric metric,
+                               @Value("${ai.vector.memory.hnsw.m:16}") int m,
+                               @Value("${ai.vector.memory.hnsw.ef-construction:100}") int efConstruction,
+                               @Value("${ai.vector.memory.hnsw.ef-search:64}") int efSearch,
+                               @Value("${ai.vector.memory.snapshot-path:}") String snapshotPath,
+                               @Value("${ai.vector.memory.snapshot-interval:5m}") Duration snapshotInterval,
+                               @Value("${ai.vector.memory.max-deleted-ratio:0.5}") double maxDeletedRatio) {
+        this.metric = metric;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.snapshotPath = snapshotPath.isBlank() ? null : Path.of(snapshotPath);
+        this.snapshotInterval = snapshotInterval;
+        this.maxDeletedRatio = maxDeletedRatio;
+    }
+
+    @PostConstruct
+    void start() {
+        if (snapshotPath == null) return;
+        if (Files.exists(snapshotPath)) {
+            long t = System.nanoTime();
+            try {
+                HnswSnapshot.Loaded loaded = HnswSnapshot.read(snapshotPath);
+                if (loaded.index().metric() != metric) {
+                    log.warn("Ignoring vector snapshot {} built for metric {} (configured {})",
+                            snapshotPath, loaded.index().metric(), metric);
+                } else {
+                    restore(loaded);
+                    log.info("Loaded {} documents from vector snapshot {} in {} ms", size(), snapshotPath,
+                            (System.nanoTime() - t) / 1_000_000);
+                }
+            } catch (IOException | RuntimeException ex) {
+                log.warn("Could not load vector snapshot {}: {}", snapshotPath, ex.getMessage());
+            }
+        }
+        if (!snapshotInterval.isZero() && !snapshotInterval.isNegative()) {
+            snapshotTask = Flux.interval(snapshotInterval, snapshotInterval, Schedulers.boundedElastic())
+                    .subscribe(tick -> snapshotIfDirty());
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (snapshotTask != null) snapshotTask.dispose();
+        snapshotIfDirty();
+    }
+
+    @Override
+    public void upsertDocument(String id, String title, String content, float[] vector, String metadataJson) {
+        if (vector == null || vector.length == 0) {
+            throw new IllegalArgumentException("Embedding vector must not be null or empty");
+        }
+        upsert(UUID.fromString(id), title, content == null ? "" : content, vector,
+                metadataJson == null ? "{}" : metadataJson);
+    }
+
+    @Override
+    public void upsertDocuments(List<DocumentRecord> records) {
+        for (DocumentRecord d : records) {
+            if (d.embedding() == null || d.embedding().length == 0) {
+                throw new IllegalArgumentException("Embedding vector must not be null or empty for document " + d.id());
+            }
+        }
+        for (DocumentRecord d : records) {
+            upsert(d.id(), d.title(), d.content() == null ? "" : d.content(), d.embedding(),
+                    d.metadataJson() == null ? "{}" : d.metadataJson());
+        }
+    }
+
+    /**
+     * Approximate nearest neighbours; {@code efSearch} overrides {@code ai.vector.memory.hnsw.ef-search}.
+     * The graph is built for a single metric, so asking for another one is rejected. Metadata filters are
+     * applied to the candidates; when too few pass, the search is repeated with a four times larger candidate
+     * list until {@code k} hits are found or the graph is exhausted.
+     */
+    @Override
+    public List<DocumentHit> queryNearest(float[] queryEmbedding, SearchOptions options) {
+        if (options.metric() != null && options.metric() != metric) {
+            throw new IllegalArgumentException("In-memory vector store is built for metric " + metric);
+        }
+        Generation gen = generation;
+        HnswIndex current = gen.index();
+        if (current == null) return List.of();
+        int ef = options.efSearch() != null ? options.efSearch() : efSearch;
+        int fetch = options.k();
+        while (true) {
+            HnswIndex.Candidates found = current.search(queryEmbedding, fetch, Math.max(ef, fetch));
+            List<DocumentHit> hits = new ArrayList<>(options.k());
+            for (int i = 0; i < found.size && hits.size() < options.k(); i++) {
+                UUID key = current.key(found.ids[i]);
+                StoredDocument doc = gen.documents().get(key);
+                if (doc == null || doc.node() != found.ids[i] || !doc.matches(options.filter())) continue;
+                hits.add(new DocumentHit(key, doc.title(), doc.content(), doc.metadata(), found.distances[i]));
+            }
+            if (hits.size() >= options.k() || found.size < fetch || fetch >= current.size()) return hits;
+            fetch = (int) Math.min((long) fetch * 4, current.size());
+        }
+    }
+
+    /**
+     * Write a snapshot now, regardless of whether anything changed.
+     */
+    public void snapshot() {
+        Generation gen = generation;
+        if (snapshotPath == null || gen.index() == null) return;
+        dirty.set(false);
+        try {
+            HnswSnapshot.write(snapshotPath, gen.index(), gen.documents());
+        } catch (IOException e) {
+            dirty.set(true);
+            throw new UncheckedIOException("Could not write vector snapshot " + snapshotPath, e);
+        }
+    }
+
+    public int size() {
+        return generation.documents().size();
+    }
+
+    /**
+     * Rebuild the graph from the live documents, dropping every tombstoned vertex.
+     */
+    public void compact() {
+        rebuildLock.writeLock().lock();
+        try {
+            Generation old = generation;
+            if (old.index() == null || old.deleted().get() == 0) return;
+            long t = System.nanoTime();
+            HnswIndex rebuilt = new HnswIndex(old.index().dimension(), metric, m, efConstruction);
+            ConcurrentHashMap<UUID, StoredDocument> live = new ConcurrentHashMap<>(old.documents().size() * 4 / 3 + 1);
+            old.documents().forEach(1, (key, doc) -> {
+                float[] vector = new float[rebuilt.dimension()];
+                old.index().copyVector(doc.node(), vector);
+                live.put(key, doc.withNode(rebuilt.add(key, vector)));
+            });
+            generation = new Generation(rebuilt, live, new AtomicInteger());
+            dirty.set(true);
+            log.info("Compacted vector index from {} to {} vertices in {} ms", old.index().size(), rebuilt.size(),
+                    (System.nanoTime() - t) / 1_000_000);
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    int vertexCount() {
+        HnswIndex current = generation.index();
+        return current == null ? 0 : current.size();
+    }
+
+    private void snapshotIfDirty() {
+        if (!dirty.get()) return;
+        try {
+            snapshot();
+        } catch (UncheckedIOException ex) {
+            log.warn(ex.getMessage(), ex.getCause());
+        }
+    }
+
+    private void upsert(UUID key, String title, String content, float[] vector, String metadata) {
+        Generation gen;
+        rebuildLock.readLock().lock();
+        try {
+            gen = generationFor(vector.length);
+            // the graph insert runs outside the map; concurrent upserts of one key each tombstone what they replace
+            int node = gen.index().add(key, vector);
+            StoredDocument previous = gen.documents().put(key, StoredDocument.of(node, title, content, metadata));
+            if (previous != null) {
+                gen.index().markDeleted(previous.node());
+                gen.deleted().incrementAndGet();
+            }
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+        dirty.set(true);
+        if (needsCompaction(gen) && compacting.compareAndSet(false, true)) {
+            Schedulers.boundedElastic().schedule(() -> {
+                try {
+                    compact();
+                } catch (RuntimeException ex) {
+                    log.warn("Vector index compaction failed", ex);
+                } finally {
+                    compacting.set(false);
+                }
+            });
+        }
+    }
+
+    private boolean needsCompaction(Generation gen) {
+        int deleted = gen.deleted().get();
+        return deleted >= MIN_DELETED_TO_COMPACT && deleted > gen.documents().size() * maxDeletedRatio;
+    }
+
+    private Generation generationFor(int dim) {
+        Generation gen = generation;
+        if (gen.index() == null) {
+            synchronized (initLock) {
+                gen = generation;
+                if (gen.index() == null) {
+                    gen = new Generation(new HnswIndex(dim, metric, m, efConstruction), gen.documents(), gen.deleted());
+                    generation = gen;
+                }
+            }
+        }
+        if (gen.index().dimension() != dim) {
+            throw new IllegalArgumentException("Expected dimension " + gen.index().dimension() + " but got " + dim);
+        }
+        return gen;
+    }
+
+    private void restore(HnswSnapshot.Loaded loaded) {
+        HnswIndex restored = loaded.index();
+        int deleted = 0;
+        // vertices written after their document entry was captured have no payload; hide them
+        for (int id = 0; id < restored.size(); id++) {
+            StoredDocument doc = loaded.documents().get(restored.key(id));
+            if (doc == null || doc.node() != id) {
+                restored.markDeleted(id);
+                deleted++;
+            }
+        }
+        generation = new Generation(restored, new ConcurrentHashMap<>(loaded.documents()), new AtomicInteger(deleted));
+    }
+
+    /**
+     * A graph with the payload of its live vertices and the number of tombstones, published as one unit so a
+     * rebuild swaps all of them at once.
+     */
+    private record Generation(HnswIndex index, ConcurrentHashMap<UUID, StoredDocument> documents,
+                              AtomicInteger deleted) {
+        static Generation empty() {
+            return new Generation(null, new ConcurrentHashMap<>(), new AtomicInteger());
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.ai_chatbot.vectorstore.implementation;
+
+import com.ai_chatbot.service.VectorIndexManager;
+import com.ai_chatbot.vectorstore.DistanceMetric;
+import com.ai_chatbot.vectorstore.DocumentHit;
+import com.ai_chatbot.vectorstore.MetadataFilter;
+import com.ai_chatbot.vectorstore.ReactiveVectorStore;
+import com.ai_chatbot.vectorstore.SearchOptions;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.postgresql.codec.Json;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Statement;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Primary;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * pgvector search over R2DBC, used when {@code ai.persistence.mode=reactive} and {@code ai.vector.store=jdbc}.
+ * Same SQL as {@link com.ai_chatbot.service.VectorStoreService}: vectors are bound as {@code real[]} and cast to
+ * {@code vector}, metadata filters hit the expression and GIN indexes, and per-query settings are applied
+ * with {@code set_config(..., true)} inside a transaction on the same connection.
+ */
+@Primary
+@Component
+@ConditionalOnExpression("'${ai.persistence.mode:blocking}' == 'reactive' and '${ai.vector.store:jdbc}' == 'jdbc'")
+public class R2dbcVectorStore implements ReactiveVectorStore {
+
+    private final DatabaseClient db;
+    private final ObjectMapper mapper;
+    private final DistanceMetric defaultMetric;
+    private final String iterativeScan;
+
+    public R2dbcVectorStore(DatabaseClient db,
+                            ObjectMapper mapper,
+                            @Value("${ai.vector.index.metric:L2}") DistanceMetric defaultMetric,
+                            @Value("${ai.vector.filter.iterative-scan:}") String iterativeScan) {
+        this.db = db;
+        this.mapper = mapper;
+        this.defaultMetric = defaultMetric;
+        this.iterativeScan = iterativeScan;
+    }
+
+    @Override
+    public Mono<Void> upsertDocument(String id, String title, String content, float[] vector, String metadataJson) {
+        if (vector == null || vector.length == 0) {
+            return Mono.error(new IllegalArgumentException("Embedding vector must not be null or empty"));
+        }
+        return db.sql("INSERT INTO documents(id, title, content, metadata, embedding) " +
+                        "VALUES($1, $2, $3, $4, CAST($5 AS vector)) " +
+                        "ON CONFLICT (id) DO UPDATE SET title = EXCLUDED.title, content = EXCLUDED.content, " +
+                        "metadata = EXCLUDED.metadata, embedding = EXCLUDED.embedding")
+                .bind(0, UUID.fromString(id))
+                .bind(1, title)
+                .bind(2, content == null ? "" : content)
+                .bind(3, Json.of(metadataJson == null ? "{}" : metadataJson))
+                .bind(4, boxed(vector))
+                .fetch().rowsUpdated()
+                .then();
+    }
+
+    @Override
+    public Flux<DocumentHit> queryNearest(float[] queryEmbedding, SearchOptions options) {
+        DistanceMetric metric = options.metric() != null ? options.metric() : defaultMetric;
+        List<Object> params = new ArrayList<>();
+        params.add(boxed(queryEmbedding));
+        String where = whereClause(options.filter(), params);
+        String operator = metric.operator();
+        String sql = "SELECT id, title, content, metadata, embedding " + operator + " CAST($1 AS vector) AS distance " +
+                "FROM documents" + where + " ORDER BY embedding " + operator + " CAST($1 AS vector) LIMIT $" + (params.size() + 1);
+        params.add(options.k());
+
+        List<String[]> settings = new ArrayList<>();
+        if (options.efSearch() != null) settings.add(new String[]{"hnsw.ef_search", String.valueOf(options.efSearch())});
+        if (options.probes() != null) settings.add(new String[]{"ivfflat.probes", String.valueOf(options.probes())});
+        if (!where.isEmpty() && !iterativeScan.isBlank()) settings.add(new String[]{"hnsw.iterative_scan", iterativeScan});
+
+        if (settings.isEmpty()) {
+            return db.inConnectionMany(conn -> select(conn, sql, params));
+        }
+        return db.inConnectionMany(conn -> Flux.usingWhen(
+                Mono.from(conn.beginTransaction()).thenReturn(conn),
+                c -> Flux.fromIterable(settings)
+                        .concatMap(s -> Flux.from(c.createStatement("SELECT set_config($1, $2, true)")
+                                        .bind(0, s[0]).bind(1, s[1]).execute())
+                                .concatMap(r -> r.map((row, meta) -> s[0])))
+                        .thenMany(Flux.defer(() -> select(c, sql, params))),
+                Connection::commitTransaction,
+                (c, err) -> c.rollbackTransaction(),
+                Connection::rollbackTransaction));
+    }
+
+    private Flux<DocumentHit> select(Connection conn, String sql, List<Object> params) {
+        Statement st = conn.createStatement(sql);
+        for (int i = 0; i < params.size(); i++) st.bind(i, params.get(i));
+        return Flux.from(st.execute()).concatMap(result -> result.map(R2dbcVectorStore::toHit));
+    }
+
+    private String whereClause(MetadataFilter filter, List<Object> params) {
+        if (filter.isEmpty()) return "";
+        List<String> conditions = new ArrayList<>();
+        if (filter.conversationId() != null) {
+            params.add(filter.conversationId());
+            String p = "$" + params.size();
+            conditions.add(filter.includeUnscoped()
+                    ? "(" + VectorIndexManager.CONVERSATION_ID + " = " + p + " OR " + VectorIndexManager.CONVERSATION_ID + " IS NULL)"
+                    : VectorIndexManager.CONVERSATION_ID + " = " + p);
+        }
+        if (!filter.tags().isEmpty()) {
+            try {
+                params.add(Json.of(mapper.writeValueAsString(Map.of("tags", filter.tags()))));
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Invalid tag filter " + filter.tags(), e);
+            }
+            conditions.add("metadata @> $" + params.size());
+        }
+        if (filter.createdAfter() != null) {
+            params.add(filter.createdAfter());
+            conditions.add(VectorIndexManager.CREATED_AT + " >= $" + params.size());
+        }
+        if (filter.createdBefore() != null) {
+            params.add(filter.createdBefore());
+            conditions.add(VectorIndexManager.CREATED_AT + " < $" + params.size());
+        }
+        return " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private static DocumentHit toHit(Readable row) {
+        Json metadata = row.get("metadata", Json.class);
+        Number distance = row.get("distance", Number.class);
+        return new DocumentHit(
+                row.get("id", UUID.class),
+                row.get("title", String.class),
+                row.get("content", String.class),
+                metadata == null ? null : metadata.asString(),
+                distance == null ? Float.NaN : distance.floatValue());
+    }
+
+    private static Float[] boxed(float[] vector) {
+        Float[] boxed = new Float[vector.length];
+        for (int i = 0; i < vector.length; i++) boxed[i] = vector[i];
+        return boxed;
+    }
+}
@@ -0,0 +1,53 @@
+package com.ai_chatbot.vectorstore.implementation;
+
+import com.ai_chatbot.vectorstore.MetadataFilter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Payload of a document held by {@link InMemoryVectorStore}; {@code node} is its current vertex in the
+ * {@link HnswIndex}. The filterable metadata fields are extracted once on creation so filtered searches never
+ * parse JSON.
+ */
+record StoredDocument(int node, String title, String content, String metadata,
+                      String conversationId, Set<String> tags, Instant createdAt) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    static StoredDocument of(int node, String title, String content, String metadata) {
+        String conversationId = null;
+        Set<String> tags = Set.of();
+        Instant createdAt = null;
+        try {
+            JsonNode root = metadata == null ? null : MAPPER.readTree(metadata);
+            if (root != null && root.isObject()) {
+                JsonNode conv = root.get("conversationId");
+                if (conv != null && conv.isTextual()) conversationId = conv.asText();
+                JsonNode tagNode = root.get("tags");
+                if (tagNode != null && tagNode.isArray()) {
+                    tags = new HashSet<>();
+                    for (JsonNode t : tagNode) tags.add(t.asText());
+                }
+                JsonNode created = root.get("createdAt");
+                if (created != null && created.isTextual()) createdAt = Instant.parse(created.asText());
+            }
+        } catch (IOException | DateTimeParseException ignored) {
+            // unparseable metadata simply matches no metadata filter
+        }
+        return new StoredDocument(node, title, content, metadata, conversationId, tags, createdAt);
+    }
+
+    StoredDocument withNode(int node) {
+        return new StoredDocument(node, title, content, metadata, conversationId, tags, createdAt);
+    }
+
+    boolean matches(MetadataFilter filter) {
+        return filter.isEmpty() || filter.matches(conversationId, tags, createdAt);
+    }
+}
@@ -0,0 +1,56 @@
+package com.ai_chatbot.vectorstore.implementation;
+
+/**
+ * Distance kernels over flat {@code float[]} storage. The loops keep four independent accumulators so the JIT
+ * can pipeline (and on recent JDKs vectorize) them; without {@code --add-modules jdk.incubator.vector} on Java 17
+ * this is the fastest portable form.
+ */
+final class VectorMath {
+
+    private VectorMath() {
+    }
+
+    static float dot(float[] a, int aOff, float[] b, int bOff, int dim) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        int upper = dim & ~3;
+        for (; i < upper; i += 4) {
+            s0 += a[aOff + i] * b[bOff + i];
+            s1 += a[aOff + i + 1] * b[bOff + i + 1];
+            s2 += a[aOff + i + 2] * b[bOff + i + 2];
+            s3 += a[aOff + i + 3] * b[bOff + i + 3];
+        }
+        for (; i < dim; i++) s0 += a[aOff + i] * b[bOff + i];
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    static float squaredL2(float[] a, int aOff, float[] b, int bOff, int dim) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        int upper = dim & ~3;
+        for (; i < upper; i += 4) {
+            float d0 = a[aOff + i] - b[bOff + i];
+            float d1 = a[aOff + i + 1] - b[bOff + i + 1];
+            float d2 = a[aOff + i + 2] - b[bOff + i + 2];
+            float d3 = a[aOff + i + 3] - b[bOff + i + 3];
+            s0 += d0 * d0;
+            s1 += d1 * d1;
+            s2 += d2 * d2;
+            s3 += d3 * d3;
+        }
+        for (; i < dim; i++) {
+            float d = a[aOff + i] - b[bOff + i];
+            s0 += d * d;
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Scale to unit length in place so cosine distance reduces to {@code 1 - dot}.
+     */
+    static void normalize(float[] v) {
+        float norm = (float) Math.sqrt(dot(v, 0, v, 0, v.length));
+        if (norm == 0f) return;
+        for (int i = 0; i < v.length; i++) v[i] /= norm;
+    }
+}
@@ -0,0 +1,55 @@
+package com.ai_chatbot.aiclient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChatRequestWriterTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private static String text(DataBuffer buffer) {
+        try {
+            return buffer.toString(StandardCharsets.UTF_8);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    @Test
+    @DisplayName("should write the same JSON as serializing the request map, reusing encoded persisted messages")
+    void writesBodyAndReusesEncodedMessages() throws Exception {
+        // arrange
+        ChatRequestWriter writer = new ChatRequestWriter(1 << 20);
+        List<PromptMessage> messages = List.of(
+                PromptMessage.of("system", "Be brief."),
+                new PromptMessage(1L, "user", "Say \"hi\"\nin émoji 😀 \\ please"),
+                new PromptMessage(2L, "assistant", "\u0001hi</script>"),
+                PromptMessage.of("user", "again"));
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("model", "llama3");
+        expected.put("messages", messages.stream()
+                .map(m -> Map.of("role", m.role(), "content", m.content())).toList());
+        expected.put("stream", false);
+        expected.put("temperature", 0.2);
+
+        // act
+        String first = text(writer.write("llama3", messages, false, 0.2));
+        String second = text(writer.write("llama3", messages, false, 0.2));
+
+        // assert
+        assertThat(mapper.readTree(first)).isEqualTo(mapper.valueToTree(expected));
+        assertThat(second).isEqualTo(first);
+        assertThat(writer.hitCount()).isEqualTo(2);
+        assertThat(writer.bytes()).isPositive();
+    }
+}
@@ -0,0 +1,88 @@
+package com.ai_chatbot.aiclient;
+
+import com.ai_chatbot.entity.Conversation;
+import com.ai_chatbot.entity.Message;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ContextWindowBuilderTest {
+
+    @SuppressWarnings("unchecked")
+    private final ObjectProvider<HistorySummaryCache> summaries = mock(ObjectProvider.class);
+
+    private Conversation conversation(String... roleContent) {
+        Conversation conv = new Conversation();
+        for (int i = 0; i < roleContent.length; i += 2) {
+            Message m = new Message();
+            m.setId((long) i / 2 + 1);
+            m.setRole(roleContent[i]);
+            m.setContent(roleContent[i + 1]);
+            conv.addMessage(m);
+        }
+        return conv;
+    }
+
+    private static List<String> contents(List<PromptMessage> messages) {
+        return messages.stream().map(m -> m.role() + ":" + m.content()).toList();
+    }
+
+    @Test
+    @DisplayName("should keep only the current system prompt and not repeat the user message")
+    void dropsStaleSystemPrompts() {
+        // arrange
+        Conversation conv = conversation(
+                "system", "old context", "user", "q1", "assistant", "a1",
+                "system", "new context", "user", "q2");
+        ContextWindowBuilder builder = new ContextWindowBuilder(1000, 4, summaries);
+
+        // act
+        List<PromptMessage> messages = builder.buildPrompt(conv, "q2");
+
+        // assert
+        assertThat(contents(messages)).containsExactly(
+                "system:new context", "user:q1", "assistant:a1", "user:q2");
+    }
+
+    @Test
+    @DisplayName("should drop the oldest turns that do not fit the budget")
+    void keepsMostRecentTurnsWithinBudget() {
+        // arrange
+        Conversation conv = conversation(
+                "user", "one two three four", "assistant", "five six seven eight",
+                "user", "nine", "assistant", "ten");
+        // every message costs 4 overhead + 1 token per word here
+        ContextWindowBuilder builder = new ContextWindowBuilder(20, 4, summaries);
+
+        // act
+        List<PromptMessage> messages = builder.buildPrompt(conv, "next");
+
+        // assert
+        assertThat(contents(messages)).containsExactly("user:nine", "assistant:ten", "user:next");
+    }
+
+    @Test
+    @DisplayName("should substitute a cached summary for the turns it covers")
+    void usesCachedSummary() {
+        // arrange
+        Conversation conv = conversation("user", "q1", "assistant", "a1", "user", "q2", "assistant", "a2");
+        conv.setId("c-1");
+        HistorySummaryCache cache = id -> Optional.of(new HistorySummary(2, "asked q1"));
+        when(summaries.getIfAvailable()).thenReturn(cache);
+        ContextWindowBuilder builder = new ContextWindowBuilder(1000, 4, summaries);
+
+        // act
+        List<PromptMessage> messages = builder.buildPrompt(conv, "q3");
+
+        // assert
+        assertThat(contents(messages)).containsExactly(
+                "system:" + ContextWindowBuilder.SUMMARY_PREFIX + "asked q1", "user:q2", "assistant:a2", "user:q3");
+    }
+}
@@ -0,0 +1,72 @@
+package com.ai_chatbot.aiclient.implementation;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChatStreamDecoderTest {
+
+    private static Flux<DataBuffer> split(String body, int... cuts) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        List<DataBuffer> buffers = new ArrayList<>();
+        int start = 0;
+        for (int cut : cuts) {
+            buffers.add(DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOfRange(bytes, start, cut)));
+            start = cut;
+        }
+        buffers.add(DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOfRange(bytes, start, bytes.length)));
+        return Flux.fromIterable(buffers);
+    }
+
+    @Test
+    @DisplayName("should decode Ollama lines split across buffers, including a split multi-byte character")
+    void ndjson() {
+        // arrange
+        String body = "{\"model\":\"llama3\",\"message\":{\"role\":\"assistant\",\"content\":\"Gr\\u00fc\"},\"done\":false}\n"
+                + "{\"model\":\"llama3\",\"message\":{\"role\":\"assistant\",\"content\":\"ße \"},\"done\":false}\n"
+                + "not json\n"
+                + "{\"message\":{\"role\":\"assistant\",\"content\":\"\"},\"done\":true,\"prompt_eval_count\":12,\"eval_count\":2}\n";
+        int inSharpS = body.indexOf("ße") + 1; // between the two bytes of 'ß'
+
+        // act
+        List<ChatStreamDecoder.Chunk> chunks = ChatStreamDecoder.decode(split(body, 10, inSharpS),
+                ChatStreamDecoder.Format.NDJSON).collectList().block();
+
+        // assert
+        assertThat(chunks).containsExactly(
+                new ChatStreamDecoder.Chunk("Grü", false, -1, -1),
+                new ChatStreamDecoder.Chunk("ße ", false, -1, -1),
+                new ChatStreamDecoder.Chunk("", true, 12, 2));
+    }
+
+    @Test
+    @DisplayName("should decode OpenAI data lines and stop at [DONE]")
+    void sse() {
+        // arrange
+        String body = ": keep-alive\r\n\r\n"
+                + "data: {\"choices\":[{\"index\":0,\"delta\":{\"role\":\"assistant\",\"content\":\"Hel\"},\"finish_reason\":null}]}\r\n\r\n"
+                + "data: {\"choices\":[{\"index\":0,\"delta\":{\"content\":\"lo\"},\"finish_reason\":\"stop\"}]}\r\n\r\n"
+                + "data: {\"choices\":[],\"usage\":{\"prompt_tokens\":9,\"completion_tokens\":2,\"total_tokens\":11}}\r\n\r\n"
+                + "data: [DONE]\r\n\r\n"
+                + "data: {\"choices\":[{\"delta\":{\"content\":\"after done\"}}]}\r\n";
+
+        // act
+        List<String> contents = ChatStreamDecoder.contents(split(body, 40, 41), ChatStreamDecoder.Format.SSE)
+                .collectList().block();
+        ChatStreamDecoder.Chunk usage = ChatStreamDecoder.decode(split(body), ChatStreamDecoder.Format.SSE)
+                .filter(c -> c.promptTokens() >= 0).blockFirst();
+
+        // assert
+        assertThat(contents).containsExactly("Hel", "lo");
+        assertThat(usage).isEqualTo(new ChatStreamDecoder.Chunk(null, false, 9, 2));
+    }
+}
@@ -0,0 +1,95 @@
+package com.ai_chatbot.aiclient.implementation;
+
+import com.ai_chatbot.aiclient.LimitExceededException;
+import com.ai_chatbot.aiclient.Priority;
+import com.ai_chatbot.config.RoutingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimiterTest {
+
+    private static RoutingProperties.Limiter config(RoutingProperties.LimitAlgorithm algorithm, int initial, int maxQueue) {
+        return new RoutingProperties.Limiter(algorithm, initial, 1, 16, maxQueue, Duration.ofMinutes(1),
+                Duration.ofSeconds(3), 0.5, Duration.ofSeconds(1), 0.2);
+    }
+
+    @Test
+    @DisplayName("should serve queued calls by priority and reject beyond the queue")
+    void priorityQueueAndRejection() {
+        // arrange
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("b", config(RoutingProperties.LimitAlgorithm.FIXED, 1, 2),
+                new SimpleMeterRegistry(), VirtualTimeScheduler.create());
+        ConcurrencyLimiter.Permit running = limiter.acquire(Priority.STANDARD).block();
+        List<String> served = new ArrayList<>();
+        limiter.acquire(Priority.BATCH).subscribe(p -> served.add("batch"), e -> served.add("batch rejected"));
+        limiter.acquire(Priority.STANDARD).subscribe(p -> served.add("standard"));
+        AtomicReference<Throwable> rejected = new AtomicReference<>();
+
+        // act: the queue is full; an interactive call evicts the batch call, another batch call is turned away
+        limiter.acquire(Priority.INTERACTIVE).subscribe(p -> {
+            served.add("interactive");
+            p.success(1);
+        });
+        limiter.acquire(Priority.BATCH).subscribe(p -> served.add("late batch"), rejected::set);
+        running.success(1);
+
+        // assert
+        assertThat(served).containsExactly("batch rejected", "interactive", "standard");
+        assertThat(rejected.get()).isInstanceOf(LimitExceededException.class);
+        assertThat(((LimitExceededException) rejected.get()).getRetryAfter()).isEqualTo(Duration.ofSeconds(3));
+        assertThat(limiter.inFlight()).isEqualTo(1);
+        assertThat(limiter.queued()).isZero();
+    }
+
+    @Test
+    @DisplayName("should reject a queued call after the max wait")
+    void timeout() {
+        // arrange
+        VirtualTimeScheduler timer = VirtualTimeScheduler.create();
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("b", config(RoutingProperties.LimitAlgorithm.FIXED, 1, 2),
+                new SimpleMeterRegistry(), timer);
+        limiter.acquire(Priority.STANDARD).block();
+        AtomicReference<Throwable> rejected = new AtomicReference<>();
+        limiter.acquire(Priority.INTERACTIVE).subscribe(p -> { }, rejected::set);
+
+        // act
+        timer.advanceTimeBy(Duration.ofMinutes(1));
+
+        // assert
+        assertThat(rejected.get()).isInstanceOf(LimitExceededException.class);
+        assertThat(limiter.queued()).isZero();
+    }
+
+    @Test
+    @DisplayName("should grow the AIMD limit under load and back off on slow or failed calls")
+    void aimd() {
+        // arrange
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("b", config(RoutingProperties.LimitAlgorithm.AIMD, 4, 10),
+                new SimpleMeterRegistry(), VirtualTimeScheduler.create());
+
+        // act
+        for (int i = 0; i < 4; i++) {
+            List<ConcurrencyLimiter.Permit> permits = new ArrayList<>();
+            for (int j = 0; j < 4; j++) permits.add(limiter.acquire(Priority.STANDARD).block());
+            permits.forEach(p -> p.success(Duration.ofMillis(100).toNanos()));
+        }
+        double grown = limiter.limit();
+        limiter.acquire(Priority.STANDARD).block().success(Duration.ofSeconds(5).toNanos());
+        double afterSlow = limiter.limit();
+        limiter.acquire(Priority.STANDARD).block().dropped();
+
+        // assert
+        assertThat(grown).isGreaterThan(4);
+        assertThat(afterSlow).isEqualTo(grown * 0.5);
+        assertThat(limiter.limit()).isEqualTo(Math.max(1, afterSlow * 0.5));
+    }
+}
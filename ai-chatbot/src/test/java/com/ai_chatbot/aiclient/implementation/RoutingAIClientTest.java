@@ -0,0 +1,148 @@
+package com.ai_chatbot.aiclient.implementation;
+
+import com.ai_chatbot.aiclient.ChatCoalescer;
+import com.ai_chatbot.aiclient.ContextWindowBuilder;
+import com.ai_chatbot.config.RoutingProperties;
+import com.ai_chatbot.entity.Conversation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.when;
+
+class RoutingAIClientTest {
+
+    private final RoutingProperties properties = new RoutingProperties(RoutingProperties.Strategy.LEAST_OUTSTANDING,
+            Duration.ofSeconds(10), Duration.ofSeconds(10), Duration.ofSeconds(2),
+            new RoutingProperties.Ejection(2, Duration.ofMinutes(1), Duration.ofMinutes(5)),
+            new RoutingProperties.Limiter(RoutingProperties.LimitAlgorithm.FIXED, 8, 1, 8, 10, Duration.ofSeconds(1),
+                    Duration.ofSeconds(1), 0.9, Duration.ofSeconds(30), 0.2),
+            List.of());
+
+    @SuppressWarnings("unchecked")
+    private final ContextWindowBuilder contextWindow = new ContextWindowBuilder(1000, 4, mock(ObjectProvider.class));
+
+    private RoutingAIClient router(BackendEndpoint... backends) {
+        return new RoutingAIClient(List.of(backends), properties, contextWindow,
+                new ChatCoalescer(true, new SimpleMeterRegistry()), new SimpleMeterRegistry());
+    }
+
+    private static BackendEndpoint backend(String name, BackendClient client, Set<String> models) {
+        return new BackendEndpoint(name, client, Mono.empty(), models);
+    }
+
+    @Test
+    @DisplayName("should route by model and prefer the backend with fewer requests in flight")
+    void routesByModelAndLoad() {
+        // arrange
+        BackendEndpoint busy = backend("busy", mock(BackendClient.class), Set.of());
+        BackendEndpoint idle = backend("idle", mock(BackendClient.class), Set.of());
+        BackendEndpoint mistral = backend("mistral", mock(BackendClient.class), Set.of("mistral"));
+        RoutingAIClient router = router(busy, idle, mistral);
+        busy.acquire();
+        busy.acquire();
+
+        // act / assert
+        for (int i = 0; i < 20; i++) {
+            assertThat(router.select("llama3")).isSameAs(idle);
+            assertThat(router.select("mistral")).isNotSameAs(busy);
+        }
+    }
+
+    @Test
+    @DisplayName("should eject a backend after consecutive failures and route around it")
+    void ejectsFailingBackend() {
+        // arrange
+        BackendClient failing = mock(BackendClient.class);
+        when(failing.chat(any(), any())).thenReturn(Mono.error(new IllegalStateException("503")));
+        BackendClient working = mock(BackendClient.class);
+        when(working.chat(any(), any())).thenReturn(Mono.just("ok"));
+        BackendEndpoint bad = backend("bad", failing, Set.of("m"));
+        BackendEndpoint good = backend("good", working, Set.of("other"));
+        RoutingAIClient router = router(bad, good);
+
+        // act: only "bad" serves model m, so both failures land there
+        for (int i = 0; i < 2; i++) {
+            router.chat(new Conversation(), "q", "m", false).onErrorResume(e -> Mono.empty()).block();
+        }
+
+        // assert
+        assertThat(bad.isAvailable(System.nanoTime())).isFalse();
+        assertThat(bad.outstanding()).isZero();
+        assertThat(router.chat(new Conversation(), "q", null, false).block()).isEqualTo("ok");
+        // every backend for the model is out: still tried rather than failing fast
+        assertThat(router.select("m")).isSameAs(bad);
+    }
+
+    @Test
+    @DisplayName("should join identical in-flight requests before choosing a backend")
+    void coalescesBeforeRouting() {
+        // arrange
+        Sinks.One<String> answer = Sinks.one();
+        BackendClient first = mock(BackendClient.class);
+        when(first.chat(any(), any())).thenReturn(answer.asMono());
+        BackendClient second = mock(BackendClient.class);
+        when(second.chat(any(), any())).thenReturn(answer.asMono());
+        BackendEndpoint a = backend("a", first, Set.of());
+        BackendEndpoint b = backend("b", second, Set.of());
+        RoutingAIClient router = router(a, b);
+
+        // act
+        List<String> answers = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            router.chat(new Conversation(), "same question", null, false).subscribe(answers::add);
+        }
+
+        // assert: one backend holds the one generation, the other is untouched
+        assertThat(a.outstanding() + b.outstanding()).isEqualTo(1);
+        answer.tryEmitValue("shared");
+        assertThat(answers).hasSize(5).containsOnly("shared");
+        assertThat(a.outstanding() + b.outstanding()).isZero();
+        assertThat(mockingDetails(first).getInvocations().size() + mockingDetails(second).getInvocations().size())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should admit a burst of identical streams with a single backend slot")
+    void burstTakesOnePermit() {
+        // arrange: one slot and no queue, so every call that reached the limiter after the first would be rejected
+        RoutingProperties oneSlot = new RoutingProperties(RoutingProperties.Strategy.LEAST_OUTSTANDING,
+                Duration.ofSeconds(10), Duration.ofSeconds(10), Duration.ofSeconds(2),
+                new RoutingProperties.Ejection(2, Duration.ofMinutes(1), Duration.ofMinutes(5)),
+                new RoutingProperties.Limiter(RoutingProperties.LimitAlgorithm.FIXED, 1, 1, 1, 0, Duration.ofSeconds(1),
+                        Duration.ofSeconds(1), 0.9, Duration.ofSeconds(30), 0.2),
+                List.of());
+        Sinks.Many<String> tokens = Sinks.many().multicast().onBackpressureBuffer();
+        BackendClient client = mock(BackendClient.class);
+        when(client.streamChat(any(), any())).thenReturn(tokens.asFlux());
+        BackendEndpoint only = backend("only", client, Set.of());
+        RoutingAIClient router = new RoutingAIClient(List.of(only), oneSlot, contextWindow,
+                new ChatCoalescer(true, new SimpleMeterRegistry()), new SimpleMeterRegistry());
+
+        // act
+        List<String> received = new CopyOnWriteArrayList<>();
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            router.streamChat(new Conversation(), "same question", null).subscribe(received::add, errors::add);
+        }
+        tokens.tryEmitNext("answer");
+        tokens.tryEmitComplete();
+
+        // assert
+        assertThat(errors).isEmpty();
+        assertThat(received).hasSize(50).containsOnly("answer");
+        assertThat(only.outstanding()).isZero();
+    }
+}
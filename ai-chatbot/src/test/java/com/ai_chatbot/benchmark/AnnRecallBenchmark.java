@@ -0,0 +1,189 @@
+package com.ai_chatbot.benchmark;
+
+import com.ai_chatbot.service.PgVector;
+import com.ai_chatbot.vectorstore.DistanceMetric;
+import org.postgresql.PGConnection;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Latency and recall@k of pgvector HNSW and IVFFlat search against exact search, at growing table sizes.
+ * Needs a PostgreSQL with the vector extension; it works in its own {@code ann_bench} table and drops it
+ * afterwards.
+ * <pre>
+ * java -cp ... com.ai_chatbot.benchmark.AnnRecallBenchmark \
+ *   -Dbench.url=jdbc:postgresql://localhost:5432/ai_chatbot -Dbench.user=postgres -Dbench.password=root \
+ *   -Dbench.sizes=10000,100000,1000000 -Dbench.dim=768 -Dbench.k=10 -Dbench.queries=200
+ * </pre>
+ * Vectors are drawn from a mixture of Gaussian clusters, which is closer to real embeddings than uniform noise.
+ */
+public class AnnRecallBenchmark {
+
+    private static final int CLUSTERS = 64;
+
+    private final int dim = Integer.getInteger("bench.dim", 768);
+    private final int k = Integer.getInteger("bench.k", 10);
+    private final int queries = Integer.getInteger("bench.queries", 200);
+    private final DistanceMetric metric = DistanceMetric.valueOf(System.getProperty("bench.metric", "L2"));
+    private final Random random = new Random(42);
+    private final float[][] centroids = new float[CLUSTERS][];
+
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("bench.url", "jdbc:postgresql://localhost:5432/ai_chatbot");
+        String user = System.getProperty("bench.user", "postgres");
+        String password = System.getProperty("bench.password", "root");
+        int[] sizes = Arrays.stream(System.getProperty("bench.sizes", "10000,100000,1000000").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        try (Connection conn = DriverManager.getConnection(url, user, password)) {
+            new AnnRecallBenchmark().run(conn, sizes);
+        }
+    }
+
+    void run(Connection conn, int[] sizes) throws SQLException, IOException {
+        for (int c = 0; c < CLUSTERS; c++) centroids[c] = gaussian(1.0f);
+        PgVector.enableBinaryTransfer(conn);
+        try (Statement st = conn.createStatement()) {
+            st.execute("CREATE EXTENSION IF NOT EXISTS vector");
+            st.execute("DROP TABLE IF EXISTS ann_bench");
+            st.execute("CREATE TABLE ann_bench (id int PRIMARY KEY, embedding vector(" + dim + "))");
+        }
+        try {
+            int loaded = 0;
+            System.out.printf("%-9s %-24s %10s %10s %10s%n", "rows", "mode", "p50 ms", "p99 ms", "recall@" + k);
+            for (int size : sizes) {
+                load(conn, loaded, size);
+                loaded = size;
+                List<float[]> qs = new ArrayList<>();
+                for (int i = 0; i < queries; i++) qs.add(sample());
+
+                List<Set<Integer>> truth = new ArrayList<>();
+                long[] exactLatency = new long[queries];
+                for (int i = 0; i < queries; i++) {
+                    long t = System.nanoTime();
+                    truth.add(search(conn, qs.get(i), "SET LOCAL enable_indexscan = off"));
+                    exactLatency[i] = System.nanoTime() - t;
+                }
+                report(size, "exact", exactLatency, 1.0);
+
+                buildIndex(conn, "hnsw", "WITH (m = 16, ef_construction = 64)");
+                for (int ef : new int[]{20, 40, 100, 200}) {
+                    measure(conn, size, "hnsw ef_search=" + ef, "SET LOCAL hnsw.ef_search = " + ef, qs, truth);
+                }
+                dropIndex(conn);
+
+                int lists = Math.max(10, (int) Math.sqrt(size));
+                buildIndex(conn, "ivfflat", "WITH (lists = " + lists + ")");
+                for (int probes : new int[]{1, 5, 10, 20}) {
+                    measure(conn, size, "ivfflat probes=" + probes, "SET LOCAL ivfflat.probes = " + probes, qs, truth);
+                }
+                dropIndex(conn);
+            }
+        } finally {
+            try (Statement st = conn.createStatement()) {
+                st.execute("DROP TABLE IF EXISTS ann_bench");
+            }
+        }
+    }
+
+    private void measure(Connection conn, int size, String mode, String setting,
+                         List<float[]> qs, List<Set<Integer>> truth) throws SQLException {
+        long[] latency = new long[qs.size()];
+        double recall = 0;
+        for (int i = 0; i < qs.size(); i++) {
+            long t = System.nanoTime();
+            Set<Integer> ids = search(conn, qs.get(i), setting);
+            latency[i] = System.nanoTime() - t;
+            ids.retainAll(truth.get(i));
+            recall += (double) ids.size() / k;
+        }
+        report(size, mode, latency, recall / qs.size());
+    }
+
+    private Set<Integer> search(Connection conn, float[] q, String setting) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            try (Statement st = conn.createStatement()) {
+                st.execute(setting);
+            }
+            Set<Integer> ids = new HashSet<>();
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT id FROM ann_bench ORDER BY embedding " + metric.operator() + " ? LIMIT ?")) {
+                ps.setObject(1, new PgVector(q));
+                ps.setInt(2, k);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) ids.add(rs.getInt(1));
+                }
+            }
+            return ids;
+        } finally {
+            conn.commit();
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private void load(Connection conn, int from, int to) throws SQLException, IOException {
+        int batch = 10_000;
+        for (int start = from; start < to; start += batch) {
+            StringBuilder rows = new StringBuilder();
+            for (int id = start; id < Math.min(to, start + batch); id++) {
+                rows.append(id).append('\t').append(new PgVector(sample()).getValue()).append('\n');
+            }
+            try (Reader in = new StringReader(rows.toString())) {
+                conn.unwrap(PGConnection.class).getCopyAPI().copyIn("COPY ann_bench (id, embedding) FROM STDIN", in);
+            }
+        }
+        try (Statement st = conn.createStatement()) {
+            st.execute("ANALYZE ann_bench");
+        }
+    }
+
+    private void buildIndex(Connection conn, String type, String with) throws SQLException {
+        long t = System.nanoTime();
+        try (Statement st = conn.createStatement()) {
+            st.execute("SET maintenance_work_mem = '1GB'");
+            st.execute("CREATE INDEX ann_bench_idx ON ann_bench USING " + type + " (embedding "
+                    + metric.operatorClass() + ") " + with);
+        }
+        System.out.printf("  built %s index in %.1f s%n", type, (System.nanoTime() - t) / 1e9);
+    }
+
+    private void dropIndex(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("DROP INDEX IF EXISTS ann_bench_idx");
+        }
+    }
+
+    private void report(int size, String mode, long[] latencyNanos, double recall) {
+        long[] sorted = latencyNanos.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-9d %-24s %10.2f %10.2f %10.3f%n", size, mode,
+                sorted[sorted.length / 2] / 1e6, sorted[(int) (sorted.length * 0.99)] / 1e6, recall);
+    }
+
+    private float[] sample() {
+        float[] centroid = centroids[random.nextInt(CLUSTERS)];
+        float[] noise = gaussian(0.3f);
+        for (int i = 0; i < dim; i++) noise[i] += centroid[i];
+        return noise;
+    }
+
+    private float[] gaussian(float sigma) {
+        float[] v = new float[dim];
+        for (int i = 0; i < dim; i++) v[i] = (float) random.nextGaussian() * sigma;
+        return v;
+    }
+}
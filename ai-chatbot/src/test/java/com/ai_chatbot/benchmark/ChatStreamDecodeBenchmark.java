@@ -0,0 +1,119 @@
+package com.ai_chatbot.benchmark;
+
+import com.ai_chatbot.aiclient.implementation.ChatStreamDecoder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes one streamed answer of {@code tokens} lines, one network buffer per line, with the previous per-line
+ * paths and with {@link ChatStreamDecoder}:
+ * <ul>
+ *   <li>{@code ndjson}: a {@code JsonNode} per Ollama line ({@code bodyToFlux(JsonNode.class)}), then
+ *   {@code path("message").path("content")}.</li>
+ *   <li>{@code sse}: the OpenAI line as a String, {@code split} and {@code readTree} per line.</li>
+ * </ul>
+ * Run {@link #main} like {@link EmbeddingDecodeBenchmark}; {@code gc.alloc.rate.norm} is the bytes allocated per
+ * decoded answer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChatStreamDecodeBenchmark {
+
+    @Param({"ndjson", "sse"})
+    public String format;
+
+    @Param({"256"})
+    public int tokens;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private byte[][] lines;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        lines = new byte[tokens + 1][];
+        for (int i = 0; i < tokens; i++) {
+            String token = " " + Long.toString(random.nextLong() & 0xffffff, 36);
+            String line = "ndjson".equals(format)
+                    ? "{\"model\":\"llama3\",\"created_at\":\"2024-06-01T10:00:00.000000Z\",\"message\":{\"role\":\"assistant\","
+                    + "\"content\":\"" + token + "\"},\"done\":false}\n"
+                    : "data: {\"id\":\"chatcmpl-1\",\"object\":\"chat.completion.chunk\",\"created\":1717236000,"
+                    + "\"model\":\"gpt-4o-mini\",\"choices\":[{\"index\":0,\"delta\":{\"content\":\"" + token
+                    + "\"},\"finish_reason\":null}]}\n\n";
+            lines[i] = line.getBytes(StandardCharsets.UTF_8);
+        }
+        lines[tokens] = ("ndjson".equals(format)
+                ? "{\"model\":\"llama3\",\"message\":{\"role\":\"assistant\",\"content\":\"\"},\"done\":true,"
+                + "\"prompt_eval_count\":26,\"eval_count\":" + tokens + "}\n"
+                : "data: [DONE]\n\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void previous(Blackhole bh) throws IOException {
+        if ("ndjson".equals(format)) {
+            for (byte[] line : lines) {
+                bh.consume(mapper.readTree(line).path("message").path("content").asText());
+            }
+            return;
+        }
+        for (byte[] bytes : lines) {
+            for (String line : new String(bytes, StandardCharsets.UTF_8).split("\\r?\\n")) {
+                line = line.trim();
+                if (!line.startsWith("data:")) continue;
+                String data = line.substring("data:".length()).trim();
+                if (data.equals("[DONE]")) return;
+                JsonNode choices = mapper.readTree(data).get("choices");
+                StringBuilder out = new StringBuilder();
+                for (JsonNode choice : choices) {
+                    JsonNode delta = choice.get("delta");
+                    if (delta != null && delta.has("content")) out.append(delta.get("content").asText());
+                }
+                bh.consume(out.toString());
+            }
+        }
+    }
+
+    @Benchmark
+    public void decoder(Blackhole bh) {
+        ChatStreamDecoder decoder = new ChatStreamDecoder("ndjson".equals(format)
+                ? ChatStreamDecoder.Format.NDJSON : ChatStreamDecoder.Format.SSE);
+        for (byte[] line : lines) {
+            for (ChatStreamDecoder.Chunk chunk : decoder.feed(DefaultDataBufferFactory.sharedInstance.wrap(line))) {
+                bh.consume(chunk.content());
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ChatStreamDecodeBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
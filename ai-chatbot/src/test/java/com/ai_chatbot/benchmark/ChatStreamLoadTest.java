@@ -0,0 +1,160 @@
+package com.ai_chatbot.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test for the SSE chat endpoint: opens {@code load.streams} concurrent {@code /api/v1/stream} requests
+ * against a running application and reports time-to-first-token and full-stream latency percentiles.
+ * <p>
+ * To isolate the persistence path from model latency, {@code -Dload.stub-port=11435} starts a stub Ollama
+ * server that answers {@code /api/chat}, {@code /api/embed} and {@code /api/embeddings} with fixed tokens and
+ * vectors. Run the app against it once per persistence mode and compare the p99 columns:
+ * <pre>
+ * java -jar ai-chatbot.jar --ai.provider.base-url=http://localhost:11435 --ai.persistence.mode=blocking
+ * java -jar ai-chatbot.jar --ai.provider.base-url=http://localhost:11435 --ai.persistence.mode=reactive
+ *
+ * java -cp ... com.ai_chatbot.benchmark.ChatStreamLoadTest \
+ *   -Dload.base-url=http://localhost:8080 -Dload.streams=500 -Dload.rounds=3 -Dload.rag=true \
+ *   -Dload.stub-port=11435 -Dload.stub-tokens=50 -Dload.stub-token-delay-ms=20 -Dload.stub-dim=768
+ * </pre>
+ */
+public class ChatStreamLoadTest {
+
+    private final String baseUrl = System.getProperty("load.base-url", "http://localhost:8080");
+    private final int streams = Integer.getInteger("load.streams", 500);
+    private final int rounds = Integer.getInteger("load.rounds", 3);
+    private final boolean rag = Boolean.parseBoolean(System.getProperty("load.rag", "true"));
+
+    public static void main(String[] args) {
+        int stubPort = Integer.getInteger("load.stub-port", 0);
+        DisposableServer stub = stubPort > 0 ? startStubLlm(stubPort) : null;
+        try {
+            new ChatStreamLoadTest().run();
+        } finally {
+            if (stub != null) stub.disposeNow();
+        }
+    }
+
+    void run() {
+        ConnectionProvider provider = ConnectionProvider.builder("load")
+                .maxConnections(streams * 2)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        WebClient client = WebClient.builder()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(provider)))
+                .build();
+        System.out.printf("%-6s %8s %8s %12s %12s %12s %12s%n",
+                "round", "streams", "errors", "ttft p50 ms", "ttft p99 ms", "total p50", "total p99");
+        try {
+            for (int round = 1; round <= rounds; round++) {
+                long[] ttft = new long[streams];
+                long[] total = new long[streams];
+                AtomicInteger errors = new AtomicInteger();
+                Flux.range(0, streams)
+                        .flatMap(i -> oneStream(client, i, ttft, total, errors), streams)
+                        .blockLast(Duration.ofMinutes(10));
+                report(round, ttft, total, errors.get());
+            }
+        } finally {
+            provider.disposeLater().block();
+        }
+    }
+
+    private Mono<Void> oneStream(WebClient client, int i, long[] ttft, long[] total, AtomicInteger errors) {
+        long start = System.nanoTime();
+        return client.get()
+                .uri(uri -> uri.path("/api/v1/stream/{id}")
+                        .queryParam("message", "load test question " + i)
+                        .queryParam("useRag", rag)
+                        .build(UUID.randomUUID().toString()))
+                .retrieve()
+                .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<String>>() {
+                })
+                .index()
+                .doOnNext(t -> {
+                    if (t.getT1() == 0) ttft[i] = System.nanoTime() - start;
+                })
+                .then()
+                .doOnSuccess(v -> total[i] = System.nanoTime() - start)
+                .onErrorResume(ex -> {
+                    errors.incrementAndGet();
+                    ttft[i] = total[i] = -1;
+                    return Mono.empty();
+                });
+    }
+
+    private void report(int round, long[] ttft, long[] total, int errors) {
+        long[] first = Arrays.stream(ttft).filter(v -> v > 0).sorted().toArray();
+        long[] all = Arrays.stream(total).filter(v -> v > 0).sorted().toArray();
+        System.out.printf("%-6d %8d %8d %12.1f %12.1f %12.1f %12.1f%n", round, streams, errors,
+                percentile(first, 0.50), percentile(first, 0.99), percentile(all, 0.50), percentile(all, 0.99));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return Double.NaN;
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1e6;
+    }
+
+    /**
+     * Minimal Ollama look-alike: NDJSON token stream for {@code "stream":true} chats, a single message
+     * otherwise, and constant embeddings.
+     */
+    static DisposableServer startStubLlm(int port) {
+        int tokens = Integer.getInteger("load.stub-tokens", 50);
+        Duration tokenDelay = Duration.ofMillis(Integer.getInteger("load.stub-token-delay-ms", 20));
+        int dim = Integer.getInteger("load.stub-dim", 768);
+        StringBuilder vector = new StringBuilder("[");
+        for (int d = 0; d < dim; d++) vector.append(d == 0 ? "" : ",").append(Math.sin(d) * 0.1);
+        vector.append(']');
+        String embedding = "{\"embedding\":" + vector + "}";
+        String embeddings = "{\"embeddings\":[" + vector + "]}";
+        String token = "{\"message\":{\"role\":\"assistant\",\"content\":\"tok \"},\"done\":false}\n";
+        String done = "{\"message\":{\"role\":\"assistant\",\"content\":\"\"},\"done\":true}\n";
+
+        DisposableServer server = HttpServer.create()
+                .port(port)
+                .route(routes -> routes
+                        .post("/api/embeddings", (req, res) -> req.receive().then()
+                                .then(res.header("Content-Type", "application/json").sendString(Mono.just(embedding)).then()))
+                        .post("/api/embed", (req, res) -> req.receive().then()
+                                .then(res.header("Content-Type", "application/json").sendString(Mono.just(embeddings)).then()))
+                        .post("/api/chat", (req, res) -> req.receive().aggregate().asString(StandardCharsets.UTF_8)
+                                .flatMap(body -> {
+                                    if (!body.replace(" ", "").contains("\"stream\":true")) {
+                                        return res.header("Content-Type", "application/json")
+                                                .sendString(Mono.just("{\"message\":{\"role\":\"assistant\",\"content\":\""
+                                                        + "tok ".repeat(tokens) + "\"},\"done\":true}")).then();
+                                    }
+                                    Flux<ByteBuf> lines = Flux.interval(tokenDelay)
+                                            .take(tokens)
+                                            .map(n -> utf8(token))
+                                            .concatWith(Mono.fromSupplier(() -> utf8(done)));
+                                    return res.header("Content-Type", "application/x-ndjson").send(lines).then();
+                                })))
+                .bindNow();
+        System.out.printf("stub LLM on :%d (%d tokens, %d ms apart, dim %d)%n", port, tokens, tokenDelay.toMillis(), dim);
+        return server;
+    }
+
+    private static ByteBuf utf8(String s) {
+        return ByteBufAllocator.DEFAULT.buffer().writeBytes(s.getBytes(StandardCharsets.UTF_8));
+    }
+}
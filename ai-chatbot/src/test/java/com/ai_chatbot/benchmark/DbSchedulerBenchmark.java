@@ -0,0 +1,91 @@
+package com.ai_chatbot.benchmark;
+
+import com.ai_chatbot.config.DbSchedulerConfig;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares the {@code bounded-elastic} and {@code virtual} modes of {@link DbSchedulerConfig} under a burst of
+ * concurrent blocking calls against a simulated connection pool (a semaphore with Hikari's acquire timeout and a
+ * fixed query time). Prints throughput, end-to-end latency percentiles, pool timeouts and, for the virtual
+ * mode, the mean and max of {@code db.scheduler.queue}.
+ * <pre>
+ * java -cp ... com.ai_chatbot.benchmark.DbSchedulerBenchmark \
+ *   -Dbench.requests=5000 -Dbench.pool=10 -Dbench.query-ms=5 -Dbench.acquire-timeout-ms=30000
+ * </pre>
+ * On Java 17 the virtual mode runs on its platform-thread fallback; run on JDK 21+ to measure virtual threads.
+ */
+public class DbSchedulerBenchmark {
+
+    private final int requests = Integer.getInteger("bench.requests", 5000);
+    private final int pool = Integer.getInteger("bench.pool", 10);
+    private final long queryMs = Long.getLong("bench.query-ms", 5);
+    private final long acquireTimeoutMs = Long.getLong("bench.acquire-timeout-ms", 30_000);
+
+    public static void main(String[] args) {
+        new DbSchedulerBenchmark().run();
+    }
+
+    void run() {
+        System.out.printf("java %s, %d requests, pool %d, query %d ms%n", Runtime.version(), requests, pool, queryMs);
+        System.out.printf("%-16s %10s %10s %10s %10s %10s %14s %14s%n",
+                "mode", "req/s", "p50 ms", "p99 ms", "max ms", "timeouts", "queue mean ms", "queue max ms");
+        for (String mode : new String[]{"bounded-elastic", "virtual", "bounded-elastic", "virtual"}) {
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            Scheduler scheduler = new DbSchedulerConfig().dbScheduler(mode, pool, registry);
+            try {
+                measure(mode, scheduler, registry);
+            } finally {
+                scheduler.dispose();
+            }
+        }
+    }
+
+    private void measure(String mode, Scheduler scheduler, SimpleMeterRegistry registry) {
+        Semaphore connections = new Semaphore(pool, true);
+        AtomicInteger timeouts = new AtomicInteger();
+        long[] latency = new long[requests];
+        long start = System.nanoTime();
+        Flux.range(0, requests)
+                .flatMap(i -> {
+                    long submitted = System.nanoTime();
+                    return Mono.fromRunnable(() -> query(connections, timeouts))
+                            .subscribeOn(scheduler)
+                            .doOnTerminate(() -> latency[i] = System.nanoTime() - submitted);
+                }, requests)
+                .blockLast(Duration.ofMinutes(10));
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Arrays.sort(latency);
+        Timer queue = registry.find("db.scheduler.queue").timer();
+        System.out.printf("%-16s %10.0f %10.1f %10.1f %10.1f %10d %14.1f %14.1f%n", mode, requests / seconds,
+                latency[requests / 2] / 1e6, latency[(int) (requests * 0.99)] / 1e6, latency[requests - 1] / 1e6,
+                timeouts.get(),
+                queue == null ? Double.NaN : queue.mean(TimeUnit.MILLISECONDS),
+                queue == null ? Double.NaN : queue.max(TimeUnit.MILLISECONDS));
+    }
+
+    private void query(Semaphore connections, AtomicInteger timeouts) {
+        try {
+            if (!connections.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                return;
+            }
+            try {
+                Thread.sleep(queryMs);
+            } finally {
+                connections.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
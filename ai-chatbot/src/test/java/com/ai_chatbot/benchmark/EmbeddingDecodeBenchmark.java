@@ -0,0 +1,82 @@
+package com.ai_chatbot.benchmark;
+
+import com.ai_chatbot.service.EmbeddingResponseDecoder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the old JsonNode tree walk against {@link EmbeddingResponseDecoder} for a single Ollama
+ * {@code /api/embeddings} response. Run {@link #main} from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=...}; the GC profiler reports
+ * {@code gc.alloc.rate.norm} (bytes allocated per decoded response) next to throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmbeddingDecodeBenchmark {
+
+    @Param({"768", "1536"})
+    public int dimensions;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final EmbeddingResponseDecoder decoder = new EmbeddingResponseDecoder();
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder("{\"embedding\":[");
+        for (int i = 0; i < dimensions; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(random.nextGaussian() * 0.05);
+        }
+        sb.append("]}");
+        payload = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public float[] jsonNodeTree() throws IOException {
+        JsonNode embeddingNode = mapper.readTree(payload).get("embedding");
+        float[] emb = new float[embeddingNode.size()];
+        for (int i = 0; i < embeddingNode.size(); i++) {
+            emb[i] = (float) embeddingNode.get(i).asDouble();
+        }
+        return emb;
+    }
+
+    @Benchmark
+    public float[] streamingDecoder() throws IOException {
+        return decoder.decodeSingle(new ByteArrayInputStream(payload));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EmbeddingDecodeBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
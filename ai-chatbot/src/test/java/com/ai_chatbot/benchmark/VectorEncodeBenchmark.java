@@ -0,0 +1,93 @@
+package com.ai_chatbot.benchmark;
+
+import com.ai_chatbot.service.PgVector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.postgresql.util.PGobject;
+
+import java.sql.SQLException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client-side cost of binding a query vector for {@code queryNearest}: the old path built the text form twice
+ * (one PGobject per placeholder), the text fallback of {@link PgVector} builds it once, and the binary path
+ * only packs floats.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VectorEncodeBenchmark {
+
+    @Param({"384", "768", "1536"})
+    public int dimensions;
+
+    private float[] vector;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        vector = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) vector[i] = (float) (random.nextGaussian() * 0.05);
+    }
+
+    @Benchmark
+    public Object legacyTextTwice() throws SQLException {
+        PGobject first = new PGobject();
+        first.setType("vector");
+        first.setValue(legacyVectorToSql(vector));
+        PGobject second = new PGobject();
+        second.setType("vector");
+        second.setValue(legacyVectorToSql(vector));
+        return second;
+    }
+
+    @Benchmark
+    public String pgVectorTextOnce() {
+        PgVector v = new PgVector(vector);
+        v.getValue();
+        return v.getValue();
+    }
+
+    @Benchmark
+    public byte[] pgVectorBinary() {
+        PgVector v = new PgVector(vector);
+        byte[] out = new byte[v.lengthInBytes()];
+        v.toBytes(out, 0);
+        v.toBytes(out, 0);
+        return out;
+    }
+
+    private static String legacyVectorToSql(float[] vector) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < vector.length; i++) {
+            if (i > 0) sb.append(",");
+            sb.append(Float.toString(vector[i]));
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VectorEncodeBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
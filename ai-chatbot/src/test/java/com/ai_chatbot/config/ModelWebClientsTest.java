@@ -0,0 +1,24 @@
+package com.ai_chatbot.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.netty.http.HttpProtocol;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ModelWebClientsTest {
+
+    @Test
+    @DisplayName("should only offer HTTP/2 over TLS unless h2c is configured")
+    void protocols() {
+        // act / assert
+        assertThat(ModelWebClients.protocols(HttpClientProperties.Protocol.AUTO, "https://api.example.com/v1"))
+                .containsExactly(HttpProtocol.H2, HttpProtocol.HTTP11);
+        assertThat(ModelWebClients.protocols(HttpClientProperties.Protocol.AUTO, "http://localhost:11434"))
+                .containsExactly(HttpProtocol.HTTP11);
+        assertThat(ModelWebClients.protocols(HttpClientProperties.Protocol.H2C, "http://vllm:8000/v1"))
+                .containsExactly(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        assertThat(ModelWebClients.protocols(HttpClientProperties.Protocol.HTTP11, "https://api.example.com/v1"))
+                .containsExactly(HttpProtocol.HTTP11);
+    }
+}
@@ -0,0 +1,137 @@
+package com.ai_chatbot.controller;
+
+import com.ai_chatbot.aiclient.AIClient;
+import com.ai_chatbot.aiclient.LimitExceededException;
+import com.ai_chatbot.entity.Conversation;
+import com.ai_chatbot.repository.ConversationRepository;
+import com.ai_chatbot.repository.ConversationStore;
+import com.ai_chatbot.service.ConversationQueryService;
+import com.ai_chatbot.service.ConversationSummarizer;
+import com.ai_chatbot.service.EmbeddingService;
+import com.ai_chatbot.service.RagService;
+import com.ai_chatbot.service.ResumableStreams;
+import com.ai_chatbot.service.SemanticResponseCache;
+import com.ai_chatbot.service.StreamLimits;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.when;
+
+/**
+ * A saturated model backend: {@code POST /chat} answers 429 with {@code Retry-After}, a stream ends with a
+ * {@code busy} event carrying the same delay.
+ */
+@WebFluxTest(controllers = ChatController.class)
+class ChatControllerLimitsTest {
+
+    private static final Duration RETRY_AFTER = Duration.ofMillis(2500);
+
+    @Autowired
+    private WebTestClient client;
+    @MockitoBean
+    private ConversationRepository conversationRepository;
+    @MockitoBean
+    private ConversationStore conversationStore;
+    @MockitoBean
+    private AIClient aiClient;
+    @MockitoBean
+    private RagService ragService;
+    @MockitoBean
+    private ConversationQueryService conversationQueryService;
+    @MockitoBean
+    private ConversationSummarizer conversationSummarizer;
+    @MockitoBean
+    private SemanticResponseCache responseCache;
+    @MockitoBean
+    private EmbeddingService embeddingService;
+
+    @TestConfiguration
+    static class Streams {
+        private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        @Bean
+        ResumableStreams resumableStreams() {
+            return new ResumableStreams(true, 16, Duration.ofSeconds(60), Duration.ofSeconds(10), 100, registry);
+        }
+
+        @Bean
+        StreamLimits streamLimits() {
+            return new StreamLimits(4096, Duration.ofMinutes(1), registry);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        Conversation conv = new Conversation();
+        conv.setId("c-1");
+        when(conversationStore.findOrCreate(any(), any())).thenReturn(Mono.just(conv));
+        when(conversationStore.appendMessages(any(), any())).thenReturn(Mono.just(conv));
+        when(responseCache.isCacheable(any(), anyBoolean())).thenReturn(false);
+    }
+
+    @Test
+    @DisplayName("should answer 429 with Retry-After rounded up to whole seconds when the backend is saturated")
+    void chatRejectedWith429() {
+        // arrange
+        when(aiClient.chat(any(Conversation.class), any(), any(), anyBoolean()))
+                .thenReturn(Mono.error(new LimitExceededException("llama3 is saturated", RETRY_AFTER)));
+
+        // act / assert
+        client.post().uri("/api/v1/chat")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("conversationId", "c-1", "message", "hi"))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS)
+                .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "3")
+                .expectBody()
+                .jsonPath("$.conversationId").isEqualTo("c-1")
+                .jsonPath("$.message").isEqualTo("llama3 is saturated");
+    }
+
+    @Test
+    @DisplayName("should end a stream with a busy event whose retry is the backend's delay")
+    void streamEndsWithBusy() {
+        // arrange
+        when(aiClient.streamChat(any(Conversation.class), any(), any()))
+                .thenReturn(Flux.error(new LimitExceededException("llama3 is saturated", RETRY_AFTER)));
+
+        // act
+        List<ServerSentEvent<String>> events = client.get().uri("/api/v1/stream/c-1?message=hi")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<String>>() { })
+                .getResponseBody()
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        // assert
+        assertThat(events).singleElement().satisfies(event -> {
+            assertThat(event.event()).isEqualTo("busy");
+            assertThat(event.retry()).isEqualTo(RETRY_AFTER);
+            assertThat(event.data()).isEqualTo("3");
+        });
+    }
+}
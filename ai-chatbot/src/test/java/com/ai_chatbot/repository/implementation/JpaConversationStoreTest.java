@@ -0,0 +1,90 @@
+package com.ai_chatbot.repository.implementation;
+
+import com.ai_chatbot.aiclient.HistorySummary;
+import com.ai_chatbot.aiclient.HistorySummaryCache;
+import com.ai_chatbot.entity.Conversation;
+import com.ai_chatbot.entity.Message;
+import com.ai_chatbot.repository.ConversationRepository;
+import com.ai_chatbot.repository.MessageRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class JpaConversationStoreTest {
+
+    private final ConversationRepository conversations = mock(ConversationRepository.class);
+    private final MessageRepository messages = mock(MessageRepository.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final HistorySummaryCache summaryCache = mock(HistorySummaryCache.class);
+    @SuppressWarnings("unchecked")
+    private final ObjectProvider<HistorySummaryCache> summaries = mock(ObjectProvider.class);
+    private final JpaConversationStore store =
+            new JpaConversationStore(conversations, messages, transactionTemplate, Schedulers.immediate(), summaries, 50);
+
+    private static Message message(long id, String role) {
+        Message m = new Message();
+        m.setId(id);
+        m.setRole(role);
+        m.setContent(role + id);
+        return m;
+    }
+
+    @Test
+    @DisplayName("should load the history with its own query and append only the new messages")
+    @SuppressWarnings("unchecked")
+    void loadsHistoryAndAppends() {
+        // arrange
+        Conversation stored = new Conversation();
+        stored.setId("c-1");
+        when(conversations.findById("c-1")).thenReturn(Optional.of(stored));
+        when(messages.findRecent("c-1", 0L, Limit.of(50))).thenReturn(List.of(message(2, "assistant"), message(1, "user")));
+        doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        List<Message> turn = List.of(message(3, "user"));
+
+        // act
+        Conversation conv = store.findOrCreate("c-1", "llama3").block();
+        store.appendMessages(conv, turn).block();
+
+        // assert
+        assertThat(conv.getMessages()).extracting(Message::getId).containsExactly(1L, 2L, 3L);
+        assertThat(conv.getModel()).isEqualTo("llama3");
+        verify(messages).append("c-1", turn);
+        verify(conversations).touch(eq("c-1"), eq("llama3"), any());
+        verify(conversations, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("should load only the newest messages after the summarized ones")
+    void loadsRecentHistoryAfterSummary() {
+        // arrange
+        Conversation stored = new Conversation();
+        stored.setId("c-2");
+        when(conversations.findById("c-2")).thenReturn(Optional.of(stored));
+        when(summaries.getIfAvailable()).thenReturn(summaryCache);
+        when(summaryCache.find("c-2")).thenReturn(Optional.of(new HistorySummary(40, "earlier turns")));
+        when(messages.findRecent("c-2", 40L, Limit.of(50))).thenReturn(List.of(message(42, "assistant"), message(41, "user")));
+
+        // act
+        Conversation conv = store.findOrCreate("c-2", null).block();
+
+        // assert
+        assertThat(conv.getMessages()).extracting(Message::getId).containsExactly(41L, 42L);
+        verify(messages).findRecent("c-2", 40L, Limit.of(50));
+    }
+}
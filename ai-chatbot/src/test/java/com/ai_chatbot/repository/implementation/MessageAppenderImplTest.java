@@ -0,0 +1,61 @@
+package com.ai_chatbot.repository.implementation;
+
+import com.ai_chatbot.entity.Message;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class MessageAppenderImplTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final MessageContentColumn contentColumn = mock(MessageContentColumn.class);
+    private final MessageAppenderImpl appender = new MessageAppenderImpl(jdbcTemplate, contentColumn);
+
+    private static Message message(String role, String content) {
+        Message m = new Message();
+        m.setRole(role);
+        m.setContent(content);
+        m.setCreatedAt(Instant.parse("2024-05-01T10:15:30Z"));
+        return m;
+    }
+
+    @Test
+    @DisplayName("should insert all messages in one statement with sequence ids ascending in list order")
+    void appendsWithPreassignedIds() throws Exception {
+        // arrange
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(2))).thenReturn(List.of(42L, 41L));
+        when(contentColumn.write()).thenReturn("?");
+        Message user = message("user", "hi");
+        Message assistant = message("assistant", null);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+
+        // act
+        appender.append("c-1", List.of(user, assistant));
+
+        // assert
+        ArgumentCaptor<PreparedStatementCreator> creator = ArgumentCaptor.forClass(PreparedStatementCreator.class);
+        verify(jdbcTemplate).update(creator.capture());
+        creator.getValue().createPreparedStatement(connection);
+        verify(connection).prepareStatement("INSERT INTO message (id, role, content, created_at, conversation_id) " +
+                "VALUES (?, ?, ?, ?, ?), (?, ?, ?, ?, ?)");
+        verify(statement).setLong(1, 41L);
+        verify(statement).setLong(6, 42L);
+        verify(statement).setString(8, "");
+        assertThat(user.getId()).isEqualTo(41L);
+        assertThat(assistant.getId()).isEqualTo(42L);
+    }
+}
@@ -0,0 +1,152 @@
+package com.ai_chatbot.repository.implementation;
+
+import com.ai_chatbot.aiclient.HistorySummary;
+import com.ai_chatbot.aiclient.HistorySummaryCache;
+import com.ai_chatbot.entity.Conversation;
+import com.ai_chatbot.entity.Message;
+import com.ai_chatbot.support.ScriptedR2dbc;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Statement;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static com.ai_chatbot.support.ScriptedR2dbc.bound;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class R2dbcConversationStoreTest {
+
+    private final ScriptedR2dbc r2dbc = new ScriptedR2dbc();
+    private final HistorySummaryCache summaryCache = mock(HistorySummaryCache.class);
+    @SuppressWarnings("unchecked")
+    private final ObjectProvider<HistorySummaryCache> summaries = mock(ObjectProvider.class);
+
+    private R2dbcConversationStore store(String contentType) {
+        r2dbc.rows("information_schema", List.of(Map.of("data_type", contentType)));
+        return new R2dbcConversationStore(r2dbc.client(), summaries, 50);
+    }
+
+    private static Conversation conversation(String id) {
+        Conversation conv = new Conversation();
+        conv.setId(id);
+        conv.setModel("llama3");
+        return conv;
+    }
+
+    private static Message message(String role, String content) {
+        Message m = new Message();
+        m.setRole(role);
+        m.setContent(content);
+        return m;
+    }
+
+    @Test
+    @DisplayName("should write large-object content and bump updated_at in one committed transaction")
+    void appendsLargeObjectsInOneTransaction() {
+        // arrange
+        R2dbcConversationStore store = store("oid");
+        r2dbc.rows("nextval", List.of(Map.of("id", 42L), Map.of("id", 41L)));
+        Conversation conv = conversation("c-1");
+        Message user = message("user", "hi");
+        Message assistant = message("assistant", null);
+
+        // act
+        store.appendMessages(conv, List.of(user, assistant)).block();
+
+        // assert
+        assertThat(r2dbc.sql("INSERT INTO message")).contains("lo_from_bytea(0, convert_to($3, 'UTF8'))");
+        Statement insert = r2dbc.statement("INSERT INTO message");
+        verify(insert).bind(0, 41L);
+        verify(insert).bind(2, "hi");
+        verify(insert).bind(0, 42L);
+        verify(insert).bind(2, "");
+        verify(insert).add();
+        assertThat(List.of(user.getId(), assistant.getId())).containsExactly(41L, 42L);
+        assertThat(conv.getMessages()).extracting(Message::getRole).containsExactly("user", "assistant");
+        verify(r2dbc.statement("UPDATE conversation")).bind(0, "c-1");
+
+        Connection conn = r2dbc.connection();
+        InOrder order = inOrder(conn);
+        order.verify(conn).beginTransaction();
+        order.verify(conn).createStatement(contains("nextval"));
+        order.verify(conn).createStatement(contains("INSERT INTO message"));
+        order.verify(conn).createStatement(contains("UPDATE conversation"));
+        order.verify(conn).commitTransaction();
+        verify(conn, never()).rollbackTransaction();
+    }
+
+    @Test
+    @DisplayName("should bind content as a plain parameter when the column is text")
+    void appendsPlainContent() {
+        // arrange
+        R2dbcConversationStore store = store("text");
+        r2dbc.rows("nextval", List.of(Map.of("id", 7L)));
+
+        // act
+        store.appendMessages(conversation("c-1"), List.of(message("user", "hi"))).block();
+
+        // assert
+        assertThat(r2dbc.sql("INSERT INTO message"))
+                .contains("VALUES ($1, $2, $3, $4, $5)")
+                .doesNotContain("lo_from_bytea");
+        verify(r2dbc.statement("INSERT INTO message")).bind(2, "hi");
+    }
+
+    @Test
+    @DisplayName("should roll back the inserted messages when bumping updated_at fails")
+    void rollsBackOnFailure() {
+        // arrange
+        R2dbcConversationStore store = store("oid");
+        r2dbc.rows("nextval", List.of(Map.of("id", 7L)))
+                .fails("UPDATE conversation", new IllegalStateException("connection reset"));
+        Conversation conv = conversation("c-1");
+        Instant updatedAt = conv.getUpdatedAt();
+
+        // act / assert
+        assertThatThrownBy(() -> store.appendMessages(conv, List.of(message("user", "hi"))).block())
+                .hasMessageContaining("connection reset");
+        verify(r2dbc.connection()).rollbackTransaction();
+        verify(r2dbc.connection(), never()).commitTransaction();
+        assertThat(conv.getMessages()).isEmpty();
+        assertThat(conv.getUpdatedAt()).isEqualTo(updatedAt);
+    }
+
+    @Test
+    @DisplayName("should read only the newest messages after the summary through lo_get, oldest first")
+    void loadsRecentHistoryThroughLargeObjects() {
+        // arrange
+        R2dbcConversationStore store = store("oid");
+        Instant now = Instant.now();
+        r2dbc.rows("FROM conversation", List.of(Map.of("id", "c-2", "model", "llama3",
+                        "created_at", now, "updated_at", now)))
+                .rows("FROM message", List.of(
+                        Map.of("id", 42L, "role", "assistant", "content", "a", "created_at", now),
+                        Map.of("id", 41L, "role", "user", "content", "q", "created_at", now)));
+        when(summaries.getIfAvailable()).thenReturn(summaryCache);
+        when(summaryCache.find("c-2")).thenReturn(Optional.of(new HistorySummary(40, "earlier turns")));
+
+        // act
+        Conversation conv = store.findOrCreate("c-2", null).block();
+
+        // assert
+        assertThat(r2dbc.sql("FROM message"))
+                .contains("convert_from(lo_get(content), 'UTF8') AS content")
+                .contains("id > $2 ORDER BY id DESC LIMIT $3");
+        Statement select = r2dbc.statement("FROM message");
+        verify(select).bind(eq(0), bound("c-2"));
+        verify(select).bind(eq(1), bound(40L));
+        verify(select).bind(eq(2), bound(50));
+        assertThat(conv.getMessages()).extracting(Message::getId).containsExactly(41L, 42L);
+        assertThat(conv.getModel()).isEqualTo("llama3");
+    }
+}
@@ -0,0 +1,61 @@
+package com.ai_chatbot.service;
+
+import com.ai_chatbot.entity.ConversationSummary;
+import com.ai_chatbot.entity.CursorPage;
+import com.ai_chatbot.repository.ConversationRepository;
+import com.ai_chatbot.repository.MessageRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class ConversationQueryServiceTest {
+
+    private final ConversationRepository conversations = mock(ConversationRepository.class);
+    private final ConversationQueryService service =
+            new ConversationQueryService(conversations, mock(MessageRepository.class));
+
+    @Test
+    @DisplayName("should hand back a cursor that resumes after the last summary of a full page")
+    void conversationCursorRoundTrip() {
+        // arrange
+        Instant updated = Instant.parse("2024-05-01T10:15:30.123456Z");
+        ConversationSummary last = new ConversationSummary("c-2", "m", updated, updated, 3, "hi");
+        when(conversations.findSummaries(any(), any(), anyInt()))
+                .thenReturn(List.of(new ConversationSummary("c-1", "m", updated, updated, 1, "a"), last));
+
+        // act
+        CursorPage<ConversationSummary> first = service.listConversations(null, 2);
+        service.listConversations(first.nextCursor(), 2);
+
+        // assert
+        assertThat(first.nextCursor()).isNotNull();
+        verify(conversations).findSummaries(null, null, 2);
+        verify(conversations).findSummaries(updated, "c-2", 2);
+    }
+
+    @Test
+    @DisplayName("should end pagination on a short page and reject malformed cursors")
+    void lastPageAndInvalidCursor() {
+        // arrange
+        when(conversations.findSummaries(any(), any(), anyInt())).thenReturn(List.of());
+
+        // act
+        CursorPage<ConversationSummary> page = service.listConversations(null, 10_000);
+
+        // assert
+        assertThat(page.nextCursor()).isNull();
+        verify(conversations).findSummaries(null, null, ConversationQueryService.MAX_LIMIT);
+        assertThatThrownBy(() -> service.listConversations("not a cursor", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.listMessages("c-1", ConversationQueryService.encode("x"), 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
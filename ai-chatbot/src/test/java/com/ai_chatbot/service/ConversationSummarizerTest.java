@@ -0,0 +1,58 @@
+package com.ai_chatbot.service;
+
+import com.ai_chatbot.aiclient.AIClient;
+import com.ai_chatbot.aiclient.HistorySummary;
+import com.ai_chatbot.entity.Message;
+import com.ai_chatbot.repository.ConversationDigestRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ConversationSummarizerTest {
+
+    // threshold 10 tokens, keep 2 recent messages, at most 6 tokens per refresh
+    private final ConversationSummarizer summarizer = new ConversationSummarizer(mock(AIClient.class),
+            mock(ConversationDigestRepository.class), Schedulers.immediate(), new SimpleMeterRegistry(),
+            true, 10, 2, 6, "", 100);
+
+    private static List<Message> history(int count) {
+        List<Message> messages = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            Message m = new Message();
+            m.setId((long) i);
+            m.setRole(i % 2 == 1 ? "user" : "assistant");
+            m.setContent("one two six"); // 3 tokens
+            messages.add(m);
+        }
+        return messages;
+    }
+
+    @Test
+    @DisplayName("should wait until the uncovered history exceeds the threshold")
+    void belowThreshold() {
+        // act
+        List<Message> pending = summarizer.pending(history(3), null);
+
+        // assert
+        assertThat(pending).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should fold only the oldest uncovered messages, within the input budget")
+    void incrementalBatch() {
+        // act
+        List<Message> first = summarizer.pending(history(8), null);
+        List<Message> next = summarizer.pending(history(8), new HistorySummary(2, "s"));
+
+        // assert
+        assertThat(first).extracting(Message::getId).containsExactly(1L, 2L);
+        assertThat(next).extracting(Message::getId).containsExactly(3L, 4L);
+    }
+}
@@ -0,0 +1,79 @@
+package com.ai_chatbot.service;
+
+import com.ai_chatbot.util.TokenEstimator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DocumentChunkerTest {
+
+    private static List<String> chunk(String text, int maxTokens, int overlapTokens) {
+        List<String> out = new ArrayList<>();
+        Iterator<String> it = new DocumentChunker(maxTokens, overlapTokens).chunks(new StringReader(text));
+        it.forEachRemaining(out::add);
+        return out;
+    }
+
+    @Test
+    @DisplayName("should keep every chunk within the token budget")
+    void boundedChunks() {
+        // arrange: 1000 one-token words
+        String text = IntStream.range(0, 1000).mapToObj(i -> "w" + (i % 10)).collect(Collectors.joining(" "));
+
+        // act
+        List<String> chunks = chunk(text, 100, 10);
+
+        // assert
+        assertThat(chunks).isNotEmpty();
+        assertThat(chunks).allSatisfy(c -> assertThat(TokenEstimator.estimate(c)).isLessThanOrEqualTo(100));
+    }
+
+    @Test
+    @DisplayName("should split a word longer than the token budget")
+    void longWord() {
+        // arrange
+        String text = "intro words here " + "-".repeat(1000) + " tail words more";
+
+        // act
+        List<String> chunks = chunk(text, 100, 10);
+
+        // assert
+        assertThat(chunks).allSatisfy(c -> assertThat(TokenEstimator.estimate(c)).isLessThanOrEqualTo(100));
+        assertThat(chunks.get(0)).startsWith("intro words here");
+        assertThat(chunks.get(chunks.size() - 1)).endsWith("tail words more");
+        assertThat(String.join("", chunks).chars().filter(c -> c == '-').count()).isGreaterThanOrEqualTo(1000);
+    }
+
+    @Test
+    @DisplayName("should repeat the tail of the previous chunk at the start of the next")
+    void overlap() {
+        // arrange
+        String text = IntStream.range(0, 50).mapToObj(i -> "t" + i).collect(Collectors.joining(" "));
+
+        // act
+        List<String> chunks = chunk(text, 20, 5);
+
+        // assert
+        for (int i = 1; i < chunks.size(); i++) {
+            String[] previous = chunks.get(i - 1).split(" ");
+            String[] current = chunks.get(i).split(" ");
+            assertThat(current[0]).isEqualTo(previous[previous.length - 5]);
+        }
+        assertThat(chunks.get(chunks.size() - 1)).endsWith("t49");
+    }
+
+    @Test
+    @DisplayName("should return the whole text as one chunk when it fits")
+    void smallInput() {
+        assertThat(chunk("hello world", 100, 10)).containsExactly("hello world");
+        assertThat(chunk("   ", 100, 10)).isEmpty();
+    }
+}
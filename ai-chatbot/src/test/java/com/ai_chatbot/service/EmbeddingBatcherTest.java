@@ -0,0 +1,80 @@
+package com.ai_chatbot.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EmbeddingBatcherTest {
+
+    private final List<List<String>> calls = new CopyOnWriteArrayList<>();
+
+    // one-dimensional "embedding": the text's length
+    private Mono<List<float[]>> embed(List<String> texts) {
+        calls.add(texts);
+        return Mono.just(texts.stream().map(t -> new float[]{t.length()}).toList());
+    }
+
+    @Test
+    @DisplayName("should send a full batch at once and hand each caller its own vector")
+    void flushesOnSize() {
+        // arrange
+        EmbeddingBatcher batcher = new EmbeddingBatcher(this::embed, 3, Duration.ofMinutes(1), 100, 1,
+                new SimpleMeterRegistry());
+
+        // act
+        List<float[]> vectors = Flux.just("a", "bb", "ccc", "dddd", "eeeee", "ffffff")
+                .flatMapSequential(batcher::submit)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        // assert
+        assertThat(calls).containsExactly(List.of("a", "bb", "ccc"), List.of("dddd", "eeeee", "ffffff"));
+        assertThat(vectors).extracting(v -> v[0]).containsExactly(1f, 2f, 3f, 4f, 5f, 6f);
+        batcher.shutdown();
+    }
+
+    @Test
+    @DisplayName("should send a partial batch when the window closes")
+    void flushesOnTime() {
+        // arrange
+        EmbeddingBatcher batcher = new EmbeddingBatcher(this::embed, 10, Duration.ofMillis(50), 100, 1,
+                new SimpleMeterRegistry());
+
+        // act
+        List<float[]> vectors = Flux.just("a", "bb")
+                .flatMapSequential(batcher::submit)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        // assert
+        assertThat(calls).containsExactly(List.of("a", "bb"));
+        assertThat(vectors).extracting(v -> v[0]).containsExactly(1f, 2f);
+        batcher.shutdown();
+    }
+
+    @Test
+    @DisplayName("should fail every caller of a batch whose response has the wrong number of vectors")
+    void failsWholeBatchOnMismatch() {
+        // arrange
+        EmbeddingBatcher batcher = new EmbeddingBatcher(texts -> Mono.just(List.of(new float[]{1f})), 2,
+                Duration.ofMinutes(1), 100, 1, new SimpleMeterRegistry());
+        Mono<float[]> first = batcher.submit("a").cache();
+        first.subscribe(v -> { }, e -> { });
+
+        // act / assert
+        assertThatThrownBy(() -> batcher.submit("b").block(Duration.ofSeconds(5)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> first.block(Duration.ofSeconds(5)))
+                .isInstanceOf(IllegalStateException.class);
+        batcher.shutdown();
+    }
+}
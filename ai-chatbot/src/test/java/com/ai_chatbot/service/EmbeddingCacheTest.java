@@ -0,0 +1,92 @@
+package com.ai_chatbot.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmbeddingCacheTest {
+
+    private static final Clock FIXED = Clock.fixed(Instant.parse("2024-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+    @Test
+    @DisplayName("should serve whitespace-variant prompts from the cache")
+    void hitAfterMiss() {
+        // arrange
+        EmbeddingCache cache = new EmbeddingCache(true, 1 << 20, Duration.ofMinutes(5), FIXED);
+        AtomicInteger calls = new AtomicInteger();
+
+        // act
+        float[] first = cache.get("m", "hello  world", () -> {
+            calls.incrementAndGet();
+            return Mono.just(new float[]{1f, 2f});
+        }).block();
+        float[] second = cache.get("m", " hello world\n", () -> {
+            calls.incrementAndGet();
+            return Mono.just(new float[]{9f, 9f});
+        }).block();
+
+        // assert
+        assertThat(calls).hasValue(1);
+        assertThat(second).containsExactly(first);
+        assertThat(cache.stats().hits()).isEqualTo(1);
+        assertThat(cache.stats().misses()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should share one in-flight call between concurrent identical requests")
+    void singleFlight() {
+        // arrange
+        EmbeddingCache cache = new EmbeddingCache(true, 1 << 20, Duration.ofMinutes(5), FIXED);
+        Sinks.One<float[]> upstream = Sinks.one();
+        AtomicInteger calls = new AtomicInteger();
+
+        // act
+        Mono<float[]> a = cache.get("m", "same", () -> {
+            calls.incrementAndGet();
+            return upstream.asMono();
+        });
+        Mono<float[]> b = cache.get("m", "same", () -> {
+            calls.incrementAndGet();
+            return upstream.asMono();
+        });
+        a.subscribe();
+        b.subscribe();
+        upstream.tryEmitValue(new float[]{3f});
+
+        // assert
+        assertThat(calls).hasValue(1);
+        assertThat(b.block()).containsExactly(3f);
+    }
+
+    @Test
+    @DisplayName("should evict least recently used entries once the byte budget is exceeded")
+    void evictsBySize() {
+        // arrange: budget fits roughly two 64-dim entries
+        EmbeddingCache cache = new EmbeddingCache(true, 2 * (96 + 2 * 3 + 4 * 64), Duration.ofMinutes(5), FIXED);
+
+        // act
+        cache.get("m", "a", () -> Mono.just(new float[64])).block();
+        cache.get("m", "b", () -> Mono.just(new float[64])).block();
+        cache.get("m", "a", () -> Mono.just(new float[64])).block();
+        cache.get("m", "c", () -> Mono.just(new float[64])).block();
+
+        // assert: "b" was the least recently used entry
+        assertThat(cache.stats().size()).isEqualTo(2);
+        assertThat(cache.stats().evictions()).isEqualTo(1);
+        AtomicInteger reloads = new AtomicInteger();
+        cache.get("m", "b", () -> {
+            reloads.incrementAndGet();
+            return Mono.just(new float[64]);
+        }).block();
+        assertThat(reloads).hasValue(1);
+    }
+}
@@ -0,0 +1,96 @@
+package com.ai_chatbot.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EmbeddingResponseDecoderTest {
+
+    private final EmbeddingResponseDecoder decoder = new EmbeddingResponseDecoder();
+
+    private static InputStream json(String s) {
+        return new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("should decode the Ollama /api/embeddings shape")
+    void ollamaSingle() throws IOException {
+        float[] v = decoder.decodeSingle(json("{\"model\":\"m\",\"embedding\":[0.5,-1,2.25e-1]}"));
+
+        assertThat(v).containsExactly(0.5f, -1f, 0.225f);
+    }
+
+    @Test
+    @DisplayName("should decode the Ollama /api/embed batch shape")
+    void ollamaBatch() throws IOException {
+        List<float[]> vs = decoder.decodeAll(json("{\"embeddings\":[[1,2],[3,4]],\"total_duration\":12}"));
+
+        assertThat(vs).hasSize(2);
+        assertThat(vs.get(1)).containsExactly(3f, 4f);
+    }
+
+    @Test
+    @DisplayName("should decode the OpenAI data[].embedding shape honouring index order")
+    void openAi() throws IOException {
+        String body = "{\"object\":\"list\",\"data\":["
+                + "{\"object\":\"embedding\",\"index\":1,\"embedding\":[2]},"
+                + "{\"object\":\"embedding\",\"index\":0,\"embedding\":[1]}],"
+                + "\"usage\":{\"prompt_tokens\":3}}";
+
+        List<float[]> vs = decoder.decodeAll(json(body));
+
+        assertThat(vs.get(0)).containsExactly(1f);
+        assertThat(vs.get(1)).containsExactly(2f);
+    }
+
+    @Test
+    @DisplayName("should fail when the response carries no vector")
+    void missingVector() {
+        assertThatThrownBy(() -> decoder.decodeSingle(json("{\"error\":\"model not found\"}")))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    @DisplayName("should reject OpenAI indices with gaps or repeats")
+    void sparseIndices() {
+        String gap = "{\"data\":[{\"index\":0,\"embedding\":[1]},{\"index\":2,\"embedding\":[2]}]}";
+        String repeat = "{\"data\":[{\"index\":0,\"embedding\":[1]},{\"index\":0,\"embedding\":[2]}]}";
+
+        assertThatThrownBy(() -> decoder.decodeAll(json(gap))).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> decoder.decodeAll(json(repeat))).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    @DisplayName("should parse numbers exactly like Float.parseFloat")
+    void parseFloatMatchesJdk() throws IOException {
+        // arrange
+        Random random = new Random(7);
+        String[] texts = new String[10_000];
+        for (int n = 0; n < texts.length; n++) {
+            texts[n] = switch (n % 4) {
+                case 0 -> Double.toString(random.nextGaussian() * 0.05);
+                case 1 -> Double.toString(random.nextGaussian() * 1e-7);
+                case 2 -> Integer.toString(random.nextInt());
+                default -> String.format(Locale.ROOT, "%.17g", random.nextGaussian());
+            };
+        }
+
+        // act
+        float[] v = decoder.decodeSingle(json("{\"embedding\":[" + String.join(",", texts) + "]}"));
+
+        // assert
+        for (int n = 0; n < texts.length; n++) {
+            assertThat(v[n]).as(texts[n]).isEqualTo(Float.parseFloat(texts[n]));
+        }
+    }
+}
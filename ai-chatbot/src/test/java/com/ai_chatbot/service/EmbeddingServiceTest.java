@@ -0,0 +1,74 @@
+package com.ai_chatbot.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class EmbeddingServiceTest {
+
+    /**
+     * Answers like Ollama: {@code /api/embeddings} with the raw vector, {@code /api/embed} with the same vector
+     * L2-normalized.
+     */
+    private final WebClient ollama = WebClient.builder()
+            .exchangeFunction(request -> {
+                String body = request.url().getPath().equals("/api/embed")
+                        ? "{\"model\":\"m\",\"embeddings\":[[0.6,0.8]]}"
+                        : "{\"embedding\":[3.0,4.0]}";
+                return Mono.just(ClientResponse.create(HttpStatus.OK)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .body(body)
+                        .build());
+            })
+            .build();
+
+    private EmbeddingService service(boolean batching) {
+        EmbeddingService service = new EmbeddingService();
+        ReflectionTestUtils.setField(service, "webClient", ollama);
+        ReflectionTestUtils.setField(service, "embeddingModel", "m");
+        ReflectionTestUtils.setField(service, "embeddingCache",
+                new EmbeddingCache(false, 0, Duration.ofMinutes(1), Clock.systemUTC()));
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "batchingEnabled", batching);
+        ReflectionTestUtils.setField(service, "maxBatchSize", 32);
+        ReflectionTestUtils.setField(service, "batchWindow", Duration.ofMillis(1));
+        ReflectionTestUtils.setField(service, "maxPending", 16);
+        ReflectionTestUtils.setField(service, "batchConcurrency", 1);
+        service.startBatcher();
+        return service;
+    }
+
+    @Test
+    @DisplayName("should return the same unit vector from the single and the batched endpoint")
+    void singleAndBatchedAgree() {
+        // arrange
+        EmbeddingService single = service(false);
+        EmbeddingService batched = service(true);
+
+        // act
+        float[] fromSingle = single.embedText("same text").block();
+        float[] fromBatch = batched.embedText("same text").block();
+        List<float[]> fromBulk = single.embedTexts(List.of("same text")).block();
+        batched.stopBatcher();
+
+        // assert
+        assertThat(fromSingle).containsExactly(new float[]{0.6f, 0.8f}, within(1e-6f));
+        assertThat(fromBatch).containsExactly(fromSingle, within(1e-6f));
+        assertThat(fromBulk).singleElement()
+                .satisfies(v -> assertThat(v).containsExactly(fromSingle, within(1e-6f)));
+    }
+}
@@ -0,0 +1,75 @@
+package com.ai_chatbot.service;
+
+import com.ai_chatbot.vectorstore.DocumentRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PgBinaryCopyTest {
+
+    private static String text(DataInputStream in) throws Exception {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("should encode rows in the binary COPY format, writing null content as empty text")
+    void encodesRows() throws Exception {
+        // arrange
+        UUID id = new UUID(1, 2);
+        DocumentRecord row = new DocumentRecord(id, "tïtle", null, "{\"a\":1}", new float[]{1.5f, -2f});
+
+        // act
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(PgBinaryCopy.encode(List.of(row))));
+
+        // assert
+        byte[] signature = new byte[11];
+        in.readFully(signature);
+        assertThat(signature).containsExactly('P', 'G', 'C', 'O', 'P', 'Y', '\n', 0xff, '\r', '\n', 0);
+        assertThat(in.readInt()).isZero();
+        assertThat(in.readInt()).isZero();
+        assertThat(in.readShort()).isEqualTo((short) 5);
+        assertThat(in.readInt()).isEqualTo(16);
+        assertThat(new UUID(in.readLong(), in.readLong())).isEqualTo(id);
+        assertThat(text(in)).isEqualTo("tïtle");
+        assertThat(text(in)).isEmpty();
+        assertThat(in.readInt()).isEqualTo(8);
+        assertThat(in.readByte()).isEqualTo((byte) 1);
+        byte[] json = new byte[7];
+        in.readFully(json);
+        assertThat(new String(json, StandardCharsets.UTF_8)).isEqualTo("{\"a\":1}");
+        assertThat(in.readInt()).isEqualTo(12);
+        assertThat(in.readShort()).isEqualTo((short) 2);
+        assertThat(in.readShort()).isZero();
+        assertThat(in.readFloat()).isEqualTo(1.5f);
+        assertThat(in.readFloat()).isEqualTo(-2f);
+        assertThat(in.readShort()).isEqualTo((short) -1);
+        assertThat(in.read()).isEqualTo(-1);
+    }
+
+    @Test
+    @DisplayName("should keep the last record of a repeated id before upserting")
+    void lastRecordPerId() {
+        // arrange
+        UUID a = new UUID(0, 1);
+        UUID b = new UUID(0, 2);
+        List<DocumentRecord> batch = List.of(
+                new DocumentRecord(a, "a1", "", "{}", new float[]{1}),
+                new DocumentRecord(b, "b", "", "{}", new float[]{1}),
+                new DocumentRecord(a, "a2", "", "{}", new float[]{1}));
+
+        // act
+        List<DocumentRecord> unique = VectorStoreService.lastPerId(batch);
+
+        // assert
+        assertThat(unique).extracting(DocumentRecord::title).containsExactly("a2", "b");
+    }
+}
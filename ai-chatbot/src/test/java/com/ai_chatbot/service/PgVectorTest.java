@@ -0,0 +1,111 @@
+package com.ai_chatbot.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PgVectorTest {
+
+    @Test
+    @DisplayName("should write a 16-bit dimension, 16 unused bits and big-endian float4 elements")
+    void binaryLayout() throws Exception {
+        // arrange
+        PgVector vector = new PgVector(new float[]{1.5f, -0.0f, Float.MIN_VALUE});
+        byte[] bytes = new byte[2 + vector.lengthInBytes()];
+
+        // act
+        vector.toBytes(bytes, 2);
+
+        // assert
+        assertThat(vector.lengthInBytes()).isEqualTo(16);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 2, 16));
+        assertThat(in.readUnsignedShort()).isEqualTo(3);
+        assertThat(in.readUnsignedShort()).isZero();
+        assertThat(in.readInt()).isEqualTo(Float.floatToRawIntBits(1.5f));
+        assertThat(in.readInt()).isEqualTo(Float.floatToRawIntBits(-0.0f));
+        assertThat(in.readInt()).isEqualTo(Float.floatToRawIntBits(Float.MIN_VALUE));
+    }
+
+    @Test
+    @DisplayName("should read back the binary form bit for bit, at an offset")
+    void binaryRoundTrip() throws Exception {
+        // arrange
+        float[] original = {0.1f, -2.5e-8f, Float.MAX_VALUE, Float.NaN};
+        byte[] encoded = PgVector.toBinary(original);
+        byte[] framed = new byte[3 + encoded.length];
+        System.arraycopy(encoded, 0, framed, 3, encoded.length);
+        PgVector decoded = new PgVector();
+
+        // act
+        decoded.setByteValue(framed, 3);
+
+        // assert
+        assertThat(decoded.toArray()).containsExactly(original);
+        assertThat(decoded.getValue()).isEqualTo(PgVector.toText(original));
+    }
+
+    @Test
+    @DisplayName("should read back the text form")
+    void textRoundTrip() throws Exception {
+        // arrange
+        float[] original = {0.1f, -2.5e-8f, 3f};
+        PgVector decoded = new PgVector();
+
+        // act
+        decoded.setValue(PgVector.toText(original));
+
+        // assert
+        assertThat(decoded.toArray()).containsExactly(original);
+        assertThat(PgVector.parseText(" [ 1 , 2.5 ] ")).containsExactly(1f, 2.5f);
+        assertThat(PgVector.parseText("[]")).isEmpty();
+        assertThat(PgVector.toBinary(new float[0])).containsExactly(0, 0, 0, 0);
+    }
+
+    @Test
+    @DisplayName("should accept the largest dimension the 16-bit header can carry and reject one more")
+    void dimensionBounds() throws Exception {
+        // arrange
+        float[] largest = new float[0xffff];
+        Arrays.fill(largest, 1f);
+        PgVector decoded = new PgVector();
+
+        // act
+        decoded.setByteValue(PgVector.toBinary(largest), 0);
+
+        // assert
+        assertThat(decoded.toArray()).hasSize(0xffff);
+        assertThatThrownBy(() -> PgVector.toBinary(new float[0x10000]))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("65536");
+    }
+
+    @Test
+    @DisplayName("should reject a malformed text literal with an SQLException")
+    void rejectsMalformedText() {
+        for (String text : new String[]{"", "[", "1,2", "[1,2", "[1,,2]", "[1,abc]", "[1,2,]"}) {
+            assertThatThrownBy(() -> new PgVector().setValue(text)).as(text).isInstanceOf(SQLException.class);
+        }
+    }
+
+    @Test
+    @DisplayName("should reject a binary value shorter than its header or its declared dimension")
+    void rejectsTruncatedBinary() {
+        // arrange
+        byte[] encoded = PgVector.toBinary(new float[]{1f, 2f});
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length - 1);
+
+        // act / assert
+        assertThatThrownBy(() -> new PgVector().setByteValue(new byte[]{0, 1}, 0))
+                .isInstanceOf(SQLException.class);
+        assertThatThrownBy(() -> new PgVector().setByteValue(truncated, 0))
+                .isInstanceOf(SQLException.class)
+                .hasMessageContaining("2 dimensions");
+    }
+}
@@ -0,0 +1,141 @@
+package com.ai_chatbot.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Hooks;
+import reactor.core.publisher.Sinks;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResumableStreamsTest {
+
+    private static final Clock FIXED = Clock.fixed(Instant.parse("2024-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+    @Test
+    @DisplayName("should resume after the last seen frame without restarting the generation")
+    void resumeAfterReconnect() {
+        // arrange
+        ResumableStreams streams = new ResumableStreams(true, 16, Duration.ofSeconds(60), Duration.ofSeconds(10), 100, FIXED);
+        Sinks.Many<String> generation = Sinks.many().unicast().onBackpressureBuffer();
+        List<ResumableStreams.Frame> first = new ArrayList<>();
+        Disposable connection = streams.start("c1", generation.asFlux()).subscribe(first::add);
+        generation.tryEmitNext("Hello");
+        generation.tryEmitNext(" there");
+        connection.dispose();
+        generation.tryEmitNext(", general");
+
+        // act
+        List<String> resumed = new ArrayList<>();
+        AtomicBoolean completed = new AtomicBoolean();
+        streams.resume("c1", first.get(0).id()).orElseThrow()
+                .subscribe(f -> resumed.add(f.data()), e -> { }, () -> completed.set(true));
+        generation.tryEmitNext(" Kenobi");
+        generation.tryEmitComplete();
+
+        // assert
+        assertThat(first).extracting(ResumableStreams.Frame::data).containsExactly("Hello", " there");
+        assertThat(first.get(1).id()).endsWith(".2");
+        assertThat(resumed).containsExactly(" there", ", general", " Kenobi");
+        assertThat(completed).isTrue();
+        assertThat(streams.resume("c2", first.get(0).id())).isEmpty();
+        assertThat(streams.resume("c1", "unknown.1")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should keep signalling every attached client when one detaches while being signalled")
+    void clientsDetachingDuringSignals() {
+        // arrange
+        ResumableStreams streams = new ResumableStreams(true, 16, Duration.ofSeconds(60), Duration.ofSeconds(10), 100, FIXED);
+        Sinks.Many<String> generation = Sinks.many().unicast().onBackpressureBuffer();
+        List<Throwable> dropped = new CopyOnWriteArrayList<>();
+        Hooks.onErrorDropped(dropped::add);
+        try {
+            List<String> first = new ArrayList<>();
+            streams.start("c1", generation.asFlux()).take(2).subscribe(f -> first.add(f.id()));
+            generation.tryEmitNext("Hello");
+            List<String> second = new ArrayList<>();
+            List<String> third = new ArrayList<>();
+            AtomicInteger completed = new AtomicInteger();
+            streams.resume("c1", first.get(0)).orElseThrow()
+                    .subscribe(f -> second.add(f.data()), dropped::add, completed::incrementAndGet);
+            streams.resume("c1", first.get(0)).orElseThrow()
+                    .subscribe(f -> third.add(f.data()), dropped::add, completed::incrementAndGet);
+
+            // act: the first client cancels inside the second frame, the others detach on completion
+            generation.tryEmitNext(" there");
+            generation.tryEmitNext(", general");
+            generation.tryEmitComplete();
+
+            // assert
+            assertThat(dropped).isEmpty();
+            assertThat(first).hasSize(2);
+            assertThat(second).containsExactly(" there", ", general");
+            assertThat(third).containsExactly(" there", ", general");
+            assertThat(completed).hasValue(2);
+        } finally {
+            Hooks.resetOnErrorDropped();
+        }
+    }
+
+    @Test
+    @DisplayName("should cancel a generation nobody came back for and count its tokens as wasted")
+    void abandonedGenerationExpires() {
+        // arrange
+        MutableClock clock = new MutableClock();
+        ResumableStreams streams = new ResumableStreams(true, 16, Duration.ofSeconds(60), Duration.ofSeconds(10), 100, clock);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Sinks.Many<String> generation = Sinks.many().unicast().onBackpressureBuffer();
+        Disposable connection = streams.start("c1", generation.asFlux().doOnCancel(() -> cancelled.set(true))).subscribe();
+        generation.tryEmitNext("read by the client");
+        connection.dispose();
+        generation.tryEmitNext("never read");
+
+        // act
+        clock.advance(Duration.ofSeconds(5));
+        streams.sweep();
+        boolean cancelledWithinGrace = cancelled.get();
+        clock.advance(Duration.ofSeconds(6));
+        streams.sweep();
+
+        // assert
+        assertThat(cancelledWithinGrace).isFalse();
+        assertThat(cancelled).isTrue();
+        assertThat(streams.size()).isZero();
+        assertThat(streams.tokens()).containsExactly(5L, 3L);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration d) {
+            now = now.plus(d);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
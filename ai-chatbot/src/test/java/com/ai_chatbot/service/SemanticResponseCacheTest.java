@@ -0,0 +1,61 @@
+package com.ai_chatbot.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SemanticResponseCacheTest {
+
+    private static final Clock FIXED = Clock.fixed(Instant.parse("2024-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+    private final SemanticResponseCache cache = new SemanticResponseCache(true, 0.95, 2, Duration.ofHours(1), 8, FIXED);
+
+    @Test
+    @DisplayName("should answer a near-identical prompt in the same scope from the cache")
+    void similarPromptHits() {
+        // arrange
+        AtomicInteger calls = new AtomicInteger();
+        cache.get("m", "docs", new float[]{1f, 0f, 0f}, () -> {
+            calls.incrementAndGet();
+            return Mono.just("first");
+        }).block();
+
+        // act
+        String similar = cache.get("m", "docs", new float[]{0.99f, 0.05f, 0f}, () -> Mono.just("second")).block();
+        String otherScope = cache.get("m", "other docs", new float[]{1f, 0f, 0f}, () -> Mono.just("third")).block();
+        String dissimilar = cache.get("m", "docs", new float[]{0f, 1f, 0f}, () -> Mono.just("fourth")).block();
+
+        // assert
+        assertThat(calls).hasValue(1);
+        assertThat(similar).isEqualTo("first");
+        assertThat(otherScope).isEqualTo("third");
+        assertThat(dissimilar).isEqualTo("fourth");
+        assertThat(cache.stats().hits()).isEqualTo(1);
+        assertThat(cache.stats().size()).isEqualTo(2);
+        assertThat(cache.stats().evictions()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should cache a completed stream and replay it in word-aligned chunks")
+    void streamReplay() {
+        // arrange
+        cache.stream("m", "", new float[]{1f, 1f}, () -> Flux.just("Hello ", "there, ", "general Kenobi")).blockLast();
+
+        // act
+        var replayed = cache.stream("m", "", new float[]{1f, 1f}, () -> Flux.error(new AssertionError("not cached")))
+                .collectList().block();
+
+        // assert
+        assertThat(String.join("", replayed)).isEqualTo("Hello there, general Kenobi");
+        assertThat(replayed).containsExactly("Hello there, ", "general ", "Kenobi");
+    }
+}
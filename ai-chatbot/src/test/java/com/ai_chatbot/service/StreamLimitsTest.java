@@ -0,0 +1,32 @@
+package com.ai_chatbot.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamLimitsTest {
+
+    @Test
+    @DisplayName("should cut the stream at the token limit and cancel the generation")
+    void tokenLimit() {
+        // arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        StreamLimits limits = new StreamLimits(3, Duration.ofMinutes(1), registry);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Flux<String> tokens = Flux.just("one ", "two ", "six seven", "never").doOnCancel(() -> cancelled.set(true));
+
+        // act
+        String answer = String.join("", limits.apply(tokens).collectList().block());
+
+        // assert
+        assertThat(answer).isEqualTo("one two six ");
+        assertThat(cancelled).isTrue();
+        assertThat(registry.get("ai.stream.truncated").tag("reason", "tokens").counter().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,135 @@
+package com.ai_chatbot.support;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Parameter;
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Statement;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * A PostgreSQL {@link DatabaseClient} over one mocked {@link Connection}: statements answer with the rows
+ * scripted for the first SQL fragment they contain, and every created statement is kept for verification.
+ */
+public class ScriptedR2dbc {
+
+    private final Connection connection = mock(Connection.class);
+    private final Map<String, Object> scripts = new LinkedHashMap<>();
+    private final List<String> sqls = new ArrayList<>();
+    private final List<Statement> statements = new ArrayList<>();
+    private final DatabaseClient client;
+
+    public ScriptedR2dbc() {
+        ConnectionFactory factory = mock(ConnectionFactory.class);
+        when(factory.getMetadata()).thenReturn(() -> "PostgreSQL");
+        doReturn(Mono.just(connection)).when(factory).create();
+        doReturn(Mono.empty()).when(connection).close();
+        doReturn(Mono.empty()).when(connection).beginTransaction();
+        doReturn(Mono.empty()).when(connection).commitTransaction();
+        doReturn(Mono.empty()).when(connection).rollbackTransaction();
+        when(connection.createStatement(anyString())).thenAnswer(inv -> create(inv.getArgument(0)));
+        this.client = DatabaseClient.create(factory);
+    }
+
+    public DatabaseClient client() {
+        return client;
+    }
+
+    public Connection connection() {
+        return connection;
+    }
+
+    /** Statements containing {@code sqlFragment} return these rows (column name to value). */
+    public ScriptedR2dbc rows(String sqlFragment, List<Map<String, Object>> rows) {
+        scripts.put(sqlFragment, rows);
+        return this;
+    }
+
+    /** Statements containing {@code sqlFragment} fail with {@code error}. */
+    public ScriptedR2dbc fails(String sqlFragment, RuntimeException error) {
+        scripts.put(sqlFragment, error);
+        return this;
+    }
+
+    /** The SQL of the last statement containing {@code sqlFragment}. */
+    public String sql(String sqlFragment) {
+        for (int i = sqls.size() - 1; i >= 0; i--) {
+            if (sqls.get(i).contains(sqlFragment)) return sqls.get(i);
+        }
+        throw new AssertionError("No statement containing " + sqlFragment + " in " + sqls);
+    }
+
+    /** The last statement whose SQL contains {@code sqlFragment}. */
+    public Statement statement(String sqlFragment) {
+        return statements.get(sqls.lastIndexOf(sql(sqlFragment)));
+    }
+
+    /**
+     * Matches a value bound through {@link DatabaseClient}, which wraps every value in a {@link Parameter};
+     * arrays are compared by content.
+     */
+    public static Object bound(Object expected) {
+        return argThat(value -> value instanceof Parameter p && Objects.deepEquals(p.getValue(), expected));
+    }
+
+    private Statement create(String sql) {
+        Object script = scripts.entrySet().stream()
+                .filter(e -> sql.contains(e.getKey()))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElse(List.of());
+        Statement statement = mock(Statement.class, RETURNS_SELF);
+        if (script instanceof RuntimeException error) {
+            doReturn(Flux.error(error)).when(statement).execute();
+        } else {
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> rows = (List<Map<String, Object>>) script;
+            doReturn(Flux.just(result(rows))).when(statement).execute();
+        }
+        sqls.add(sql);
+        statements.add(statement);
+        return statement;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Result result(List<Map<String, Object>> rows) {
+        Result result = mock(Result.class);
+        when(result.getRowsUpdated()).thenReturn(Mono.just(rows.isEmpty() ? 1L : rows.size()));
+        when(result.map(any(BiFunction.class))).thenAnswer(inv -> {
+            BiFunction<Row, RowMetadata, ?> fn = inv.getArgument(0);
+            return Flux.fromIterable(rows).map(values -> fn.apply(row(values), mock(RowMetadata.class)));
+        });
+        when(result.map(any(Function.class))).thenAnswer(inv -> {
+            Function<Readable, ?> fn = inv.getArgument(0);
+            return Flux.fromIterable(rows).map(values -> fn.apply(row(values)));
+        });
+        return result;
+    }
+
+    private static Row row(Map<String, Object> values) {
+        Row row = mock(Row.class);
+        when(row.get(anyString(), any(Class.class))).thenAnswer(inv -> values.get(inv.<String>getArgument(0)));
+        return row;
+    }
+}
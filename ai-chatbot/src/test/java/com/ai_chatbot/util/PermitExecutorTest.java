@@ -0,0 +1,54 @@
+package com.ai_chatbot.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PermitExecutorTest {
+
+    @Test
+    @DisplayName("should fail a call waiting for a permit on shutdownNow and reject calls afterwards")
+    void interruptedWaiterFails() throws Exception {
+        // arrange
+        PermitExecutor executor = new PermitExecutor(Executors.newCachedThreadPool(), 1, "test", new SimpleMeterRegistry());
+        Scheduler scheduler = Schedulers.fromExecutorService(executor);
+        CountDownLatch holding = new CountDownLatch(1);
+        Mono.fromRunnable(() -> {
+            holding.countDown();
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                // keep the permit until shutdownNow has interrupted the waiter too
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException ignored) {
+                }
+                Thread.currentThread().interrupt();
+            }
+        }).subscribeOn(scheduler).subscribe();
+        holding.await();
+        Mono<String> waiting = Mono.fromCallable(() -> {
+            if (Thread.currentThread().isInterrupted()) throw new InterruptedException("interrupted");
+            return "ran";
+        }).subscribeOn(scheduler);
+
+        // act / assert
+        StepVerifier.create(waiting)
+                .then(executor::shutdownNow)
+                .expectError(InterruptedException.class)
+                .verify(Duration.ofSeconds(5));
+        assertThatThrownBy(() -> executor.execute(() -> { }))
+                .isInstanceOf(RejectedExecutionException.class);
+    }
+}
@@ -0,0 +1,69 @@
+package com.ai_chatbot.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamSingleFlightTest {
+
+    private final StreamSingleFlight<String, String> flight = new StreamSingleFlight<>();
+
+    @Test
+    @DisplayName("should share one upstream and replay earlier chunks to a late subscriber")
+    void lateSubscriberGetsReplay() {
+        // arrange
+        Sinks.Many<String> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        AtomicInteger calls = new AtomicInteger();
+        List<String> first = new ArrayList<>();
+        List<String> late = new ArrayList<>();
+        flight.execute("k", () -> {
+            calls.incrementAndGet();
+            return upstream.asFlux();
+        }).subscribe(first::add);
+        upstream.tryEmitNext("a");
+
+        // act
+        flight.execute("k", () -> {
+            calls.incrementAndGet();
+            return Flux.just("other");
+        }).subscribe(late::add);
+        upstream.tryEmitNext("b");
+        upstream.tryEmitComplete();
+
+        // assert
+        assertThat(calls).hasValue(1);
+        assertThat(first).containsExactly("a", "b");
+        assertThat(late).containsExactly("a", "b");
+        assertThat(flight.joinedCount()).isEqualTo(1);
+        assertThat(flight.inFlightCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("should cancel the upstream once every subscriber has cancelled")
+    void cancelsWhenAllSubscribersLeave() {
+        // arrange
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Flux<String> never = Flux.<String>never().doOnCancel(() -> cancelled.set(true));
+        Disposable a = flight.execute("k", () -> never).subscribe();
+        Disposable b = flight.execute("k", () -> never).subscribe();
+
+        // act
+        a.dispose();
+        boolean afterFirst = cancelled.get();
+        b.dispose();
+
+        // assert
+        assertThat(afterFirst).isFalse();
+        assertThat(cancelled).isTrue();
+        assertThat(flight.inFlightCount()).isZero();
+    }
+}
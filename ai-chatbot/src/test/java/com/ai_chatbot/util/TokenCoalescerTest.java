@@ -0,0 +1,58 @@
+package com.ai_chatbot.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Sinks;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenCoalescerTest {
+
+    private final VirtualTimeScheduler timer = VirtualTimeScheduler.create();
+
+    @Test
+    @DisplayName("should emit frames by size, by time and on completion")
+    void framesBySizeAndTime() {
+        // arrange
+        Sinks.Many<String> tokens = Sinks.many().unicast().onBackpressureBuffer();
+        List<String> frames = new ArrayList<>();
+        AtomicBoolean completed = new AtomicBoolean();
+        TokenCoalescer.coalesce(tokens.asFlux(), 8, Duration.ofMillis(50), timer)
+                .subscribe(frames::add, e -> { }, () -> completed.set(true));
+
+        // act
+        tokens.tryEmitNext("Hel");
+        tokens.tryEmitNext("lo ");
+        tokens.tryEmitNext("there");
+        tokens.tryEmitNext(",");
+        timer.advanceTimeBy(Duration.ofMillis(50));
+        tokens.tryEmitNext(" gen");
+        tokens.tryEmitComplete();
+
+        // assert
+        assertThat(frames).containsExactly("Hello there", ",", " gen");
+        assertThat(completed).isTrue();
+    }
+
+    @Test
+    @DisplayName("should cancel the tokens when the frames are cancelled")
+    void cancellation() {
+        // arrange
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Sinks.Many<String> tokens = Sinks.many().unicast().onBackpressureBuffer();
+
+        // act
+        TokenCoalescer.coalesce(tokens.asFlux().doOnCancel(() -> cancelled.set(true)), 8, Duration.ofMillis(50), timer)
+                .subscribe()
+                .dispose();
+
+        // assert
+        assertThat(cancelled).isTrue();
+    }
+}
@@ -0,0 +1,43 @@
+package com.ai_chatbot.vectorstore;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MetadataFilterTest {
+
+    @Test
+    @DisplayName("Conversation scope optionally includes unscoped documents")
+    void conversationScope() {
+        // arrange
+        MetadataFilter strict = MetadataFilter.forConversation("c1");
+        MetadataFilter withShared = strict.includingUnscoped();
+
+        // act / assert
+        assertThat(strict.matches("c1", Set.of(), null)).isTrue();
+        assertThat(strict.matches("c2", Set.of(), null)).isFalse();
+        assertThat(strict.matches(null, Set.of(), null)).isFalse();
+        assertThat(withShared.matches(null, Set.of(), null)).isTrue();
+        assertThat(withShared.matches("c2", Set.of(), null)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Tags must all be present and created time falls in [after, before)")
+    void tagsAndTimeRange() {
+        // arrange
+        Instant t0 = Instant.parse("2024-01-01T00:00:00Z");
+        Instant t1 = Instant.parse("2024-02-01T00:00:00Z");
+        MetadataFilter filter = MetadataFilter.NONE.withTags(List.of("a", "b")).createdBetween(t0, t1);
+
+        // act / assert
+        assertThat(filter.matches(null, Set.of("a", "b", "c"), t0)).isTrue();
+        assertThat(filter.matches(null, Set.of("a"), t0)).isFalse();
+        assertThat(filter.matches(null, Set.of("a", "b"), t1)).isFalse();
+        assertThat(filter.matches(null, Set.of("a", "b"), null)).isFalse();
+    }
+}
@@ -0,0 +1,137 @@
+package com.ai_chatbot.vectorstore.implementation;
+
+import com.ai_chatbot.vectorstore.DistanceMetric;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HnswIndexTest {
+
+    private static final int DIM = 32;
+
+    @Test
+    @DisplayName("Concurrent inserts still give high recall against exact search")
+    void recallAfterConcurrentInserts() {
+        // arrange
+        Random random = new Random(7);
+        float[][] vectors = new float[3000][];
+        for (int i = 0; i < vectors.length; i++) vectors[i] = randomVector(random);
+        HnswIndex index = new HnswIndex(DIM, DistanceMetric.L2, 16, 100);
+        UUID[] keys = new UUID[vectors.length];
+        IntStream.range(0, vectors.length).parallel().forEach(i -> {
+            keys[i] = new UUID(0, i);
+            index.add(keys[i], vectors[i]);
+        });
+
+        // act
+        double recall = 0;
+        int queries = 50;
+        for (int q = 0; q < queries; q++) {
+            float[] query = randomVector(random);
+            Set<UUID> expected = exact(vectors, keys, query, 10);
+            HnswIndex.Candidates found = index.search(query, 10, 64);
+            Set<UUID> actual = new HashSet<>();
+            for (int i = 0; i < found.size; i++) actual.add(index.key(found.ids[i]));
+            actual.retainAll(expected);
+            recall += actual.size() / 10.0;
+        }
+
+        // assert
+        assertThat(index.size()).isEqualTo(vectors.length);
+        assertThat(recall / queries).isGreaterThan(0.9);
+    }
+
+    @Test
+    @DisplayName("Searches running alongside inserts never see a half-published entry point")
+    void searchesDuringInserts() throws Exception {
+        // arrange
+        HnswIndex index = new HnswIndex(DIM, DistanceMetric.L2, 4, 16);
+        int inserts = 5000;
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+
+        // act
+        for (int t = 0; t < 2; t++) {
+            int seed = t;
+            pool.submit(() -> {
+                Random random = new Random(100 + seed);
+                try {
+                    while (!done.get()) index.search(randomVector(random), 5, 16);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+        }
+        Random random = new Random(3);
+        for (int i = 0; i < inserts; i++) index.add(new UUID(2, i), randomVector(random));
+        done.set(true);
+        pool.shutdown();
+
+        // assert
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(failure.get()).isNull();
+        assertThat(index.size()).isEqualTo(inserts);
+    }
+
+    @Test
+    @DisplayName("Deleted nodes are never returned and snapshots round-trip")
+    void deletesAndSnapshot(@TempDir Path dir) throws Exception {
+        // arrange
+        Random random = new Random(11);
+        HnswIndex index = new HnswIndex(DIM, DistanceMetric.COSINE, 8, 50);
+        Map<UUID, StoredDocument> docs = new HashMap<>();
+        float[] target = randomVector(random);
+        for (int i = 0; i < 200; i++) {
+            UUID key = new UUID(1, i);
+            int node = index.add(key, i == 0 ? target : randomVector(random));
+            docs.put(key, StoredDocument.of(node, "t" + i, "c" + i, "{}"));
+        }
+        index.markDeleted(0);
+        Path file = dir.resolve("index.hnsw");
+
+        // act
+        HnswSnapshot.write(file, index, docs);
+        HnswSnapshot.Loaded loaded = HnswSnapshot.read(file);
+        HnswIndex.Candidates before = index.search(target, 5, 32);
+        HnswIndex.Candidates after = loaded.index().search(target, 5, 32);
+
+        // assert
+        assertThat(Arrays.copyOf(before.ids, before.size)).doesNotContain(0);
+        assertThat(Arrays.copyOf(after.ids, after.size)).containsExactly(Arrays.copyOf(before.ids, before.size));
+        assertThat(loaded.documents()).isEqualTo(docs);
+    }
+
+    private static Set<UUID> exact(float[][] vectors, UUID[] keys, float[] query, int k) {
+        Integer[] order = new Integer[vectors.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingDouble(i -> VectorMath.squaredL2(vectors[i], 0, query, 0, DIM)));
+        Set<UUID> result = new HashSet<>();
+        for (int i = 0; i < k; i++) result.add(keys[order[i]]);
+        return result;
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] v = new float[DIM];
+        for (int i = 0; i < DIM; i++) v[i] = (float) random.nextGaussian();
+        return v;
+    }
+}
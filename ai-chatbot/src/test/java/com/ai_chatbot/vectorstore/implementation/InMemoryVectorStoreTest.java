@@ -0,0 +1,63 @@
+package com.ai_chatbot.vectorstore.implementation;
+
+import com.ai_chatbot.vectorstore.DistanceMetric;
+import com.ai_chatbot.vectorstore.DocumentHit;
+import com.ai_chatbot.vectorstore.SearchOptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryVectorStoreTest {
+
+    private static InMemoryVectorStore store(double maxDeletedRatio) {
+        return new InMemoryVectorStore(DistanceMetric.L2, 8, 32, 32, "", Duration.ZERO, maxDeletedRatio);
+    }
+
+    @Test
+    @DisplayName("should drop replaced vertices on compaction and keep the latest version searchable")
+    void compactDropsReplacedVertices() {
+        // arrange: ratio high enough that compaction only runs when asked for
+        InMemoryVectorStore store = store(1000);
+        String id = UUID.randomUUID().toString();
+        String other = UUID.randomUUID().toString();
+        store.upsertDocument(other, "other", "other", new float[]{0f, 10f}, "{}");
+        for (int i = 0; i < 100; i++) {
+            store.upsertDocument(id, "prompt " + i, "prompt " + i, new float[]{i, 0f}, "{}");
+        }
+
+        // act
+        int before = store.vertexCount();
+        store.compact();
+
+        // assert
+        assertThat(before).isEqualTo(101);
+        assertThat(store.vertexCount()).isEqualTo(2);
+        assertThat(store.size()).isEqualTo(2);
+        List<DocumentHit> hits = store.queryNearest(new float[]{99f, 0f}, SearchOptions.of(1));
+        assertThat(hits).singleElement().satisfies(hit -> assertThat(hit.title()).isEqualTo("prompt 99"));
+    }
+
+    @Test
+    @DisplayName("should rebuild the graph by itself once tombstones exceed the ratio")
+    void compactsPastDeletedRatio() throws InterruptedException {
+        // arrange
+        InMemoryVectorStore store = store(0.5);
+        String id = UUID.randomUUID().toString();
+
+        // act: one document re-upserted on every turn, like the last user prompt of a conversation
+        for (int i = 0; i < 1000; i++) {
+            store.upsertDocument(id, "prompt", "prompt " + i, new float[]{i, 1f}, "{}");
+        }
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (store.vertexCount() > 100 && System.nanoTime() < deadline) Thread.sleep(10);
+
+        // assert: bounded by the compaction threshold instead of growing with every turn
+        assertThat(store.vertexCount()).isLessThanOrEqualTo(100);
+        assertThat(store.size()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,142 @@
+package com.ai_chatbot.vectorstore.implementation;
+
+import com.ai_chatbot.support.ScriptedR2dbc;
+import com.ai_chatbot.vectorstore.DistanceMetric;
+import com.ai_chatbot.vectorstore.DocumentHit;
+import com.ai_chatbot.vectorstore.MetadataFilter;
+import com.ai_chatbot.vectorstore.SearchOptions;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.postgresql.codec.Json;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Parameter;
+import io.r2dbc.spi.Statement;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.ai_chatbot.support.ScriptedR2dbc.bound;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class R2dbcVectorStoreTest {
+
+    private final ScriptedR2dbc r2dbc = new ScriptedR2dbc();
+    private final R2dbcVectorStore store = new R2dbcVectorStore(r2dbc.client(), new ObjectMapper(), DistanceMetric.L2, "");
+
+    /** {@link Json} has no value equality, so binds are compared by their text. */
+    private static Object json(String expected) {
+        return argThat(value -> value instanceof Json json && json.asString().equals(expected));
+    }
+
+    /** The same for a {@link Json} bound through {@code DatabaseClient}. */
+    private static Object boundJson(String expected) {
+        return argThat(value -> value instanceof Parameter p && p.getValue() instanceof Json json
+                && json.asString().equals(expected));
+    }
+
+    @Test
+    @DisplayName("should bind the embedding as real[] and cast it to vector on upsert")
+    void upsertCastsBoxedVector() {
+        // arrange
+        String id = UUID.randomUUID().toString();
+
+        // act
+        store.upsertDocument(id, "title", null, new float[]{0.25f, -1f}, null).block();
+
+        // assert
+        assertThat(r2dbc.sql("INSERT INTO documents")).contains("CAST($5 AS vector)");
+        Statement insert = r2dbc.statement("INSERT INTO documents");
+        verify(insert).bind(eq(0), bound(UUID.fromString(id)));
+        verify(insert).bind(eq(2), bound(""));
+        verify(insert).bind(eq(3), boundJson("{}"));
+        verify(insert).bind(eq(4), bound(new Float[]{0.25f, -1f}));
+    }
+
+    @Test
+    @DisplayName("should reject an empty embedding without touching the database")
+    void rejectsEmptyVector() {
+        // act / assert
+        assertThatThrownBy(() -> store.upsertDocument(UUID.randomUUID().toString(), "t", "c", new float[0], "{}").block())
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(r2dbc.connection(), never()).createStatement(anyString());
+    }
+
+    @Test
+    @DisplayName("should query with the metric operator and no transaction when nothing is filtered or tuned")
+    void queriesWithoutSettings() {
+        // arrange
+        UUID id = UUID.randomUUID();
+        r2dbc.rows("FROM documents", List.of(Map.of("id", id, "title", "t", "content", "c",
+                "metadata", Json.of("{\"a\":1}"), "distance", 0.5d)));
+
+        // act
+        List<DocumentHit> hits = store.queryNearest(new float[]{1f, 0f}, SearchOptions.of(3).withMetric(DistanceMetric.COSINE))
+                .collectList().block();
+
+        // assert
+        assertThat(r2dbc.sql("FROM documents"))
+                .contains("embedding <=> CAST($1 AS vector) AS distance")
+                .contains("FROM documents ORDER BY embedding <=> CAST($1 AS vector) LIMIT $2");
+        Statement select = r2dbc.statement("FROM documents");
+        verify(select).bind(0, new Float[]{1f, 0f});
+        verify(select).bind(1, 3);
+        assertThat(hits).containsExactly(new DocumentHit(id, "t", "c", "{\"a\":1}", 0.5f));
+        verify(r2dbc.connection(), never()).beginTransaction();
+    }
+
+    @Test
+    @DisplayName("should push the metadata filter down as numbered parameters after the query vector")
+    void pushesFilterDown() {
+        // arrange
+        Instant after = Instant.parse("2025-01-01T00:00:00Z");
+        Instant before = Instant.parse("2025-02-01T00:00:00Z");
+        MetadataFilter filter = MetadataFilter.forConversation("c-1").includingUnscoped()
+                .withTags(List.of("faq")).createdBetween(after, before);
+
+        // act
+        store.queryNearest(new float[]{1f}, SearchOptions.of(5).withFilter(filter)).collectList().block();
+
+        // assert
+        assertThat(r2dbc.sql("FROM documents")).contains(" WHERE (metadata->>'conversationId' = $2 " +
+                "OR metadata->>'conversationId' IS NULL) AND metadata @> $3 " +
+                "AND documents_created_at(metadata) >= $4 AND documents_created_at(metadata) < $5 " +
+                "ORDER BY embedding <-> CAST($1 AS vector) LIMIT $6");
+        Statement select = r2dbc.statement("FROM documents");
+        verify(select).bind(1, "c-1");
+        verify(select).bind(eq(2), json("{\"tags\":[\"faq\"]}"));
+        verify(select).bind(3, after);
+        verify(select).bind(4, before);
+        verify(select).bind(5, 5);
+    }
+
+    @Test
+    @DisplayName("should apply per-query settings with set_config inside a transaction on the same connection")
+    void appliesSettingsInTransaction() {
+        // arrange
+        R2dbcVectorStore iterative = new R2dbcVectorStore(r2dbc.client(), new ObjectMapper(), DistanceMetric.L2, "relaxed_order");
+
+        // act
+        iterative.queryNearest(new float[]{1f}, SearchOptions.of(5).withEfSearch(80)
+                        .withFilter(MetadataFilter.forConversation("c-1")))
+                .collectList().block();
+
+        // assert
+        Connection conn = r2dbc.connection();
+        InOrder order = inOrder(conn);
+        order.verify(conn).beginTransaction();
+        order.verify(conn, times(2)).createStatement("SELECT set_config($1, $2, true)");
+        order.verify(conn).createStatement(contains("FROM documents"));
+        order.verify(conn).commitTransaction();
+        verify(conn, never()).rollbackTransaction();
+        Statement setting = r2dbc.statement("set_config");
+        verify(setting).bind(0, "hnsw.iterative_scan");
+        verify(setting).bind(1, "relaxed_order");
+    }
+}
@@ -26,7 +26,7 @@ export default function App() {
   // Load conversations
   useEffect(() => {
     axios.get(`${API_BASE}/conversations`)
-      .then(res => setConversations(Array.isArray(res.data) ? res.data : []))
+      .then(res => setConversations(Array.isArray(res.data?.items) ? res.data.items : []))
       .catch(err => console.error("Failed to load conversations", err));
   }, []);
 
@@ -97,18 +97,52 @@ export default function App() {
       });
     };
 
-    evtSource.onerror = () => {
-      setMessages(prev => prev.map(m => m.role === "assistant" && !m.streamComplete ? {...m, streamComplete: true} : m));
+    // onmessage already rendered the answer; mark it complete and close the stream
+    const finish = () => {
       evtSource.close();
+      setMessages(prev => prev.map(m => m.role === "assistant" && !m.streamComplete ? {...m, streamComplete: true} : m));
       // Save conversationId if assigned
       if (!conversationId) setConversationId(""); // Backend generates it automatically
     };
+    evtSource.addEventListener("done", finish);
+    // the server could not finish or resume the answer; what arrived so far is kept
+    evtSource.addEventListener("failed", finish);
+    evtSource.addEventListener("gone", finish);
+    // the model backend is saturated; the user message is already sent, so it is not resent automatically
+    evtSource.addEventListener("busy", (event) => {
+      finish();
+      setMessages(prev => [...prev, { role: "system", content: `The model is busy, please retry in ${event.data} s.` }]);
+    });
+
+    evtSource.onerror = (err) => {
+      // while CONNECTING the browser reconnects with Last-Event-ID and the server resumes the answer
+      if (evtSource.readyState !== EventSource.CLOSED) return;
+      console.error("SSE error", err);
+      finish();
+    };
   };
 
-  // Load conversation
-  const loadConversation = (conv) => {
+  // Load conversation: summaries carry no messages, so page through its history
+  const selectedRef = useRef(null);
+  const loadConversation = async (conv) => {
+    selectedRef.current = conv.id;
     setConversationId(conv.id);
-    setMessages(conv.messages || []);
+    setMessages([]);
+    const history = [];
+    let cursor = null;
+    try {
+      do {
+        const res = await axios.get(`${API_BASE}/conversations/${conv.id}/messages`, {
+          params: { limit: 200, ...(cursor ? { cursor } : {}) }
+        });
+        history.push(...(res.data?.items || []).map(m => ({ role: m.role, content: m.content })));
+        cursor = res.data?.nextCursor;
+      } while (cursor && selectedRef.current === conv.id);
+    } catch (err) {
+      console.error("Failed to load conversation", err);
+    }
+    // another conversation was selected meanwhile
+    if (selectedRef.current === conv.id) setMessages(history);
   };
 
   // Upload RAG documents
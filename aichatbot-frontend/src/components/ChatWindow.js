@@ -45,27 +45,34 @@ export default function ChatWindow({ conversationId, onNewConversation, model, u
     const es = streamChat({ conversationId: convId, message, model, useRag });
     streamingRef.current = es;
     let partial = '';
+    // onmessage already rendered the answer as the tail message; only the stream is closed
+    const finish = () => {
+      es.close();
+      streamingRef.current = null;
+    };
     es.onmessage = (e) => {
-      // e.data is chunk
-      if (e.data === '[DONE]') {
-        es.close();
-        setMessages(prev => [...prev, { role: 'assistant', content: partial }]);
-        streamingRef.current = null;
-      } else {
-        partial += e.data;
-        // show typing partial
-        const tail = { role: 'assistant', content: partial };
-        const withoutTail = messages.filter(m => m.role !== 'assistant' || m.content !== partial); // crude
-        setMessages(prev => {
-          // show all user + partial assistant
-          const nonAssistant = prev.filter(p => p.role !== 'assistant');
-          return [...nonAssistant, tail];
-        });
-      }
+      partial += e.data;
+      // show typing partial
+      const tail = { role: 'assistant', content: partial };
+      setMessages(prev => {
+        // show all user + partial assistant
+        const nonAssistant = prev.filter(p => p.role !== 'assistant');
+        return [...nonAssistant, tail];
+      });
     };
+    es.addEventListener('done', finish);
+    // the server could not finish or resume the answer; what arrived so far is kept
+    es.addEventListener('failed', finish);
+    es.addEventListener('gone', finish);
+    // the model backend is saturated; the user message is already sent, so it is not resent automatically
+    es.addEventListener('busy', (e) => {
+      finish();
+      setMessages(prev => [...prev, { role: 'system', content: `The model is busy, please retry in ${e.data} s.` }]);
+    });
     es.onerror = (err) => {
+      // while CONNECTING the browser reconnects with Last-Event-ID and the server resumes the answer
+      if (es.readyState !== EventSource.CLOSED) return;
       console.error('SSE error', err);
-      es.close();
       streamingRef.current = null;
     };
   };
@@ -4,7 +4,7 @@ import { listConversations } from '../services/api';
 export default function ConversationList({ onSelect }) {
   const [conversations, setConversations] = useState([]);
   useEffect(() => {
-    listConversations().then(res => setConversations(res.data));
+    listConversations().then(res => setConversations(res.data.items || []));
   }, []);
   return (
     <div className="conv-list">